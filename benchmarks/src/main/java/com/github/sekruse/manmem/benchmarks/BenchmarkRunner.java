@@ -0,0 +1,38 @@
+package com.github.sekruse.manmem.benchmarks;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count. Accepts the usual JMH command line options, e.g., a regular expression
+ * to select benchmarks or {@code -p segmentSize=4096} to restrict parameters. Explicitly given thread counts
+ * ({@code -t}) override the default sweep.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * The thread counts that are benchmarked by default.
+     */
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final int[] threadCounts = commandLineOptions.getThreads().hasValue() ?
+                new int[]{commandLineOptions.getThreads().get()} :
+                THREAD_COUNTS;
+        for (int threadCount : threadCounts) {
+            final ChainedOptionsBuilder options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(threadCount);
+            if (commandLineOptions.getIncludes().isEmpty()) {
+                options.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+            }
+            new Runner(options.build()).run();
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.github.sekruse.manmem.benchmarks;
+
+import com.github.sekruse.manmem.collection.JenkinsHashFunction;
+import com.github.sekruse.manmem.collection.list.CuckooHashTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks random {@link CuckooHashTable#put(int, int)} and {@link CuckooHashTable#get(int, int)} calls on a
+ * half-full table, where each benchmark thread works on its own table.
+ */
+public class CuckooHashTableBenchmark {
+
+    /**
+     * A value that is never used as key.
+     */
+    private static final int NULL_KEY = -1;
+
+    /**
+     * The hash table of a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Table {
+
+        CuckooHashTable hashTable;
+
+        int numEntries;
+
+        final SplittableRandom random = new SplittableRandom(42);
+
+        @Setup(Level.Trial)
+        public void setUp(MemoryManagerState state, BenchmarkParams benchmarkParams) {
+            // Each entry takes two ints; fill the table up to half of its capacity.
+            final int capacity = state.getWorkingSetPerThread(benchmarkParams) / (2 * Integer.BYTES);
+            this.numEntries = capacity / 2;
+            this.hashTable = new CuckooHashTable(capacity, state.memoryManager, NULL_KEY,
+                    new JenkinsHashFunction.Factory(), new Random(42));
+            for (int key = 0; key < this.numEntries; key++) {
+                this.hashTable.put(key, key);
+            }
+        }
+
+        int nextKey() {
+            return this.random.nextInt(this.numEntries);
+        }
+    }
+
+    @Benchmark
+    public int get(Table table) {
+        return table.hashTable.get(table.nextKey(), NULL_KEY);
+    }
+
+    @Benchmark
+    public void put(Table table) {
+        final int key = table.nextKey();
+        table.hashTable.put(key, key);
+    }
+
+}
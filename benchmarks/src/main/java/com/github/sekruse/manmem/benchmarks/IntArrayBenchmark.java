@@ -0,0 +1,51 @@
+package com.github.sekruse.manmem.benchmarks;
+
+import com.github.sekruse.manmem.collection.list.IntArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks random {@link IntArray#get(long)} and {@link IntArray#set(long, int)} calls, where each benchmark thread
+ * works on its own array.
+ */
+public class IntArrayBenchmark {
+
+    /**
+     * The array of a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Array {
+
+        IntArray intArray;
+
+        final SplittableRandom random = new SplittableRandom(42);
+
+        @Setup(Level.Trial)
+        public void setUp(MemoryManagerState state, BenchmarkParams benchmarkParams) {
+            final int size = state.getWorkingSetPerThread(benchmarkParams) / Integer.BYTES;
+            this.intArray = new IntArray(size, state.memoryManager);
+            this.intArray.setAll(0);
+        }
+
+        long nextPosition() {
+            return this.random.nextLong(this.intArray.getCapacity());
+        }
+    }
+
+    @Benchmark
+    public int get(Array array) {
+        return array.intArray.get(array.nextPosition());
+    }
+
+    @Benchmark
+    public void set(Array array) {
+        array.intArray.set(array.nextPosition(), 42);
+    }
+
+}
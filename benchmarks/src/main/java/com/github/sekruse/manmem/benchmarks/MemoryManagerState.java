@@ -0,0 +1,76 @@
+package com.github.sekruse.manmem.benchmarks;
+
+import com.github.sekruse.manmem.manager.GlobalMemoryManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Provides a {@link GlobalMemoryManager} that is shared by all benchmark threads. Its capacity is chosen relative to
+ * the working set of the benchmark, so that a ratio below {@code 1} forces segments to be spilled and loaded.
+ * Per-thread states do not release their segments, as JMH might tear them down after this state; the memory manager
+ * is discarded as a whole instead.
+ */
+@State(Scope.Benchmark)
+public class MemoryManagerState {
+
+    /**
+     * The default segment size (in bytes) of the {@link #memoryManager}.
+     */
+    @Param({"4096", "32768"})
+    public int segmentSize;
+
+    /**
+     * The ratio of the capacity of the {@link #memoryManager} to the working set.
+     */
+    @Param({"0.5", "2.0"})
+    public double capacityRatio;
+
+    /**
+     * The total working set (in MB) of the benchmark, which is split evenly among the benchmark threads.
+     */
+    @Param({"16"})
+    public int workingSetMb;
+
+    /**
+     * The {@link GlobalMemoryManager} under test.
+     */
+    public GlobalMemoryManager memoryManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final long workingSet = this.workingSetMb * (1L << 20);
+        final long capacity = Math.max(this.segmentSize, (long) (workingSet * this.capacityRatio));
+        this.memoryManager = new GlobalMemoryManager(capacity, this.segmentSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.memoryManager.close();
+    }
+
+    /**
+     * Determines the share of the working set of a single benchmark thread.
+     *
+     * @param benchmarkParams the parameters of the running benchmark
+     * @return the share of the working set in bytes, at least one segment
+     */
+    public int getWorkingSetPerThread(BenchmarkParams benchmarkParams) {
+        final long workingSet = this.workingSetMb * (1L << 20);
+        return (int) Math.max(this.segmentSize, workingSet / benchmarkParams.getThreads());
+    }
+
+    /**
+     * Determines the number of segments that make up the working set of a single benchmark thread.
+     *
+     * @param benchmarkParams the parameters of the running benchmark
+     * @return the number of segments, at least one
+     */
+    public int getSegmentsPerThread(BenchmarkParams benchmarkParams) {
+        return getWorkingSetPerThread(benchmarkParams) / this.segmentSize;
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.sekruse.manmem.benchmarks;
+
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.streams.ManagedDataInput;
+import com.github.sekruse.manmem.streams.ManagedDataOutput;
+import com.github.sekruse.manmem.streams.MemoryInputStream;
+import com.github.sekruse.manmem.streams.MemoryOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.EOFException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks the throughput of {@link MemoryOutputStream} and {@link MemoryInputStream} as well as of
+ * {@link ManagedDataOutput} and {@link ManagedDataInput} for {@code int}s. Each operation writes or reads the complete
+ * share of the working set of a benchmark thread.
+ */
+public class MemoryStreamBenchmark {
+
+    /**
+     * The stream data of a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Streams {
+
+        /**
+         * The size (in bytes) of the chunks that are written and read at once.
+         */
+        @Param({"4096"})
+        public int chunkSize;
+
+        MemoryManagerState state;
+
+        byte[] chunk;
+
+        int numChunks;
+
+        List<VirtualMemorySegment> writtenSegments;
+
+        @Setup(Level.Trial)
+        public void setUp(MemoryManagerState state, BenchmarkParams benchmarkParams) {
+            this.state = state;
+            this.chunk = new byte[this.chunkSize];
+            new Random(42).nextBytes(this.chunk);
+            this.numChunks = Math.max(1, state.getWorkingSetPerThread(benchmarkParams) / this.chunkSize);
+            this.writtenSegments = write();
+        }
+
+        List<VirtualMemorySegment> write() {
+            final MemoryOutputStream outputStream = new MemoryOutputStream(this.state.memoryManager);
+            for (int i = 0; i < this.numChunks; i++) {
+                outputStream.write(this.chunk);
+            }
+            outputStream.close();
+            return outputStream.getCollector();
+        }
+
+        static void release(List<VirtualMemorySegment> segments) {
+            for (VirtualMemorySegment segment : segments) {
+                segment.release();
+            }
+        }
+    }
+
+    @Benchmark
+    public int write(Streams streams) {
+        final List<VirtualMemorySegment> segments = streams.write();
+        Streams.release(segments);
+        return segments.size();
+    }
+
+    @Benchmark
+    public long read(Streams streams) {
+        final byte[] buffer = new byte[streams.chunkSize];
+        final MemoryInputStream inputStream = new MemoryInputStream(streams.writtenSegments);
+        long checksum = 0L;
+        int numReadBytes;
+        while ((numReadBytes = inputStream.read(buffer)) != -1) {
+            checksum += numReadBytes + buffer[0];
+        }
+        inputStream.close();
+        return checksum;
+    }
+
+    @Benchmark
+    public int writeInts(Streams streams) {
+        final ManagedDataOutput dataOutput = new ManagedDataOutput(streams.state.memoryManager);
+        final int numInts = streams.numChunks * streams.chunkSize / Integer.BYTES;
+        for (int i = 0; i < numInts; i++) {
+            dataOutput.writeInt(i);
+        }
+        dataOutput.close();
+        final List<VirtualMemorySegment> segments = dataOutput.getCollector();
+        Streams.release(segments);
+        return segments.size();
+    }
+
+    @Benchmark
+    public long readInts(Streams streams) throws EOFException {
+        final ManagedDataInput dataInput = new ManagedDataInput(streams.writtenSegments);
+        final int numInts = streams.numChunks * streams.chunkSize / Integer.BYTES;
+        long checksum = 0L;
+        for (int i = 0; i < numInts; i++) {
+            checksum += dataInput.readInt();
+        }
+        dataInput.close();
+        return checksum;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.github.sekruse.manmem.benchmarks;
+
+import com.github.sekruse.manmem.memory.ReadAccess;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks {@link VirtualMemorySegment#getReadAccess()}, {@link VirtualMemorySegment#readInt(int)}, and
+ * {@link VirtualMemorySegment#getWriteAccess()} on randomly chosen segments. Depending on
+ * {@link MemoryManagerState#capacityRatio}, the segments are resident or need to be loaded from disk.
+ */
+public class SegmentAccessBenchmark {
+
+    /**
+     * The segments of a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Segments {
+
+        VirtualMemorySegment[] segments;
+
+        final SplittableRandom random = new SplittableRandom(42);
+
+        @Setup(Level.Trial)
+        public void setUp(MemoryManagerState state, BenchmarkParams benchmarkParams) {
+            this.segments = new VirtualMemorySegment[state.getSegmentsPerThread(benchmarkParams)];
+            for (int i = 0; i < this.segments.length; i++) {
+                this.segments[i] = state.memoryManager.requestDefaultMemory();
+                try (WriteAccess writeAccess = this.segments[i].getWriteAccess()) {
+                    final ByteBuffer payload = writeAccess.getPayload();
+                    payload.clear();
+                    payload.putInt(0, i);
+                }
+            }
+        }
+
+        VirtualMemorySegment next() {
+            return this.segments[this.random.nextInt(this.segments.length)];
+        }
+    }
+
+    @Benchmark
+    public int read(Segments segments) {
+        try (ReadAccess readAccess = segments.next().getReadAccess()) {
+            return readAccess.getPayload().getInt(0);
+        }
+    }
+
+    @Benchmark
+    public int readOptimistically(Segments segments) {
+        return segments.next().readInt(0);
+    }
+
+    @Benchmark
+    public void write(Segments segments) {
+        try (WriteAccess writeAccess = segments.next().getWriteAccess()) {
+            final ByteBuffer payload = writeAccess.getPayload();
+            payload.putInt(0, payload.getInt(0) + 1);
+        }
+    }
+
+}
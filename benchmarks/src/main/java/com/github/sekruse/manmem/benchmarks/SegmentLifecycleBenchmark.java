@@ -0,0 +1,32 @@
+package com.github.sekruse.manmem.benchmarks;
+
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Benchmarks the churn of requesting and releasing segments, which stresses the free queues and the accounting of
+ * the memory manager.
+ */
+public class SegmentLifecycleBenchmark {
+
+    @Benchmark
+    public void requestAndRelease(MemoryManagerState state) {
+        final VirtualMemorySegment segment = state.memoryManager.requestDefaultMemory();
+        segment.release();
+    }
+
+    @Benchmark
+    public void requestWriteAndRelease(MemoryManagerState state) {
+        final VirtualMemorySegment segment = state.memoryManager.requestDefaultMemory();
+        try (WriteAccess writeAccess = segment.getWriteAccess()) {
+            final ByteBuffer payload = writeAccess.getPayload();
+            payload.clear();
+            payload.putInt(0, 42);
+        }
+        segment.release();
+    }
+
+}
@@ -6,6 +6,7 @@ import com.github.sekruse.manmem.manager.MemoryManager;
 import com.github.sekruse.manmem.manager.capabilities.MemoryAccessException;
 import com.github.sekruse.manmem.memory.MemoryAccess;
 import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
 
 import java.nio.ByteBuffer;
 
@@ -29,6 +30,12 @@ public class AbstractIntTable implements ManagedMemoryDataStructure {
      */
     protected final MemoryAccess[] memoryAccesses;
 
+    /**
+     * A closed {@link WriteAccess} that is re-armed for ad-hoc writes, so that they do not allocate any objects, or
+     * {@code null} if none has been created yet.
+     */
+    private WriteAccess reusableWriteAccess;
+
     /**
      * @see MemoryManager#getDefaultSegmentSize()
      */
@@ -99,7 +106,8 @@ public class AbstractIntTable implements ManagedMemoryDataStructure {
                 throw new MemoryAccessException("Existing access does not permit writes.");
             }
         } else {
-            access = this.virtualMemorySegments[segmentIndex].getWriteAccess();
+            access = this.reusableWriteAccess =
+                    this.virtualMemorySegments[segmentIndex].getWriteAccess(this.reusableWriteAccess);
         }
 
         // Perform the write.
@@ -125,30 +133,21 @@ public class AbstractIntTable implements ManagedMemoryDataStructure {
         int segmentIndex = getSegmentIndex(pos);
         int segmentOffset = getSegmentOffset(pos, segmentIndex);
 
-        // Ensure write access to the segment.
-        MemoryAccess access = this.memoryAccesses[segmentIndex];
-        final boolean isExistingAccess = access != null;
-        if (isExistingAccess) {
-            if (!access.permitsRead()) {
-                throw new MemoryAccessException("Existing access does not permit reads.");
-            }
-        } else {
-            access = this.virtualMemorySegments[segmentIndex].getReadAccess();
+        // Without a held access, read the segment optimistically.
+        final MemoryAccess access = this.memoryAccesses[segmentIndex];
+        if (access == null) {
+            return this.virtualMemorySegments[segmentIndex].readInt(segmentOffset);
+        }
+        if (!access.permitsRead()) {
+            throw new MemoryAccessException("Existing access does not permit reads.");
         }
 
-        // Perform the write.
+        // Perform the read.
         final ByteBuffer payload = access.getPayload();
         if (payload.limit() <= segmentOffset) {
             payload.limit(segmentOffset + Integer.BYTES);
         }
-        final int returnValue = payload.getInt(segmentOffset);
-
-        // Close ad-hoc write access.
-        if (!isExistingAccess) {
-            access.close();
-        }
-
-        return returnValue;
+        return payload.getInt(segmentOffset);
     }
 
     /**
@@ -247,7 +246,9 @@ public class AbstractIntTable implements ManagedMemoryDataStructure {
                     throw new IllegalStateException(msg);
                 }
             } else {
-                memoryAccess = this.virtualMemorySegments[segmentIndex].getWriteAccess();
+                // The segment is overwritten entirely, so there is no need to load it.
+                memoryAccess = this.reusableWriteAccess =
+                        this.virtualMemorySegments[segmentIndex].getOverwriteAccess(this.reusableWriteAccess);
             }
 
             // Clean the segment.
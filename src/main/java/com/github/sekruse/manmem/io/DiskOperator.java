@@ -2,6 +2,8 @@ package com.github.sekruse.manmem.io;
 
 import com.github.sekruse.manmem.memory.DiskMemorySegment;
 import com.github.sekruse.manmem.memory.MainMemorySegment;
+import it.unimi.dsi.fastutil.ints.Int2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,61 +11,84 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
 
 /**
- * This class is the interface to write and read memory segments from disk.
+ * This class is the interface to write and read memory segments from disk. It can be used by multiple threads, which
+ * may write and load distinct segments in parallel.
  */
 public class DiskOperator implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DiskOperator.class);
 
+    /**
+     * The file were this operator writes to and reads from.
+     */
+    private final File file;
 
     /**
-     * Info variable. Keeps track on how often {@link MainMemorySegment}s are loaded.
+     * A read/write channel to {@link #file}.
      */
-    public static final AtomicLong SEGMENT_LOADS = new AtomicLong();
+    private final FileChannel fileChannel;
 
     /**
-     * Info variable. Keeps track on how often {@link MainMemorySegment}s are written.
+     * An asynchronous read/write channel to {@link #file}.
      */
-    public static final AtomicLong SEGMENT_WRITES = new AtomicLong();
+    private final AsynchronousFileChannel asyncFileChannel;
 
+    /**
+     * The size of the blocks in the file. Each segment occupies a run of consecutive blocks.
+     */
+    private final int blockSize;
 
     /**
-     * The file were this operator writes to and reads from.
+     * Tracks blocks that can be written to in the file.
      */
-    private final File file;
+    private final FreePositionTracker freePositionTracker = new FreePositionTracker();
 
     /**
-     * A read/write channel to {@link #file}.
+     * The {@link DiskMemorySegment}s that currently occupy blocks of the file, indexed by their first block.
      */
-    private final FileChannel fileChannel;
+    private final Int2ObjectSortedMap<DiskMemorySegment> liveSegments = new Int2ObjectRBTreeMap<>();
 
     /**
-     * The (maximum) size of segments.
+     * The number of writes and loads that have been issued but not completed yet.
      */
-    private final int segmentSize;
+    private final AtomicInteger numPendingOperations = new AtomicInteger();
 
     /**
-     * Tracks positions that can be written to in the file.
+     * Guards the layout of the file: Transfers and recycling of segments hold a read lock, so that they can run in
+     * parallel. Truncating the file and relocating segments requires a write lock.
      */
-    private final FreePositionTracker freePositionTracker = new FreePositionTracker();
+    private final StampedLock layoutLock = new StampedLock();
 
 
     /**
      * Creates a new instance that operates on the given file.
      *
-     * @param file        the file to write to and read from
-     * @param segmentSize the (maximum) size of segments to be written
+     * @param file      the file to write to and read from
+     * @param blockSize the size of the blocks in the file; segments of any size can be written, but their disk
+     *                  footprint is rounded up to a multiple of this size
      * @throws IOException if the file could not be opened
      */
-    public DiskOperator(File file, int segmentSize) throws IOException {
+    public DiskOperator(File file, int blockSize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        }
         this.file = file;
+        // NB: The file might be deleted as soon as the synchronous channel is opened.
+        this.asyncFileChannel = AsynchronousFileChannel.open(this.file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
         this.fileChannel = openFileChannel(this.file);
-        this.segmentSize = segmentSize;
+        this.blockSize = blockSize;
     }
 
     /**
@@ -90,20 +115,67 @@ public class DiskOperator implements AutoCloseable {
      * @throws IOException if the writting fails
      */
     public DiskMemorySegment write(MainMemorySegment mainMemorySegment) throws IOException {
-        DiskMemorySegment diskMemorySegment = obtainFreeSegment();
+        DiskMemorySegment diskMemorySegment = obtainFreeSegment((int) mainMemorySegment.capacity());
         write(mainMemorySegment, diskMemorySegment);
         return diskMemorySegment;
     }
 
+    /**
+     * Writes a given {@link MainMemorySegment} to disk asynchronously. The {@link MainMemorySegment} must not be
+     * modified until the returned future is completed.
+     *
+     * @param mainMemorySegment the {@link MainMemorySegment} to write
+     * @return a future for the {@link DiskMemorySegment} that is being written
+     */
+    public CompletableFuture<DiskMemorySegment> writeAsync(MainMemorySegment mainMemorySegment) {
+        final DiskMemorySegment diskMemorySegment = obtainFreeSegment((int) mainMemorySegment.capacity());
+        return writeAsync(mainMemorySegment, diskMemorySegment).thenApply(ignore -> diskMemorySegment);
+    }
+
+    /**
+     * Writes a {@link MainMemorySegment} to a file asynchronously. The {@link MainMemorySegment} must not be
+     * modified until the returned future is completed.
+     *
+     * @param mainMemorySegment the {@link MainMemorySegment} to write
+     * @param diskMemorySegment the {@link DiskMemorySegment} to write to; must be managed by this operator
+     * @return a future that is completed when the writing is done
+     */
+    public CompletableFuture<Void> writeAsync(MainMemorySegment mainMemorySegment,
+                                              DiskMemorySegment diskMemorySegment) {
+        // Check that this operator is responsible for the passed segment and that the segment fits.
+        ensureResponsibility(diskMemorySegment);
+        final ByteBuffer payload = mainMemorySegment.asByteBuffer();
+        if (payload.limit() > diskMemorySegment.getCapacity()) {
+            throw new IllegalArgumentException(String.format("Cannot write %d bytes to a disk segment of %d bytes.",
+                    payload.limit(), diskMemorySegment.getCapacity()));
+        }
+
+        // Copy the main memory segment to disk. The transfer also updates the metadata of the disk segment.
+        return new AsyncTransfer(payload, diskMemorySegment, true).start();
+    }
+
     /**
      * Obtain a free {@link DiskMemorySegment} that is associated to this operator.
      *
+     * @param capacity the number of bytes to reserve for the segment
      * @return the obtained {@link DiskMemorySegment}
      */
-    private DiskMemorySegment obtainFreeSegment() {
-        final int freePosition = this.freePositionTracker.retrieveFreePosition();
-        long freeOffset = freePosition * (long) this.segmentSize;
-        return new DiskMemorySegment(this, freeOffset);
+    synchronized private DiskMemorySegment obtainFreeSegment(int capacity) {
+        final int freePosition = this.freePositionTracker.retrieveFreePositions(requiredBlocks(capacity));
+        long freeOffset = freePosition * (long) this.blockSize;
+        final DiskMemorySegment diskMemorySegment = new DiskMemorySegment(this, freeOffset, capacity);
+        this.liveSegments.put(freePosition, diskMemorySegment);
+        return diskMemorySegment;
+    }
+
+    /**
+     * Calculate the number of blocks that are required to store a segment.
+     *
+     * @param capacity the capacity of the segment in bytes
+     * @return the number of required blocks
+     */
+    private int requiredBlocks(int capacity) {
+        return Math.max(1, (capacity + this.blockSize - 1) / this.blockSize);
     }
 
     /**
@@ -114,22 +186,25 @@ public class DiskOperator implements AutoCloseable {
      * @throws IOException if the writing fails
      */
     public void write(MainMemorySegment mainMemorySegment, DiskMemorySegment diskMemorySegment) throws IOException {
-        // Check that this operator is responsible for the passed segment.
+        // Check that this operator is responsible for the passed segment and that the segment fits.
         ensureResponsibility(diskMemorySegment);
-
-        // Copy the main memory segment to disk.
-        this.fileChannel.position(diskMemorySegment.getFileOffset());
         final ByteBuffer payload = mainMemorySegment.asByteBuffer();
-        int writtenBytes = 0;
-        while (writtenBytes < payload.limit()) {
-            writtenBytes += this.fileChannel.write(payload);
+        if (payload.limit() > diskMemorySegment.getCapacity()) {
+            throw new IllegalArgumentException(String.format("Cannot write %d bytes to a disk segment of %d bytes.",
+                    payload.limit(), diskMemorySegment.getCapacity()));
         }
 
-        // Update the metadata of the disk segment.
-        diskMemorySegment.setSize(payload.limit());
-
-        // Update the counter.
-        SEGMENT_WRITES.incrementAndGet();
+        // Copy the main memory segment to disk and update the metadata of the disk segment before compactions can
+        // relocate it.
+        this.numPendingOperations.incrementAndGet();
+        final long stamp = this.layoutLock.readLock();
+        try {
+            writeFully(payload, diskMemorySegment.getFileOffset());
+            diskMemorySegment.setSize(payload.limit());
+        } finally {
+            this.layoutLock.unlockRead(stamp);
+            this.numPendingOperations.decrementAndGet();
+        }
     }
 
     /**
@@ -142,32 +217,86 @@ public class DiskOperator implements AutoCloseable {
     public void load(DiskMemorySegment diskMemorySegment, MainMemorySegment mainMemorySegment) throws IOException {
         ensureResponsibility(diskMemorySegment);
 
-        // Copy the main memory segment to disk.
-        this.fileChannel.position(diskMemorySegment.getFileOffset());
-        final ByteBuffer payload = mainMemorySegment.asByteBuffer();
-        payload.clear();
-        payload.limit(diskMemorySegment.getSize());
-        int bytesToRead = diskMemorySegment.getSize();
-        while (bytesToRead > 0) {
-            final int readBytes = this.fileChannel.read(payload);
-            if (readBytes == -1) {
-                throw new EOFException(String.format("EOF after %d bytes, expected %d bytes, though.",
-                        readBytes, diskMemorySegment.getSize()));
+        // Copy the disk segment into the main memory segment.
+        final ByteBuffer payload = mainMemorySegment.leaseByteBuffer();
+        try {
+            payload.clear();
+            payload.limit(diskMemorySegment.getSize());
+            this.numPendingOperations.incrementAndGet();
+            final long stamp = this.layoutLock.readLock();
+            try {
+                readFully(payload, diskMemorySegment.getFileOffset());
+            } finally {
+                this.layoutLock.unlockRead(stamp);
+                this.numPendingOperations.decrementAndGet();
+            }
+            payload.flip();
+            if (payload.limit() != diskMemorySegment.getSize()) {
+                LOGGER.warn("Need to reset the buffer limit from {} to {}.",
+                        payload.limit(), diskMemorySegment.getSize());
+                payload.limit(diskMemorySegment.getSize());
             }
-            bytesToRead -= readBytes;
 
+            // Update the main memory segment.
+            mainMemorySegment.update(payload);
+        } finally {
+            mainMemorySegment.returnByteBuffer(payload);
         }
-        payload.flip();
-        if (payload.limit() != diskMemorySegment.getSize()) {
-            LOGGER.warn("Need to reset the buffer limit from {} to {}.", payload.limit(), diskMemorySegment.getSize());
-            payload.limit(diskMemorySegment.getSize());
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer to the file.
+     *
+     * @param buffer     the buffer to write
+     * @param fileOffset the file offset to write the first byte to
+     * @throws IOException if the writing fails
+     */
+    private void writeFully(ByteBuffer buffer, long fileOffset) throws IOException {
+        int writtenBytes = 0;
+        while (buffer.hasRemaining()) {
+            writtenBytes += this.fileChannel.write(buffer, fileOffset + writtenBytes);
         }
+    }
 
-        // Update the main memory segment.
-        mainMemorySegment.update(payload);
+    /**
+     * Reads the file into the remaining bytes of a buffer.
+     *
+     * @param buffer     the buffer to read into
+     * @param fileOffset the file offset to read the first byte from
+     * @throws IOException if the reading fails
+     */
+    private void readFully(ByteBuffer buffer, long fileOffset) throws IOException {
+        int readBytes = 0;
+        while (buffer.hasRemaining()) {
+            final int numBytes = this.fileChannel.read(buffer, fileOffset + readBytes);
+            if (numBytes == -1) {
+                throw new EOFException(String.format("EOF after %d bytes, expected %d bytes, though.",
+                        readBytes, readBytes + buffer.remaining()));
+            }
+            readBytes += numBytes;
+        }
+    }
+
+    /**
+     * Loads a {@link DiskMemorySegment} into a {@link MainMemorySegment} asynchronously. The
+     * {@link MainMemorySegment} must not be accessed until the returned future is completed.
+     *
+     * @param diskMemorySegment the {@link DiskMemorySegment} to read
+     * @param mainMemorySegment the {@link MainMemorySegment} to write to
+     * @return a future that is completed when the loading is done
+     */
+    public CompletableFuture<Void> loadAsync(DiskMemorySegment diskMemorySegment,
+                                             MainMemorySegment mainMemorySegment) {
+        ensureResponsibility(diskMemorySegment);
 
-        // Update the counter.
-        SEGMENT_LOADS.incrementAndGet();
+        // Copy the disk segment into the main memory segment and update the latter afterwards.
+        final ByteBuffer payload = mainMemorySegment.leaseByteBuffer();
+        payload.clear();
+        payload.limit(diskMemorySegment.getSize());
+        return new AsyncTransfer(payload, diskMemorySegment, false).start().thenRun(() -> {
+            payload.flip();
+            mainMemorySegment.update(payload);
+        }).whenComplete((ignore, exception) -> mainMemorySegment.returnByteBuffer(payload));
     }
 
     /**
@@ -182,8 +311,20 @@ public class DiskOperator implements AutoCloseable {
     }
 
 
+    /**
+     * @return the number of writes and loads that have been issued to this operator but not completed yet
+     */
+    public int getNumPendingOperations() {
+        return this.numPendingOperations.get();
+    }
+
     @Override
     public void close() throws Exception {
+        try {
+            this.asyncFileChannel.close();
+        } catch (IOException e) {
+            LOGGER.error("Could not close asynchronous file channel.", e);
+        }
         try {
             this.fileChannel.close();
         } catch (IOException e) {
@@ -198,13 +339,228 @@ public class DiskOperator implements AutoCloseable {
      */
     public void recycle(DiskMemorySegment diskMemorySegment) {
         ensureResponsibility(diskMemorySegment);
-        long remainder = diskMemorySegment.getFileOffset() % this.segmentSize;
-        if (remainder != 0L) {
-            final String msg = String.format("The offset %d is not a multiple of the segment sizeInInts %d.",
-                    diskMemorySegment.getFileOffset(), this.segmentSize);
-            throw new IllegalStateException(msg);
-        }
-        int position = (int) diskMemorySegment.getFileOffset() / this.segmentSize;
-        this.freePositionTracker.addFreePosition(position);
+        final boolean isShrinking;
+        final long stamp = this.layoutLock.readLock();
+        try {
+            long remainder = diskMemorySegment.getFileOffset() % this.blockSize;
+            if (remainder != 0L) {
+                final String msg = String.format("The offset %d is not a multiple of the block size %d.",
+                        diskMemorySegment.getFileOffset(), this.blockSize);
+                throw new IllegalStateException(msg);
+            }
+            int position = (int) (diskMemorySegment.getFileOffset() / this.blockSize);
+            synchronized (this) {
+                final int oldFrontier = this.freePositionTracker.getFrontier();
+                this.liveSegments.remove(position);
+                this.freePositionTracker.addFreePositions(position, requiredBlocks(diskMemorySegment.getCapacity()));
+                isShrinking = this.freePositionTracker.getFrontier() < oldFrontier;
+            }
+        } finally {
+            this.layoutLock.unlockRead(stamp);
+        }
+
+        // If the free blocks are at the end of the file, we try to give them back to the file system.
+        if (isShrinking) {
+            final long writeStamp = this.layoutLock.tryWriteLock();
+            if (writeStamp != 0L) {
+                try {
+                    truncate();
+                } finally {
+                    this.layoutLock.unlockWrite(writeStamp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the {@link DiskMemorySegment}s at the end of the file into free blocks towards the start of the file and
+     * truncates the file afterwards. Concurrent transfers are blocked while compacting.
+     *
+     * @param maxRelocations the maximum number of {@link DiskMemorySegment}s to move
+     * @return the number of moved {@link DiskMemorySegment}s
+     * @throws IOException if moving a segment fails
+     */
+    public int compact(int maxRelocations) throws IOException {
+        final long stamp = this.layoutLock.writeLock();
+        try {
+            int numRelocations = 0;
+            while (numRelocations < maxRelocations) {
+                // Find the last segment and free blocks before it.
+                final int oldPosition, newPosition, numBlocks;
+                final DiskMemorySegment diskMemorySegment;
+                synchronized (this) {
+                    if (this.liveSegments.isEmpty()) break;
+                    oldPosition = this.liveSegments.lastIntKey();
+                    diskMemorySegment = this.liveSegments.get(oldPosition);
+                    numBlocks = requiredBlocks(diskMemorySegment.getCapacity());
+                    newPosition = this.freePositionTracker.retrieveFreePositions(numBlocks);
+                    if (newPosition > oldPosition) {
+                        this.freePositionTracker.addFreePositions(newPosition, numBlocks);
+                        break;
+                    }
+                }
+
+                // Copy the segment to its new position.
+                final long newOffset = newPosition * (long) this.blockSize;
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(diskMemorySegment.getSize());
+                readFully(buffer, diskMemorySegment.getFileOffset());
+                buffer.flip();
+                writeFully(buffer, newOffset);
+                diskMemorySegment.relocate(newOffset);
+                synchronized (this) {
+                    this.liveSegments.remove(oldPosition);
+                    this.liveSegments.put(newPosition, diskMemorySegment);
+                    this.freePositionTracker.addFreePositions(oldPosition, numBlocks);
+                }
+                numRelocations++;
+            }
+
+            truncate();
+            return numRelocations;
+        } finally {
+            this.layoutLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Truncates the file behind the last occupied block. The calling thread must hold the write lock of the
+     * {@link #layoutLock}.
+     */
+    private void truncate() {
+        final long usedBytes = this.freePositionTracker.getFrontier() * (long) this.blockSize;
+        try {
+            if (this.fileChannel.size() > usedBytes) {
+                this.fileChannel.truncate(usedBytes);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not truncate the spill file.", e);
+        }
+    }
+
+    /**
+     * @return the current size of the file in bytes
+     * @throws IOException if the size cannot be determined
+     */
+    public long getFileSize() throws IOException {
+        return this.fileChannel.size();
+    }
+
+    /**
+     * Transfers a {@link ByteBuffer} from or to the {@link #asyncFileChannel}. Partial transfers are continued until
+     * the buffer has no more remaining bytes. Written {@link DiskMemorySegment}s are resized to the transferred bytes.
+     */
+    private class AsyncTransfer implements CompletionHandler<Integer, Void> {
+
+        /**
+         * The buffer to transfer; its remaining bytes are transferred. Buffers to write must start at position 0.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The {@link DiskMemorySegment} to transfer from or to.
+         */
+        private final DiskMemorySegment diskMemorySegment;
+
+        /**
+         * The file offset of the first byte to transfer. It is determined when the transfer is started.
+         */
+        private long fileOffset;
+
+        /**
+         * Whether to write the {@link #buffer} to the file or to read it from the file.
+         */
+        private final boolean isWrite;
+
+        /**
+         * Is completed when the transfer is done.
+         */
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        /**
+         * The number of bytes that have been transferred so far.
+         */
+        private int transferredBytes = 0;
+
+        /**
+         * Creates a new instance. It needs to be {@link #start() started} afterwards.
+         *
+         * @param buffer            the buffer to transfer
+         * @param diskMemorySegment the {@link DiskMemorySegment} to transfer from or to
+         * @param isWrite           whether to write the buffer to the file or to read it from the file
+         */
+        AsyncTransfer(ByteBuffer buffer, DiskMemorySegment diskMemorySegment, boolean isWrite) {
+            this.buffer = buffer;
+            this.diskMemorySegment = diskMemorySegment;
+            this.isWrite = isWrite;
+        }
+
+        /**
+         * Starts the transfer.
+         *
+         * @return a future that is completed when the transfer is done
+         */
+        CompletableFuture<Void> start() {
+            DiskOperator.this.numPendingOperations.incrementAndGet();
+            final long stamp = DiskOperator.this.layoutLock.readLock();
+            this.future.whenComplete((ignore, exception) -> {
+                DiskOperator.this.layoutLock.unlockRead(stamp);
+                DiskOperator.this.numPendingOperations.decrementAndGet();
+            });
+            this.fileOffset = this.diskMemorySegment.getFileOffset();
+            if (this.buffer.hasRemaining()) {
+                proceed();
+            } else {
+                complete();
+            }
+            return this.future;
+        }
+
+        /**
+         * Completes the {@link #future} successfully. A written {@link DiskMemorySegment} is resized beforehand, i.e.,
+         * while the {@link #layoutLock} is still held, so that compactions cannot relocate it with a stale size.
+         */
+        private void complete() {
+            if (this.isWrite) {
+                this.diskMemorySegment.setSize(this.transferredBytes);
+            }
+            this.future.complete(null);
+        }
+
+        /**
+         * Issues the transfer of the remaining bytes.
+         */
+        private void proceed() {
+            final long position = this.fileOffset + this.transferredBytes;
+            try {
+                if (this.isWrite) {
+                    DiskOperator.this.asyncFileChannel.write(this.buffer, position, null, this);
+                } else {
+                    DiskOperator.this.asyncFileChannel.read(this.buffer, position, null, this);
+                }
+            } catch (Exception e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void completed(Integer numBytes, Void attachment) {
+            if (numBytes == -1) {
+                this.future.completeExceptionally(new EOFException(String.format(
+                        "EOF after %d bytes, expected %d bytes, though.",
+                        this.transferredBytes, this.transferredBytes + this.buffer.remaining())));
+                return;
+            }
+            this.transferredBytes += numBytes;
+            if (this.buffer.hasRemaining()) {
+                proceed();
+            } else {
+                complete();
+            }
+        }
+
+        @Override
+        public void failed(Throwable exception, Void attachment) {
+            this.future.completeExceptionally(exception);
+        }
     }
 }
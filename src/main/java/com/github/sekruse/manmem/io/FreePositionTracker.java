@@ -1,25 +1,32 @@
 package com.github.sekruse.manmem.io;
 
-import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
-import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2IntSortedMap;
 
 /**
- * This class manages available positions in a file to write to.
+ * This class manages available positions in a file to write to. Positions can be retrieved in runs of consecutive
+ * positions, so that data spanning multiple positions can be placed contiguously. This class is thread-safe.
  */
 public class FreePositionTracker {
 
     /**
-     * This set stores free positions in a file (in terms of integers 0, 1, 2, ...). It has to contain always at
-     * least one value, which is the smallest available position in a file (this position might not yet exist because
-     * the file is to small).
+     * This map stores runs of free positions in a file (in terms of integers 0, 1, 2, ...) below the
+     * {@link #frontier}. It maps the first position of each run to its length. Adjacent runs are always coalesced and
+     * no run touches the {@link #frontier}.
      */
-    private final IntSortedSet freePositions = new IntRBTreeSet();
+    private final Int2IntSortedMap freeRuns = new Int2IntRBTreeMap();
+
+    /**
+     * The smallest position such that itself and all greater positions are free (these positions might not yet exist
+     * because the file is to small).
+     */
+    private int frontier = 0;
 
     /**
      * Creates a new instance. The first available position is {@code 0}.
      */
     public FreePositionTracker() {
-        addFreePosition(0);
     }
 
     /**
@@ -28,29 +35,94 @@ public class FreePositionTracker {
      * @param position the free position.
      */
     public void addFreePosition(int position) {
-        this.freePositions.add(position);
+        addFreePositions(position, 1);
     }
 
     /**
-     * Retrieves any free position (preferably a small one). After retrieval, this position will not be makred free
-     * anymore. However, it will be ensured that there is at least one more free position.
+     * Adds a run of consecutive free positions. If the run touches the {@link #getFrontier() frontier}, the frontier
+     * is lowered accordingly.
+     *
+     * @param position     the first free position of the run
+     * @param numPositions the number of free positions in the run
      */
-    public int retrieveFreePosition() {
-        if (this.freePositions.isEmpty()) {
-            throw new IllegalStateException("No free file positions available.");
+    synchronized public void addFreePositions(int position, int numPositions) {
+        if (numPositions < 1 || position < 0 || position + numPositions > this.frontier) {
+            throw new IllegalArgumentException(String.format("Cannot add free run [%d, %d).",
+                    position, position + numPositions));
+        }
+
+        // Coalesce with the preceding run.
+        int runStart = position, runLength = numPositions;
+        final Int2IntSortedMap precedingRuns = this.freeRuns.headMap(position);
+        if (!precedingRuns.isEmpty()) {
+            final int precedingStart = precedingRuns.lastIntKey();
+            final int precedingLength = this.freeRuns.get(precedingStart);
+            if (precedingStart + precedingLength == position) {
+                this.freeRuns.remove(precedingStart);
+                runStart = precedingStart;
+                runLength += precedingLength;
+            }
         }
 
-        // Get the smallest free value.
-        int retrievalValue = this.freePositions.firstInt();
-        this.freePositions.rem(retrievalValue);
+        // Coalesce with the succeeding run.
+        final int succeedingStart = position + numPositions;
+        if (this.freeRuns.containsKey(succeedingStart)) {
+            runLength += this.freeRuns.remove(succeedingStart);
+        }
+
+        if (runStart + runLength == this.frontier) {
+            this.frontier = runStart;
+        } else {
+            this.freeRuns.put(runStart, runLength);
+        }
+    }
+
+    /**
+     * Retrieves any free position (preferably a small one). After retrieval, this position will not be marked free
+     * anymore.
+     *
+     * @return the retrieved position
+     */
+    public int retrieveFreePosition() {
+        return retrieveFreePositions(1);
+    }
+
+    /**
+     * Retrieves a run of consecutive free positions (preferably small ones). After retrieval, these positions will
+     * not be marked free anymore.
+     *
+     * @param numPositions the number of positions in the run
+     * @return the first position of the retrieved run
+     */
+    synchronized public int retrieveFreePositions(int numPositions) {
+        if (numPositions < 1) {
+            throw new IllegalArgumentException("Illegal number of positions: " + numPositions);
+        }
 
-        // If we just retrieved the last value, it has to be the largest retrieved value. We therefore need to add
-        // the successor position as free.
-        if (this.freePositions.isEmpty()) {
-            addFreePosition(retrievalValue + 1);
+        // Find the first run that is large enough.
+        for (Int2IntMap.Entry freeRun : this.freeRuns.int2IntEntrySet()) {
+            final int runStart = freeRun.getIntKey();
+            final int runLength = freeRun.getIntValue();
+            if (runLength >= numPositions) {
+                this.freeRuns.remove(runStart);
+                if (runLength > numPositions) {
+                    this.freeRuns.put(runStart + numPositions, runLength - numPositions);
+                }
+                return runStart;
+            }
         }
 
-        return retrievalValue;
+        // Otherwise, append the run at the frontier.
+        final int runStart = this.frontier;
+        this.frontier += numPositions;
+        return runStart;
+    }
+
+    /**
+     * @return the smallest position such that itself and all greater positions are free
+     */
+    synchronized public int getFrontier() {
+        return this.frontier;
     }
 
 }
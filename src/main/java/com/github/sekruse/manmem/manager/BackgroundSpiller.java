@@ -0,0 +1,131 @@
+package com.github.sekruse.manmem.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * A background spiller writes dirty segments of a {@link GlobalMemoryManager} to disk ahead of time. It does so
+ * whenever the number of segments that can be obtained cheaply, i.e., without writing to disk, drops below a low
+ * watermark. Foreground requests can then preempt backed segments instead of spilling dirty segments themselves.
+ * <p>If writing to disk fails, the spiller backs off for {@link #MAX_IDLE_MILLIS} before it retries.</p>
+ */
+class BackgroundSpiller implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundSpiller.class);
+
+    /**
+     * The maximum time (in milliseconds) that the spiller sleeps before re-checking the watermark without being
+     * woken up.
+     */
+    private static final long MAX_IDLE_MILLIS = 100L;
+
+    /**
+     * The {@link GlobalMemoryManager} whose segments are spilled.
+     */
+    private final GlobalMemoryManager memoryManager;
+
+    /**
+     * The number of segments that should be obtainable without writing to disk.
+     */
+    private final int lowWatermark;
+
+    /**
+     * The thread that runs this spiller.
+     */
+    private final Thread thread;
+
+    /**
+     * Tells whether this spiller has been requested to stop.
+     */
+    private volatile boolean isStopped = false;
+
+    /**
+     * Creates a new instance. It needs to be {@link #start() started} afterwards.
+     *
+     * @param memoryManager the {@link GlobalMemoryManager} whose segments should be spilled
+     * @param lowWatermark  the number of segments that should be obtainable without writing to disk
+     */
+    BackgroundSpiller(GlobalMemoryManager memoryManager, int lowWatermark) {
+        this.memoryManager = memoryManager;
+        this.lowWatermark = lowWatermark;
+        this.thread = new Thread(this, "manmem-spiller");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the spilling thread.
+     */
+    void start() {
+        this.thread.start();
+    }
+
+    /**
+     * Stops the spilling thread and waits for it to terminate.
+     */
+    void stop() {
+        this.isStopped = true;
+        wakeUp();
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Notifies this spiller that segments have been obtained, so that it should re-check the watermark.
+     */
+    synchronized void wakeUp() {
+        this.notify();
+    }
+
+    @Override
+    public void run() {
+        // Tells whether the last attempt to write to disk has failed, so that we log failures once per streak.
+        boolean isFailing = false;
+        while (!this.isStopped) {
+            boolean isBackingOff = false;
+            try {
+                while (!this.isStopped
+                        && this.memoryManager.countCheaplyObtainableSegments() < this.lowWatermark
+                        && this.memoryManager.backDirtySegment()) {
+                    // Keep on backing segments until we reach the watermark or run out of dirty segments.
+                    isFailing = false;
+                }
+            } catch (IOException e) {
+                if (!isFailing) {
+                    LOGGER.warn("Could not back a segment in the background. Retrying every {} ms.",
+                            MAX_IDLE_MILLIS, e);
+                    isFailing = true;
+                }
+                isBackingOff = true;
+            } catch (Exception e) {
+                LOGGER.error("Background spilling failed.", e);
+            }
+
+            synchronized (this) {
+                // When backing off, wake-ups must not cut the idle time short.
+                final long deadline = System.currentTimeMillis() + MAX_IDLE_MILLIS;
+                long remainingMillis = MAX_IDLE_MILLIS;
+                do {
+                    if (this.isStopped) return;
+                    try {
+                        this.wait(remainingMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    remainingMillis = deadline - System.currentTimeMillis();
+                } while (isBackingOff && remainingMillis > 0L);
+            }
+        }
+    }
+
+    /**
+     * @return the number of segments that should be obtainable without writing to disk
+     */
+    int getLowWatermark() {
+        return this.lowWatermark;
+    }
+}
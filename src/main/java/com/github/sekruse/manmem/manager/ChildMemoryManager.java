@@ -0,0 +1,206 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.memory.SegmentPriority;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A child memory manager serves memory out of a {@link GlobalMemoryManager} within a quota, i.e., it is guaranteed a
+ * minimum main memory capacity and must not exceed a maximum main memory capacity. If it would exceed its maximum, it
+ * preempts its own segments.
+ *
+ * @see GlobalMemoryManager#createChildMemoryManager(long, long)
+ */
+public class ChildMemoryManager implements MemoryManager {
+
+    /**
+     * The {@link GlobalMemoryManager} that this manager is carved out of.
+     */
+    private final GlobalMemoryManager parent;
+
+    /**
+     * The share of the {@link #parent} that is assigned to this manager.
+     */
+    private final GlobalMemoryManager.Tenant tenant;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param parent the {@link GlobalMemoryManager} that this manager is carved out of
+     * @param tenant the share of the {@code parent} that is assigned to this manager
+     */
+    ChildMemoryManager(GlobalMemoryManager parent, GlobalMemoryManager.Tenant tenant) {
+        this.parent = parent;
+        this.tenant = tenant;
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory() throws CapacityExceededException {
+        return requestDefaultMemory(SegmentPriority.NORMAL);
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory(SegmentPriority priority) throws CapacityExceededException {
+        ensureNotClosed();
+        return this.parent.requestMemory(this.tenant, this.parent.getDefaultSegmentSize(), priority);
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory(long timeout, TimeUnit unit) throws CapacityExceededException {
+        ensureNotClosed();
+        return this.parent.requestMemory(this.tenant, this.parent.getDefaultSegmentSize(), SegmentPriority.NORMAL,
+                unit.toNanos(timeout));
+    }
+
+    @Override
+    public List<VirtualMemorySegment> requestDefaultMemory(int numSegments) throws CapacityExceededException {
+        ensureNotClosed();
+        return this.parent.requestMemory(this.tenant, this.parent.getDefaultSegmentSize(), SegmentPriority.NORMAL,
+                numSegments);
+    }
+
+    /**
+     * Reserves main memory for a number of default segments. The reserved capacity is taken out of the quota of
+     * this manager until the {@link Reservation} is closed.
+     *
+     * @param numSegments the number of default segments to reserve
+     * @return a {@link Reservation} that serves the reserved segments
+     * @throws CapacityExceededException if the segments cannot be reserved, e.g., because this manager would fall
+     *                                   below its guaranteed capacity
+     */
+    @Override
+    public Reservation reserve(int numSegments) throws CapacityExceededException {
+        ensureNotClosed();
+        final long reservedCapacity = (long) numSegments * getDefaultSegmentSize();
+        synchronized (this) {
+            final long maxCapacity = this.tenant.getMaxCapacity();
+            if (maxCapacity - reservedCapacity < this.tenant.getMinCapacity()) {
+                throw new CapacityExceededException(String.format(
+                        "Cannot reserve %d bytes without falling below the guaranteed %d bytes.",
+                        reservedCapacity, this.tenant.getMinCapacity()));
+            }
+            try {
+                resize(maxCapacity - reservedCapacity);
+            } catch (CapacityExceededException e) {
+                this.tenant.setMaxCapacity(maxCapacity);
+                throw e;
+            }
+        }
+        final Runnable returnQuota = () -> {
+            synchronized (this) {
+                this.tenant.setMaxCapacity(this.tenant.getMaxCapacity() + reservedCapacity);
+            }
+        };
+        try {
+            return this.parent.reserve(numSegments, returnQuota);
+        } catch (RuntimeException e) {
+            returnQuota.run();
+            throw e;
+        }
+    }
+
+    @Override
+    public VirtualMemorySegment requestMemory(int size) throws CapacityExceededException {
+        return requestMemory(size, SegmentPriority.NORMAL);
+    }
+
+    @Override
+    public VirtualMemorySegment requestMemory(int size, SegmentPriority priority) throws CapacityExceededException {
+        ensureNotClosed();
+        final int segmentSize = MemoryManagers.toSizeClass(size, this.parent.getDefaultSegmentSize());
+        return this.parent.requestMemory(this.tenant, segmentSize, priority);
+    }
+
+    /**
+     * Registers a {@link MemoryPressureListener} that is notified when this memory manager is about to preempt its
+     * own segments to stay within its quota, when its quota is reduced, and when the parent runs short of main
+     * memory.
+     *
+     * @param listener the {@link MemoryPressureListener} to register
+     */
+    @Override
+    public void addMemoryPressureListener(MemoryPressureListener listener) {
+        this.parent.addMemoryPressureListener(this.tenant, listener);
+    }
+
+    @Override
+    public void removeMemoryPressureListener(MemoryPressureListener listener) {
+        this.parent.removeMemoryPressureListener(this.tenant, listener);
+    }
+
+    /**
+     * Closes this memory manager. Its guaranteed capacity is given back to the parent. {@link VirtualMemorySegment}s
+     * that have been requested from this manager remain valid.
+     */
+    @Override
+    public void close() {
+        this.parent.closeTenant(this.tenant);
+    }
+
+    @Override
+    public int getDefaultSegmentSize() {
+        return this.parent.getDefaultSegmentSize();
+    }
+
+    @Override
+    public long getMaximumCapacity() {
+        return this.tenant.getMaxCapacity();
+    }
+
+    /**
+     * @return the main memory capacity (in bytes) that is guaranteed to this {@link MemoryManager}
+     */
+    public long getMinimumCapacity() {
+        return this.tenant.getMinCapacity();
+    }
+
+    @Override
+    public long getAllocatedCapacity() {
+        return this.tenant.getResidentCapacity();
+    }
+
+    /**
+     * @return the main memory capacity (in bytes) that this {@link MemoryManager} can still obtain within its quota
+     */
+    @Override
+    public long getFreeCapacity() {
+        return Math.max(0L, this.tenant.getMaxCapacity() - this.tenant.getResidentCapacity());
+    }
+
+    @Override
+    synchronized public void resize(long capacity) throws CapacityExceededException {
+        if (capacity < this.tenant.getMinCapacity()) {
+            throw new IllegalArgumentException(String.format("Capacity must not be less than the guaranteed %d bytes.",
+                    this.tenant.getMinCapacity()));
+        }
+        final long shortage = this.tenant.getResidentCapacity() - capacity;
+        this.tenant.setMaxCapacity(capacity);
+        if (shortage > 0) {
+            this.parent.relieveMemoryPressure(this.tenant, shortage);
+        }
+
+        try {
+            this.parent.shrinkToQuota(this.tenant);
+        } catch (CapacityExceededException e) {
+            this.tenant.setMaxCapacity(this.tenant.getResidentCapacity());
+            throw e;
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if this memory manager has been closed
+     */
+    private void ensureNotClosed() {
+        if (this.tenant.isClosed()) {
+            throw new IllegalStateException("Memory manager is already closed.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ChildMemoryManager[%d-%d MB of %s]",
+                this.tenant.getMinCapacity() >>> 20, this.tenant.getMaxCapacity() >>> 20, this.parent);
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+
+import java.util.List;
+
+/**
+ * A bounded stack of free {@link MainMemorySegment}s of the default size that is used by a single thread, so that
+ * the thread can release and request segments without touching the shared free queues. The magazine is exchanged
+ * with the shared free queues in batches only. Other threads may {@link #drainTo(List) drain} it when the
+ * {@link GlobalMemoryManager} runs short of memory.
+ */
+class FreeSegmentMagazine {
+
+    /**
+     * The default maximum number of segments in a magazine.
+     */
+    static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Holds the segments in its first {@link #size} fields.
+     */
+    private final MainMemorySegment[] segments;
+
+    /**
+     * The number of segments in this magazine.
+     */
+    private int size = 0;
+
+    /**
+     * The thread that uses this magazine.
+     */
+    private final Thread owner;
+
+    /**
+     * Creates a new, empty instance for the calling thread.
+     *
+     * @param capacity the maximum number of segments in the magazine
+     */
+    FreeSegmentMagazine(int capacity) {
+        this.segments = new MainMemorySegment[capacity];
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * Puts a free {@link MainMemorySegment} into this magazine.
+     *
+     * @param segment the {@link MainMemorySegment} to put
+     * @return whether the segment has been put, i.e., the magazine was not full
+     */
+    synchronized boolean push(MainMemorySegment segment) {
+        if (this.size == this.segments.length) {
+            return false;
+        }
+        this.segments[this.size++] = segment;
+        return true;
+    }
+
+    /**
+     * Takes the most recently put {@link MainMemorySegment} from this magazine.
+     *
+     * @return the taken {@link MainMemorySegment} or {@code null} if the magazine is empty
+     */
+    synchronized MainMemorySegment pop() {
+        if (this.size == 0) {
+            return null;
+        }
+        final MainMemorySegment segment = this.segments[--this.size];
+        this.segments[this.size] = null;
+        return segment;
+    }
+
+    /**
+     * Takes the least recently put {@link MainMemorySegment}s from this magazine.
+     *
+     * @param maxSegments the maximum number of segments to take
+     * @param collector   receives the taken {@link MainMemorySegment}s
+     * @return the number of taken segments
+     */
+    synchronized int drainTo(List<MainMemorySegment> collector, int maxSegments) {
+        final int numSegments = Math.min(maxSegments, this.size);
+        for (int i = 0; i < numSegments; i++) {
+            collector.add(this.segments[i]);
+        }
+        System.arraycopy(this.segments, numSegments, this.segments, 0, this.size - numSegments);
+        for (int i = this.size - numSegments; i < this.size; i++) {
+            this.segments[i] = null;
+        }
+        this.size -= numSegments;
+        return numSegments;
+    }
+
+    /**
+     * Takes all {@link MainMemorySegment}s from this magazine.
+     *
+     * @param collector receives the taken {@link MainMemorySegment}s
+     * @return the number of taken segments
+     */
+    int drainTo(List<MainMemorySegment> collector) {
+        return drainTo(collector, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the number of segments in this magazine
+     */
+    synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the maximum number of segments in this magazine
+     */
+    int capacity() {
+        return this.segments.length;
+    }
+
+    /**
+     * @return whether the thread that uses this magazine is still alive
+     */
+    boolean isOwnerAlive() {
+        return this.owner.isAlive();
+    }
+}
@@ -1,25 +1,49 @@
 package com.github.sekruse.manmem.manager;
 
 import com.github.sekruse.manmem.io.DiskOperator;
+import com.github.sekruse.manmem.manager.eviction.EvictionPolicy;
+import com.github.sekruse.manmem.manager.eviction.LruEvictionPolicy;
 import com.github.sekruse.manmem.manager.capabilities.MemoryCapabilities;
 import com.github.sekruse.manmem.memory.DiskMemorySegment;
 import com.github.sekruse.manmem.memory.MainMemorySegment;
+import com.github.sekruse.manmem.memory.SegmentPriority;
 import com.github.sekruse.manmem.memory.SegmentState;
 import com.github.sekruse.manmem.memory.VirtualMemorySegment;
 import com.github.sekruse.manmem.util.QueueableQueue;
+import com.github.sekruse.manmem.util.StripedQueueableQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A global memory manager is a first class memory manager, i.e., it does not depend on other memory managers.
+ * It can be split up into {@link ChildMemoryManager}s that are granted quotas of its capacity.
  */
 public class GlobalMemoryManager implements MemoryManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GlobalMemoryManager.class);
 
+    /**
+     * The largest block size (in bytes) of the spill file. Segments that are smaller than the default segment size
+     * thereby do not need to occupy an entire default segment on disk.
+     */
+    private static final int MAX_DISK_BLOCK_SIZE = 4096;
+
     /**
      * The capacity of this memory manager in bytes. Note that this pertains only to the payload data that can be
      * assigned to clients. The memory manager will also require some main memory for its management data structures.
@@ -32,9 +56,9 @@ public class GlobalMemoryManager implements MemoryManager {
     private long allocatedCapacity = 0L;
 
     /**
-     * The used memory for unused buffers in bytes. Must not exceed {@link #capacity}.
+     * The used memory for unused buffers in the {@link #freeQueues} in bytes. Must not exceed {@link #capacity}.
      */
-    private long freeCapacity = 0L;
+    private final AtomicLong freeCapacity = new AtomicLong(0L);
 
     /**
      * The capacity of a default piece of memory.
@@ -42,110 +66,105 @@ public class GlobalMemoryManager implements MemoryManager {
     private final int defaultMemorySize;
 
     /**
-     * A queue of {@link MainMemorySegment}s that could be spilled to disk.
+     * Whether the payloads of {@link MainMemorySegment}s are allocated as direct (off-heap) memory.
      */
-    private final QueueableQueue<MainMemorySegment> spillQueue = new QueueableQueue<>();
+    private final boolean isUsingDirectMemory;
 
     /**
-     * A queue of {@link MainMemorySegment}s that are backed.
+     * Queues of {@link MainMemorySegment}s that are free and can be used, indexed by their capacity. They are striped,
+     * so that concurrent requests do not contend for a single lock.
      */
-    private final QueueableQueue<MainMemorySegment> backedQueue = new QueueableQueue<>();
+    private final Map<Integer, StripedQueueableQueue<MainMemorySegment>> freeQueues = new ConcurrentHashMap<>();
 
     /**
-     * A queue of {@link MainMemorySegment}s that are free and can be used.
+     * Caches released {@link MainMemorySegment}s of the {@link #defaultMemorySize} per thread, so that threads that
+     * release and request segments in a tight loop do not go to the {@link #freeQueues} every time.
      */
-    private final QueueableQueue<MainMemorySegment> freeQueue = new QueueableQueue<>();
+    private final ThreadLocal<FreeSegmentMagazine> freeSegmentMagazine =
+            ThreadLocal.withInitial(this::createFreeSegmentMagazine);
 
     /**
-     * A {@link DiskOperator} for using disk memory.
+     * All {@link FreeSegmentMagazine}s of the {@link #freeSegmentMagazine}, so that their segments can be reclaimed.
      */
-    private final DiskOperator diskOperator;
+    private final Set<FreeSegmentMagazine> freeSegmentMagazines = ConcurrentHashMap.newKeySet();
 
     /**
-     * Capabilities that are granted to managed {@link VirtualMemorySegment} objects.
+     * The {@link DiskOperator}s for using disk memory, one per spill directory.
      */
-    private final MemoryCapabilities memoryCapabilities = new MemoryCapabilities() {
-        @Override
-        public void load(VirtualMemorySegment virtualMemorySegment) throws CapacityExceededException {
-            // Do some sanity checks.
-            if (virtualMemorySegment == null) {
-                throw new IllegalStateException();
-            }
-            if (virtualMemorySegment.getMainMemorySegment() != null) {
-                LOGGER.warn("Requested to load a main memory segment that is already there.");
-                return;
-            }
-            final DiskMemorySegment diskMemorySegment = virtualMemorySegment.getDiskMemorySegment();
-            if (diskMemorySegment == null) {
-                throw new IllegalStateException();
-            }
+    private final DiskOperator[] diskOperators;
 
-            // Obtain a free MainMemorySegment.
-            final MainMemorySegment freeSegment = obtainFreeMainMemorySegment();
-            if (freeSegment == null) {
-                throw new CapacityExceededException("Could not obtain free segment to load spilled memory.");
-            }
+    /**
+     * Counts how often a {@link DiskOperator} has been selected to break ties among the {@link #diskOperators}.
+     */
+    private final AtomicLong diskOperatorSelections = new AtomicLong();
 
-            // Load the DiskMemorySegment into the MainMemorySegment.
-            final DiskOperator diskOperator = diskMemorySegment.getDiskOperator();
-            try {
-                diskOperator.load(diskMemorySegment, freeSegment);
-            } catch (IOException e) {
-                throw new ManagedMemoryException("Could not load a memory segment from disk.", e);
-            }
+    /**
+     * Creates the {@link EvictionPolicy}s that decide which backed and dirty segments are preempted.
+     */
+    private final EvictionPolicy.Factory evictionPolicyFactory;
 
-            // Update the MainMemorySegment state and integrate it into the Memory.
-            freeSegment.assignTo(virtualMemorySegment);
-            freeSegment.setState(SegmentState.BACKED);
-        }
+    /**
+     * The {@link Tenant} that serves requests to this memory manager itself.
+     */
+    private final Tenant rootTenant;
 
-        @Override
-        public void returnMemory(MainMemorySegment mainMemorySegment, DiskMemorySegment diskMemorySegment) {
-            if (mainMemorySegment != null) {
-                mainMemorySegment.reset();
-                enqueue(mainMemorySegment);
-            }
+    /**
+     * All {@link Tenant}s that currently hold memory of this manager, including the {@link #rootTenant}.
+     */
+    private final List<Tenant> tenants = new CopyOnWriteArrayList<>();
 
-            if (diskMemorySegment != null) {
-                diskMemorySegment.free();
-            }
-        }
+    /**
+     * The sum of the minimum capacities (in bytes) that are guaranteed to {@link ChildMemoryManager}s.
+     */
+    private long guaranteedCapacity = 0L;
 
-        @Override
-        public void enqueue(MainMemorySegment mainMemorySegment) {
-            mainMemorySegment.shouldBeUnlinked();
+    /**
+     * Backs dirty segments ahead of time or {@code null} if background spilling is disabled.
+     */
+    private volatile BackgroundSpiller backgroundSpiller;
 
-            // Determine an appropriate queue.
-            switch (mainMemorySegment.getState()) {
-                case FREE:
-                    GlobalMemoryManager.this.freeQueue.add(mainMemorySegment);
-                    GlobalMemoryManager.this.freeCapacity += mainMemorySegment.capacity();
-                    break;
-                case BACKED:
-                    GlobalMemoryManager.this.backedQueue.add(mainMemorySegment);
-                    break;
-                case DIRTY:
-                    GlobalMemoryManager.this.spillQueue.add(mainMemorySegment);
-                    break;
-                default:
-                    throw new IllegalStateException("Unknown/unhandled segment state: " + mainMemorySegment.getState());
-            }
-        }
+    /**
+     * Collects statistics on the operation of this manager.
+     */
+    private final MemoryManagerStats stats = new MemoryManagerStats(this);
 
-        @Override
-        public void back(VirtualMemorySegment virtualMemorySegment) {
-            final MainMemorySegment mms = virtualMemorySegment.getMainMemorySegment();
-            if (mms == null || mms.getState() != SegmentState.DIRTY) {
-                return;
-            }
+    /**
+     * Requests that wait for a {@link MainMemorySegment} wait on this monitor.
+     */
+    private final Object segmentAvailabilityMonitor = new Object();
 
-            try {
-                spill(mms);
-            } catch (IOException e) {
-                throw new ManagedMemoryException(e);
-            }
-        }
-    };
+    /**
+     * Is incremented whenever a {@link MainMemorySegment} might have become obtainable while requests are waiting.
+     * Guarded by the {@link #segmentAvailabilityMonitor} for writes.
+     */
+    private volatile long segmentAvailabilityEpoch = 0L;
+
+    /**
+     * The number of requests that wait for a {@link MainMemorySegment} to become obtainable.
+     */
+    private final AtomicInteger numWaitingRequests = new AtomicInteger(0);
+
+    /**
+     * The time (in nanoseconds) that loading a spilled segment may wait for a {@link MainMemorySegment}.
+     */
+    private volatile long loadTimeoutNanos = 0L;
+
+    /**
+     * The number of {@link MemoryPressureListener}s registered with any {@link Tenant}.
+     */
+    private final AtomicInteger numMemoryPressureListeners = new AtomicInteger(0);
+
+    /**
+     * Tells whether {@link MemoryPressureListener}s are currently being notified. Guards against concurrent and
+     * recursive notifications.
+     */
+    private final AtomicBoolean isRelievingMemoryPressure = new AtomicBoolean(false);
+
+    /**
+     * {@link MemoryPressureListener}s are notified as soon as fewer segments than this can be obtained without
+     * writing to disk.
+     */
+    private volatile int memoryPressureThreshold = 0;
 
     /**
      * Creates a new memory manager.
@@ -167,266 +186,1427 @@ public class GlobalMemoryManager implements MemoryManager {
      * @throws IOException if the spill files cannot be created/accessed
      */
     public GlobalMemoryManager(long capacity, int defaultMemorySize, File spillDirectory) throws ManagedMemoryException {
-        try {
-            this.capacity = capacity;
-            this.defaultMemorySize = defaultMemorySize;
-            File spillFile = null;
-            spillFile = spillDirectory == null ?
-                    File.createTempFile("manmem", "segments") :
-                    File.createTempFile("manmem", "segments", spillDirectory);
-            this.diskOperator = new DiskOperator(spillFile, this.defaultMemorySize);
-        } catch (IOException e) {
-            throw new ManagedMemoryException("Could not create the memory manager.", e);
-        }
+        this(capacity, defaultMemorySize, spillDirectory, new LruEvictionPolicy.Factory());
     }
 
-
-    @Override
-    public VirtualMemorySegment requestDefaultMemory() throws CapacityExceededException {
-        // Get a free memory segment.
-        MainMemorySegment mainMemorySegment = obtainFreeMainMemorySegment();
-
-        // Wrap it and set it up.
-        mainMemorySegment.setState(SegmentState.DIRTY);
-        this.memoryCapabilities.enqueue(mainMemorySegment);
-        VirtualMemorySegment virtualMemorySegment = new VirtualMemorySegment(this.memoryCapabilities);
-        mainMemorySegment.assignTo(virtualMemorySegment);
-        return virtualMemorySegment;
+    /**
+     * Creates a new memory manager.
+     *
+     * @param capacity              the amount of memory that the new memory manager can issue
+     * @param defaultMemorySize     the size of default memory segments
+     * @param spillDirectory        a directory for spilling memory segments or {@code null} for the temp folder
+     * @param evictionPolicyFactory creates the {@link EvictionPolicy}s that select segments for preemption
+     * @throws IOException if the spill files cannot be created/accessed
+     */
+    public GlobalMemoryManager(long capacity, int defaultMemorySize, File spillDirectory,
+                               EvictionPolicy.Factory evictionPolicyFactory) throws ManagedMemoryException {
+        this(capacity, defaultMemorySize, spillDirectory, evictionPolicyFactory, false);
     }
 
     /**
-     * This method tries to obtain a {@link MainMemorySegment} anyhow without violating the {@link #capacity}.
+     * Creates a new memory manager.
      *
-     * @return the obtained free {@link MainMemorySegment}
+     * @param capacity              the amount of memory that the new memory manager can issue
+     * @param defaultMemorySize     the size of default memory segments
+     * @param spillDirectory        a directory for spilling memory segments or {@code null} for the temp folder
+     * @param evictionPolicyFactory creates the {@link EvictionPolicy}s that select segments for preemption
+     * @param isUsingDirectMemory   whether segment payloads should be allocated off-heap; note that the JVM limits the
+     *                              amount of direct memory (see {@code -XX:MaxDirectMemorySize}) and that direct
+     *                              payloads do not expose an array via {@link java.nio.ByteBuffer#array()}
+     * @throws IOException if the spill files cannot be created/accessed
      */
-    private MainMemorySegment obtainFreeMainMemorySegment() throws CapacityExceededException {
-        // 1. look for a free segment
-        final MainMemorySegment recycledSegment = drawFreeSegment();
-        if (recycledSegment != null) {
-            return recycledSegment;
-        }
-
-        // 2. if possible, create a new segment
-        final MainMemorySegment newMainMemorySegment = tryToCreateNewDefaultMainMemorySegment();
-        if (newMainMemorySegment != null) {
-            return newMainMemorySegment;
-        }
+    public GlobalMemoryManager(long capacity, int defaultMemorySize, File spillDirectory,
+                               EvictionPolicy.Factory evictionPolicyFactory, boolean isUsingDirectMemory)
+            throws ManagedMemoryException {
+        this(capacity, defaultMemorySize, Collections.singletonList(spillDirectory), evictionPolicyFactory,
+                isUsingDirectMemory);
+    }
 
-        // 3. try to steal a backed memory segment
-        final MainMemorySegment backedMemorySegment = drawBackedSegment();
-        if (backedMemorySegment != null) {
-            return backedMemorySegment;
+    /**
+     * Creates a new memory manager that spills to multiple directories. Each directory gets its own spill file and
+     * spilled segments are balanced across them, so that directories on distinct devices add up their bandwidths.
+     *
+     * @param capacity              the amount of memory that the new memory manager can issue
+     * @param defaultMemorySize     the size of default memory segments
+     * @param spillDirectories      directories for spilling memory segments; {@code null} entries denote the temp
+     *                              folder
+     * @param evictionPolicyFactory creates the {@link EvictionPolicy}s that select segments for preemption
+     * @param isUsingDirectMemory   whether segment payloads should be allocated off-heap
+     * @throws IOException if the spill files cannot be created/accessed
+     * @see #GlobalMemoryManager(long, int, File, EvictionPolicy.Factory, boolean)
+     */
+    public GlobalMemoryManager(long capacity, int defaultMemorySize, List<File> spillDirectories,
+                               EvictionPolicy.Factory evictionPolicyFactory, boolean isUsingDirectMemory)
+            throws ManagedMemoryException {
+        if (spillDirectories.isEmpty()) {
+            throw new IllegalArgumentException("No spill directory given.");
         }
-
-        // 4. try to back a memory segment, then steal it
+        this.evictionPolicyFactory = evictionPolicyFactory;
+        this.isUsingDirectMemory = isUsingDirectMemory;
+        this.rootTenant = new Tenant(0L, Long.MAX_VALUE, false);
+        this.capacity = capacity;
+        this.defaultMemorySize = defaultMemorySize;
+        this.diskOperators = new DiskOperator[spillDirectories.size()];
         try {
-            final MainMemorySegment stolenSegment = drawDirtySegment();
-            if (stolenSegment != null) {
-                return stolenSegment;
+            for (int i = 0; i < this.diskOperators.length; i++) {
+                final File spillDirectory = spillDirectories.get(i);
+                File spillFile = spillDirectory == null ?
+                        File.createTempFile("manmem", "segments") :
+                        File.createTempFile("manmem", "segments", spillDirectory);
+                this.diskOperators[i] = new DiskOperator(spillFile,
+                        Math.min(this.defaultMemorySize, MAX_DISK_BLOCK_SIZE));
             }
         } catch (IOException e) {
-            throw new ManagedMemoryException(e);
+            closeDiskOperators();
+            throw new ManagedMemoryException("Could not create the memory manager.", e);
         }
+        this.tenants.add(this.rootTenant);
+    }
 
-        throw new CapacityExceededException("Could not obtain the requested memory segment.");
+    /**
+     * Carves a {@link ChildMemoryManager} out of this memory manager. The child is guaranteed to keep at least
+     * {@code minCapacity} bytes of main memory and must never hold more than {@code maxCapacity} bytes of it. When
+     * main memory is scarce, segments of children that exceed their minimum capacity are preempted first.
+     *
+     * @param minCapacity the main memory capacity (in bytes) that is guaranteed to the child
+     * @param maxCapacity the main memory capacity (in bytes) that the child must not exceed
+     * @return the new {@link ChildMemoryManager}
+     * @throws CapacityExceededException if the guaranteed capacities would exceed the capacity of this manager
+     */
+    public ChildMemoryManager createChildMemoryManager(long minCapacity, long maxCapacity)
+            throws CapacityExceededException {
+        return new ChildMemoryManager(this, createTenant(minCapacity, maxCapacity, false));
     }
 
     /**
-     * Draw a {@link MainMemorySegment} from the {@link #freeQueue}.
+     * Creates and registers a new {@link Tenant}.
      *
-     * @return the drawn {@link MainMemorySegment} or {@code null} if none was available
+     * @param minCapacity          the main memory capacity (in bytes) that is guaranteed to the tenant
+     * @param maxCapacity          the main memory capacity (in bytes) that the tenant must not exceed
+     * @param isReservingSegments  whether the tenant keeps its free segments for itself
+     * @return the new {@link Tenant}
+     * @throws CapacityExceededException if the guaranteed capacities would exceed the capacity of this manager
      */
-    private MainMemorySegment drawFreeSegment() {
-        final MainMemorySegment freeSegment = this.freeQueue.poll();
-        if (freeSegment != null) {
-            this.freeCapacity -= freeSegment.capacity();
-            freeSegment.shouldBeInState(SegmentState.FREE);
-            if (freeSegment.getOwner() != null) {
-                throw new IllegalStateException();
-            }
+    synchronized private Tenant createTenant(long minCapacity, long maxCapacity, boolean isReservingSegments)
+            throws CapacityExceededException {
+        if (minCapacity < 0 || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException(String.format("Illegal quota: [%d, %d].", minCapacity, maxCapacity));
         }
-        return freeSegment;
+        if (this.guaranteedCapacity + minCapacity > this.capacity) {
+            this.stats.recordCapacityExceeded();
+            throw new CapacityExceededException(String.format("Cannot guarantee %d bytes: %d of %d bytes are already guaranteed.",
+                    minCapacity, this.guaranteedCapacity, this.capacity));
+        }
+        this.guaranteedCapacity += minCapacity;
+
+        final Tenant tenant = new Tenant(minCapacity, maxCapacity, isReservingSegments);
+        this.tenants.add(tenant);
+        return tenant;
+    }
+
+    @Override
+    public Reservation reserve(int numSegments) throws CapacityExceededException {
+        return reserve(numSegments, null);
     }
 
     /**
-     * Draws a {@link MainMemorySegment} from the {@link #backedQueue} and resets it.
+     * Reserves main memory for a given number of default segments.
      *
-     * @return the drawn {@link MainMemorySegment} or {@code null} if none was available
+     * @param numSegments the number of default segments to reserve
+     * @param closeHook   is run when the {@link Reservation} is closed or {@code null}
+     * @return a {@link Reservation} that serves the reserved segments
+     * @throws CapacityExceededException if the segments cannot be reserved
+     * @see #reserve(int)
      */
-    private MainMemorySegment drawBackedSegment() {
-        final MainMemorySegment backedMemorySegment = this.backedQueue.poll(); // NB: Polling locks the owner.
-        if (backedMemorySegment != null) {
-            backedMemorySegment.shouldBeInState(SegmentState.BACKED);
-            if (backedMemorySegment.getOwner().yieldMainMemory() != backedMemorySegment) {
-                throw new IllegalStateException("The segment/owner relationship seems to be broken.");
+    Reservation reserve(int numSegments, Runnable closeHook) throws CapacityExceededException {
+        if (numSegments < 1) {
+            throw new IllegalArgumentException("Illegal number of segments: " + numSegments);
+        }
+        final long reservedCapacity = (long) numSegments * this.defaultMemorySize;
+        final Tenant tenant = createTenant(reservedCapacity, reservedCapacity, true);
+        final List<MainMemorySegment> reservedSegments = new ArrayList<>(numSegments);
+        try {
+            for (int i = 0; i < numSegments; i++) {
+                reservedSegments.add(obtainFreeMainMemorySegment(tenant, this.defaultMemorySize, 0L));
             }
-            backedMemorySegment.getOwner().getMainMemorySegmentLock().unlock();
-            backedMemorySegment.reset();
+        } catch (RuntimeException e) {
+            closeTenant(tenant);
+            for (MainMemorySegment reservedSegment : reservedSegments) {
+                tenant.returnMemory(reservedSegment, null);
+            }
+            throw e;
+        }
+        for (MainMemorySegment reservedSegment : reservedSegments) {
+            tenant.returnMemory(reservedSegment, null);
         }
-        return backedMemorySegment;
+        return new Reservation(this, tenant, numSegments, closeHook);
+    }
+
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory() throws CapacityExceededException {
+        return requestDefaultMemory(SegmentPriority.NORMAL);
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory(SegmentPriority priority) throws CapacityExceededException {
+        return requestMemory(this.rootTenant, this.defaultMemorySize, priority);
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory(long timeout, TimeUnit unit) throws CapacityExceededException {
+        return requestMemory(this.rootTenant, this.defaultMemorySize, SegmentPriority.NORMAL, unit.toNanos(timeout));
+    }
+
+    @Override
+    public List<VirtualMemorySegment> requestDefaultMemory(int numSegments) throws CapacityExceededException {
+        return requestMemory(this.rootTenant, this.defaultMemorySize, SegmentPriority.NORMAL, numSegments);
+    }
+
+    @Override
+    public VirtualMemorySegment requestMemory(int size) throws CapacityExceededException {
+        return requestMemory(size, SegmentPriority.NORMAL);
+    }
+
+    @Override
+    public VirtualMemorySegment requestMemory(int size, SegmentPriority priority) throws CapacityExceededException {
+        return requestMemory(this.rootTenant, MemoryManagers.toSizeClass(size, this.defaultMemorySize), priority);
     }
 
     /**
-     * Try to spill a segment from the {@link #spillQueue} so that it can be revoked. Then revoke it directly.
+     * Request a share of memory on behalf of the given {@link Tenant}.
      *
-     * @return the stolen free {@link MainMemorySegment} or {@code null} if none could be stolen
+     * @param tenant      the {@link Tenant} that will own the requested memory
+     * @param segmentSize the size of the requested memory; should be a size class as determined by
+     *                    {@link MemoryManagers#toSizeClass(int, int)} to allow for recycling of segments
+     * @param priority    the {@link SegmentPriority} of the requested memory
+     * @return a {@link VirtualMemorySegment} representing the requested memory
+     * @throws CapacityExceededException if the memory manager cannot serve the request due to missing capacities
      */
-    private MainMemorySegment drawDirtySegment() throws IOException {
-        // Find a spillable main memory segment.
-        final MainMemorySegment spillableSegment = spillQueue.poll(); // NB: Polling yields a lock on the owner.
-        if (spillableSegment == null) {
-            return null;
-        }
-        spillableSegment.shouldBeInState(SegmentState.DIRTY);
-        spillAndRevoke(spillableSegment);
-
-        // Reset and deliver the main memory segment.
-        spillableSegment.reset();
-        return spillableSegment;
+    VirtualMemorySegment requestMemory(Tenant tenant, int segmentSize, SegmentPriority priority)
+            throws CapacityExceededException {
+        return requestMemory(tenant, segmentSize, priority, 0L);
     }
 
     /**
-     * Spill a given {@link MainMemorySegment} to disk. This method assumes that the calling thread holds the
-     * associated {@link VirtualMemorySegment#getMainMemorySegmentLock()} and releases it afterwards. Also, it
-     * sets up the {@link VirtualMemorySegment#setDiskMemorySegment(DiskMemorySegment)} properly.
+     * Request a share of memory on behalf of the given {@link Tenant}. If all main memory is in use, wait for other
+     * threads to finish their accesses.
      *
-     * @param spillableSegment the segment to spill
-     * @throws IOException
+     * @param tenant       the {@link Tenant} that will own the requested memory
+     * @param segmentSize  the size of the requested memory
+     * @param priority     the {@link SegmentPriority} of the requested memory
+     * @param timeoutNanos the maximum time to wait in nanoseconds; not positive to fail immediately
+     * @return a {@link VirtualMemorySegment} representing the requested memory
+     * @throws CapacityExceededException if the memory manager cannot serve the request within the timeout
+     * @see #requestMemory(Tenant, int, SegmentPriority)
      */
-    private void spillAndRevoke(MainMemorySegment spillableSegment) throws IOException {
-        spill(spillableSegment);
-        VirtualMemorySegment owner = revoke(spillableSegment);
-        owner.getMainMemorySegmentLock().unlock();
+    VirtualMemorySegment requestMemory(Tenant tenant, int segmentSize, SegmentPriority priority, long timeoutNanos)
+            throws CapacityExceededException {
+        // Get a free memory segment.
+        MainMemorySegment mainMemorySegment = obtainFreeMainMemorySegment(tenant, segmentSize, timeoutNanos);
+        return wrap(tenant, mainMemorySegment, priority);
     }
 
     /**
-     * Spill a given {@link MainMemorySegment} to disk. This method assumes that the calling thread holds the
-     * associated {@link VirtualMemorySegment#getMainMemorySegmentLock()}. Also, it
-     * sets up the {@link VirtualMemorySegment#setDiskMemorySegment(DiskMemorySegment)} properly.
+     * Request several shares of memory on behalf of the given {@link Tenant} at once. Either all of them are served
+     * or none.
      *
-     * @param spillableSegment the segment to spill
-     * @throws IOException
+     * @param tenant      the {@link Tenant} that will own the requested memory
+     * @param segmentSize the size of each requested share of memory
+     * @param priority    the {@link SegmentPriority} of the requested memory
+     * @param numSegments the number of requested shares of memory
+     * @return {@link VirtualMemorySegment}s representing the requested memory, all of which are resident
+     * @throws CapacityExceededException if the memory manager cannot serve all of the shares
      */
-    private void spill(MainMemorySegment spillableSegment) throws IOException {
-        // Find the owner.
-        final VirtualMemorySegment owner = spillableSegment.getOwner();
-        if (owner == null) {
-            throw new IllegalStateException();
+    List<VirtualMemorySegment> requestMemory(Tenant tenant, int segmentSize, SegmentPriority priority,
+                                             int numSegments) throws CapacityExceededException {
+        if (numSegments < 0) {
+            throw new IllegalArgumentException("Illegal number of segments: " + numSegments);
         }
 
-        // Determine whether there already is a disk memory segment for this main memory segment.
-        // Then spill the main memory segment.
-        DiskMemorySegment diskMemorySegment = owner.getDiskMemorySegment();
-        if (diskMemorySegment != null) {
-            this.diskOperator.write(spillableSegment, diskMemorySegment);
-        } else {
-            diskMemorySegment = this.diskOperator.write(spillableSegment);
-            owner.setDiskMemorySegment(diskMemorySegment);
+        // Obtain all segments before handing out any, so that the obtained segments cannot be preempted meanwhile.
+        final List<MainMemorySegment> mainMemorySegments = new ArrayList<>(numSegments);
+        try {
+            for (int i = 0; i < numSegments; i++) {
+                mainMemorySegments.add(obtainFreeMainMemorySegment(tenant, segmentSize, 0L));
+            }
+        } catch (RuntimeException e) {
+            for (MainMemorySegment mainMemorySegment : mainMemorySegments) {
+                tenant.returnMemory(mainMemorySegment, null);
+            }
+            throw e;
         }
-        spillableSegment.setState(SegmentState.BACKED);
+
+        final List<VirtualMemorySegment> virtualMemorySegments = new ArrayList<>(numSegments);
+        for (MainMemorySegment mainMemorySegment : mainMemorySegments) {
+            virtualMemorySegments.add(wrap(tenant, mainMemorySegment, priority));
+        }
+        return virtualMemorySegments;
     }
 
     /**
-     * Revokes a {@link MainMemorySegment} from its {@link VirtualMemorySegment}. This method assumes that the calling thread holds the
-     * associated {@link VirtualMemorySegment#getMainMemorySegmentLock()}.
+     * Wraps a newly obtained {@link MainMemorySegment} in a new {@link VirtualMemorySegment} and enqueues it.
      *
-     * @param mms the segment to spill
-     * @throws IOException
-     * @return the former {@link MainMemorySegment#getOwner()}
+     * @param tenant            the {@link Tenant} that will own the new {@link VirtualMemorySegment}
+     * @param mainMemorySegment the obtained {@link MainMemorySegment}
+     * @param priority          the {@link SegmentPriority} of the new {@link VirtualMemorySegment}
+     * @return the new {@link VirtualMemorySegment}
      */
-    private VirtualMemorySegment revoke(MainMemorySegment mms) throws IOException {
-        // Revoke the memory from its owner.
-        final VirtualMemorySegment owner = mms.getOwner();
-        if (owner.yieldMainMemory() != mms) {
-            throw new RuntimeException("Relationship between main memory segment and owner seems to be broken.");
-        }
-        return owner;
+    private VirtualMemorySegment wrap(Tenant tenant, MainMemorySegment mainMemorySegment, SegmentPriority priority) {
+        mainMemorySegment.setState(SegmentState.DIRTY);
+        VirtualMemorySegment virtualMemorySegment = new VirtualMemorySegment(tenant, priority);
+        mainMemorySegment.assignTo(virtualMemorySegment);
+        tenant.enqueue(mainMemorySegment);
+        return virtualMemorySegment;
     }
 
     /**
-     * Creates a new default {@link MainMemorySegment}.
+     * Obtains a {@link MainMemorySegment} via {@link #obtainFreeMainMemorySegment(Tenant, int)}. If that fails, e.g.,
+     * because all segments are being accessed, wait until a segment is enqueued or freed and retry.
      *
-     * @return the created instance or {@code null} if there are no remaining capacities
+     * @param requester    the {@link Tenant} that requests the {@link MainMemorySegment}
+     * @param segmentSize  the capacity of the requested {@link MainMemorySegment}
+     * @param timeoutNanos the maximum time to wait in nanoseconds; not positive to fail immediately
+     * @return the obtained free {@link MainMemorySegment}
+     * @throws CapacityExceededException if no {@link MainMemorySegment} could be obtained within the timeout
      */
-    synchronized private MainMemorySegment tryToCreateNewDefaultMainMemorySegment() {
-        if (this.allocatedCapacity + this.defaultMemorySize > this.capacity) {
-            return null;
+    private MainMemorySegment obtainFreeMainMemorySegment(Tenant requester, int segmentSize, long timeoutNanos)
+            throws CapacityExceededException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        boolean isWaiting = false;
+        try {
+            while (true) {
+                final long epoch = this.segmentAvailabilityEpoch;
+                try {
+                    return obtainFreeMainMemorySegment(requester, segmentSize);
+                } catch (CapacityExceededException e) {
+                    if (timeoutNanos <= 0L || segmentSize > this.capacity || segmentSize > requester.maxCapacity) {
+                        this.stats.recordCapacityExceeded();
+                        throw e;
+                    }
+                    if (!isWaiting) {
+                        // Register as waiting and retry, so that we do not miss segments that become available now.
+                        this.numWaitingRequests.incrementAndGet();
+                        isWaiting = true;
+                    } else if (!awaitSegmentAvailability(epoch, deadline)) {
+                        this.stats.recordCapacityExceeded();
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            if (isWaiting) {
+                this.numWaitingRequests.decrementAndGet();
+            }
         }
-
-        MainMemorySegment mainMemorySegment = new MainMemorySegment(this.defaultMemorySize);
-        this.allocatedCapacity += this.defaultMemorySize;
-        return mainMemorySegment;
     }
 
-    @Override
-    public void close() {
-        try {
-            this.diskOperator.close();
-        } catch (Exception e) {
-            LOGGER.error("Could not close the disk operator.", e);
+    /**
+     * Waits until a {@link MainMemorySegment} might have become obtainable.
+     *
+     * @param epoch    the {@link #segmentAvailabilityEpoch} before the last attempt to obtain a segment
+     * @param deadline the {@link System#nanoTime()} until which to wait at most
+     * @return whether to retry to obtain a segment, i.e., whether the deadline has not passed and the calling thread
+     * has not been interrupted
+     */
+    private boolean awaitSegmentAvailability(long epoch, long deadline) {
+        synchronized (this.segmentAvailabilityMonitor) {
+            while (this.segmentAvailabilityEpoch == epoch) {
+                final long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0L) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this.segmentAvailabilityMonitor, remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
         }
+        return true;
     }
 
-    @Override
-    public int getDefaultSegmentSize() {
-        return this.defaultMemorySize;
+    /**
+     * Wakes up requests that wait for a {@link MainMemorySegment}, if any.
+     */
+    private void signalSegmentAvailability() {
+        if (this.numWaitingRequests.get() > 0) {
+            synchronized (this.segmentAvailabilityMonitor) {
+                this.segmentAvailabilityEpoch++;
+                this.segmentAvailabilityMonitor.notifyAll();
+            }
+        }
     }
 
-    @Override
+    /**
+     * This method tries to obtain a {@link MainMemorySegment} anyhow without violating the {@link #capacity} and
+     * the quota of the requesting {@link Tenant}. The obtained segment is accounted to that {@link Tenant}.
+     *
+     * @param requester   the {@link Tenant} that requests the {@link MainMemorySegment}
+     * @param segmentSize the capacity of the requested {@link MainMemorySegment}
+     * @return the obtained free {@link MainMemorySegment}
+     */
+    private MainMemorySegment obtainFreeMainMemorySegment(Tenant requester, int segmentSize)
+            throws CapacityExceededException {
+        if (segmentSize > this.capacity || segmentSize > requester.maxCapacity) {
+            throw new CapacityExceededException(String.format("Cannot serve a segment of %d bytes.", segmentSize));
+        }
+
+        // Reserved segments are already accounted to the requester.
+        if (requester.reservedSegments != null && segmentSize == this.defaultMemorySize) {
+            final MainMemorySegment reservedSegment = requester.reservedSegments.poll();
+            if (reservedSegment != null) {
+                this.stats.recordObtainedSegment(MemoryManagerStats.Source.RESERVED);
+                return reservedSegment;
+            }
+        }
+
+        // Account the segment to the requester up front, so that concurrent requests cannot exceed its quota
+        // together. If the requester would exceed its quota, it has to preempt its own segments unless it gives back
+        // memory.
+        MainMemorySegment mainMemorySegment = null;
+        if (!requester.tryToAccount(segmentSize)) {
+            relieveMemoryPressure(requester, requester.residentCapacity.get() + segmentSize - requester.maxCapacity);
+            while (!requester.tryToAccount(segmentSize)) {
+                final MainMemorySegment stolenSegment = stealMainMemorySegment(requester);
+                if (stolenSegment == null) {
+                    throw new CapacityExceededException(String.format(
+                            "Could not obtain the requested memory segment within the quota of %d bytes.",
+                            requester.maxCapacity));
+                }
+                if (stolenSegment.capacity() == segmentSize && requester.tryToAccount(segmentSize)) {
+                    mainMemorySegment = stolenSegment;
+                    this.stats.recordObtainedSegment(MemoryManagerStats.Source.QUOTA_PREEMPTION);
+                    break;
+                }
+                returnFreeSegment(stolenSegment);
+            }
+        }
+
+        if (mainMemorySegment == null) {
+            try {
+                mainMemorySegment = obtainAnyFreeMainMemorySegment(requester, segmentSize);
+            } catch (RuntimeException e) {
+                requester.unaccount(segmentSize);
+                throw e;
+            }
+        }
+
+        final BackgroundSpiller backgroundSpiller = this.backgroundSpiller;
+        if (backgroundSpiller != null) {
+            backgroundSpiller.wakeUp();
+        }
+        final int memoryPressureThreshold = this.memoryPressureThreshold;
+        if (memoryPressureThreshold > 0 && this.numMemoryPressureListeners.get() > 0) {
+            final int numCheaplyObtainableSegments = countCheaplyObtainableSegments();
+            if (numCheaplyObtainableSegments < memoryPressureThreshold) {
+                relieveMemoryPressure(this.tenants,
+                        (long) (memoryPressureThreshold - numCheaplyObtainableSegments) * this.defaultMemorySize);
+            }
+        }
+
+        return mainMemorySegment;
+    }
+
+    /**
+     * Like {@link #obtainFreeMainMemorySegment(Tenant, int)}, this method tries to obtain a {@link MainMemorySegment}
+     * without violating the {@link #capacity} and the quota of the requesting {@link Tenant}. However, it only
+     * considers free or unallocated capacities and backed segments, so that it never has to spill a segment. The
+     * obtained segment is accounted to the requesting {@link Tenant}.
+     *
+     * @param requester   the {@link Tenant} that requests the {@link MainMemorySegment}
+     * @param segmentSize the capacity of the requested {@link MainMemorySegment}
+     * @return the obtained free {@link MainMemorySegment} or {@code null} if none could be obtained
+     */
+    private MainMemorySegment obtainFreeMainMemorySegmentWithoutSpilling(Tenant requester, int segmentSize) {
+        if (segmentSize > this.capacity || segmentSize > requester.maxCapacity) {
+            return null;
+        }
+
+        // Reserved segments are already accounted to the requester.
+        if (requester.reservedSegments != null && segmentSize == this.defaultMemorySize) {
+            final MainMemorySegment reservedSegment = requester.reservedSegments.poll();
+            if (reservedSegment != null) {
+                this.stats.recordObtainedSegment(MemoryManagerStats.Source.RESERVED);
+                return reservedSegment;
+            }
+        }
+
+        // If the requester would exceed its quota, it can only preempt one of its own backed segments.
+        if (!requester.tryToAccount(segmentSize)) {
+            for (SegmentPriority priority : SegmentPriority.values()) {
+                final MainMemorySegment backedSegment = drawBackedSegment(requester, priority);
+                if (backedSegment == null) continue;
+                if (backedSegment.capacity() == segmentSize && requester.tryToAccount(segmentSize)) {
+                    this.stats.recordObtainedSegment(MemoryManagerStats.Source.QUOTA_PREEMPTION);
+                    return backedSegment;
+                }
+                returnFreeSegment(backedSegment);
+                return null;
+            }
+            return null;
+        }
+
+        // 1.-3. look for a free segment or unallocated capacity
+        final MainMemorySegment unusedSegment = obtainUnusedMainMemorySegment(segmentSize);
+        if (unusedSegment != null) {
+            return unusedSegment;
+        }
+
+        // 4. try to preempt a backed segment from the tenants that exceed their share
+        final List<Tenant> victims = getTenantsExceedingTheirShare();
+        for (SegmentPriority priority : SegmentPriority.values()) {
+            for (Tenant victim : victims) {
+                while (victim.getExcessCapacity() > 0) {
+                    final MainMemorySegment backedSegment = drawBackedSegment(victim, priority);
+                    if (backedSegment == null) break;
+                    final MainMemorySegment reshapedSegment = reshape(backedSegment, segmentSize);
+                    if (reshapedSegment != null) {
+                        this.stats.recordObtainedSegment(MemoryManagerStats.Source.FOREIGN_PREEMPTION);
+                        return reshapedSegment;
+                    }
+                }
+            }
+        }
+
+        // 5. try to preempt a backed segment from the requester itself
+        for (SegmentPriority priority : SegmentPriority.values()) {
+            MainMemorySegment backedSegment;
+            while ((backedSegment = drawBackedSegment(requester, priority)) != null) {
+                final MainMemorySegment reshapedSegment = reshape(backedSegment, segmentSize);
+                if (reshapedSegment != null) {
+                    this.stats.recordObtainedSegment(MemoryManagerStats.Source.OWN_PREEMPTION);
+                    return reshapedSegment;
+                }
+            }
+        }
+
+        requester.unaccount(segmentSize);
+        return null;
+    }
+
+    /**
+     * Obtain a {@link MainMemorySegment} from the free or unallocated capacities or by preempting a segment.
+     * Segments of {@link Tenant}s that exceed their minimum capacity are preempted first and, among those, segments
+     * with lower {@link SegmentPriority} are preempted first.
+     *
+     * <p>Segments of other capacities than the requested one are discarded to make room for a new segment.</p>
+     *
+     * @param requester   the {@link Tenant} that requests the {@link MainMemorySegment}
+     * @param segmentSize the capacity of the requested {@link MainMemorySegment}
+     * @return the obtained free {@link MainMemorySegment}
+     */
+    private MainMemorySegment obtainAnyFreeMainMemorySegment(Tenant requester, int segmentSize)
+            throws CapacityExceededException {
+        // 1.-3. look for a free segment or unallocated capacity
+        final MainMemorySegment unusedSegment = obtainUnusedMainMemorySegment(segmentSize);
+        if (unusedSegment != null) {
+            return unusedSegment;
+        }
+
+        // Before preempting segments, collect the free segments cached by other threads.
+        if (reclaimFreeSegmentMagazines()) {
+            final MainMemorySegment reclaimedSegment = obtainUnusedMainMemorySegment(segmentSize);
+            if (reclaimedSegment != null) {
+                return reclaimedSegment;
+            }
+        }
+
+        // Also, let the clients give back memory voluntarily.
+        if (relieveMemoryPressure(this.tenants, segmentSize)) {
+            final MainMemorySegment givenBackSegment = obtainUnusedMainMemorySegment(segmentSize);
+            if (givenBackSegment != null) {
+                return givenBackSegment;
+            }
+        }
+
+        // 4. try to steal a segment from the tenants that exceed their share, lowest priority and most exceeding
+        // tenant first
+        final List<Tenant> victims = getTenantsExceedingTheirShare();
+        for (SegmentPriority priority : SegmentPriority.values()) {
+            for (Tenant victim : victims) {
+                while (victim.getExcessCapacity() > 0) {
+                    final MainMemorySegment stolenSegment = stealMainMemorySegment(victim, priority);
+                    if (stolenSegment == null) break;
+                    final MainMemorySegment reshapedSegment = reshape(stolenSegment, segmentSize);
+                    if (reshapedSegment != null) {
+                        this.stats.recordObtainedSegment(MemoryManagerStats.Source.FOREIGN_PREEMPTION);
+                        return reshapedSegment;
+                    }
+                }
+            }
+        }
+
+        // 5. try to steal a segment from the requester itself
+        MainMemorySegment stolenSegment;
+        while ((stolenSegment = stealMainMemorySegment(requester)) != null) {
+            final MainMemorySegment reshapedSegment = reshape(stolenSegment, segmentSize);
+            if (reshapedSegment != null) {
+                this.stats.recordObtainedSegment(MemoryManagerStats.Source.OWN_PREEMPTION);
+                return reshapedSegment;
+            }
+        }
+
+        throw new CapacityExceededException("Could not obtain the requested memory segment.");
+    }
+
+    /**
+     * Obtain a {@link MainMemorySegment} from the free or unallocated capacities without preempting any segment.
+     *
+     * @param segmentSize the capacity of the requested {@link MainMemorySegment}
+     * @return the obtained free {@link MainMemorySegment} or {@code null} if none could be obtained
+     */
+    private MainMemorySegment obtainUnusedMainMemorySegment(int segmentSize) {
+        // 1. look for a free segment
+        final MainMemorySegment recycledSegment = segmentSize == this.defaultMemorySize ?
+                drawFreeSegmentFromMagazine() :
+                drawFreeSegment(segmentSize);
+        if (recycledSegment != null) {
+            this.stats.recordObtainedSegment(MemoryManagerStats.Source.FREE);
+            return recycledSegment;
+        }
+
+        // 2. if possible, create a new segment
+        final MainMemorySegment newMainMemorySegment = tryToCreateNewMainMemorySegment(segmentSize);
+        if (newMainMemorySegment != null) {
+            this.stats.recordObtainedSegment(MemoryManagerStats.Source.NEW);
+            return newMainMemorySegment;
+        }
+
+        // 3. discard free segments of other sizes to create a new segment
+        MainMemorySegment freeSegment;
+        while ((freeSegment = drawAnyFreeSegment()) != null) {
+            final MainMemorySegment reshapedSegment = reshape(freeSegment, segmentSize);
+            if (reshapedSegment != null) {
+                this.stats.recordObtainedSegment(MemoryManagerStats.Source.RESHAPED);
+                return reshapedSegment;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Provide a free {@link MainMemorySegment} of the requested capacity in place of a given free one. If the
+     * capacities do not match, the given segment is discarded and a new one is created from the released capacity.
+     *
+     * @param freeSegment the free {@link MainMemorySegment} that is not accounted to any {@link Tenant}
+     * @param segmentSize the requested capacity
+     * @return a free {@link MainMemorySegment} of the requested capacity or {@code null} if the given segment did
+     * not release sufficient capacity to create it
+     */
+    private MainMemorySegment reshape(MainMemorySegment freeSegment, int segmentSize) {
+        if (freeSegment.capacity() == segmentSize) {
+            return freeSegment;
+        }
+        discard(freeSegment);
+        return tryToCreateNewMainMemorySegment(segmentSize);
+    }
+
+    /**
+     * Drop a free {@link MainMemorySegment} and release its capacity.
+     *
+     * @param freeSegment the {@link MainMemorySegment} to drop
+     */
+    synchronized private void discard(MainMemorySegment freeSegment) {
+        this.allocatedCapacity -= freeSegment.capacity();
+    }
+
+    /**
+     * @return the {@link Tenant}s that hold more main memory than guaranteed to them, ordered by their excess
+     */
+    private List<Tenant> getTenantsExceedingTheirShare() {
+        final List<Tenant> victims = new ArrayList<>(this.tenants.size());
+        for (Tenant tenant : this.tenants) {
+            if (tenant.getExcessCapacity() > 0) {
+                victims.add(tenant);
+            }
+        }
+        victims.sort(Comparator.comparingLong(Tenant::getExcessCapacity).reversed());
+        return victims;
+    }
+
+    /**
+     * Steal a {@link MainMemorySegment} from a given {@link Tenant}. Segments with lower {@link SegmentPriority} are
+     * preferred.
+     *
+     * @param victim the {@link Tenant} to steal from
+     * @return the stolen free {@link MainMemorySegment} or {@code null} if none could be stolen
+     */
+    private MainMemorySegment stealMainMemorySegment(Tenant victim) {
+        for (SegmentPriority priority : SegmentPriority.values()) {
+            final MainMemorySegment stolenSegment = stealMainMemorySegment(victim, priority);
+            if (stolenSegment != null) {
+                return stolenSegment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Steal a {@link MainMemorySegment} of a given {@link SegmentPriority} from a given {@link Tenant}. Backed
+     * segments are preferred over dirty ones.
+     *
+     * @param victim   the {@link Tenant} to steal from
+     * @param priority the {@link SegmentPriority} of the segment to steal
+     * @return the stolen free {@link MainMemorySegment} or {@code null} if none could be stolen
+     */
+    private MainMemorySegment stealMainMemorySegment(Tenant victim, SegmentPriority priority) {
+        // try to steal a backed memory segment
+        final MainMemorySegment backedMemorySegment = drawBackedSegment(victim, priority);
+        if (backedMemorySegment != null) {
+            return backedMemorySegment;
+        }
+
+        // try to back a memory segment, then steal it
+        try {
+            return drawDirtySegment(victim, priority);
+        } catch (IOException e) {
+            throw new ManagedMemoryException(e);
+        }
+    }
+
+    /**
+     * Draw a {@link MainMemorySegment} of any capacity from the {@link #freeQueues}.
+     *
+     * @return the drawn {@link MainMemorySegment} or {@code null} if none was available
+     */
+    private MainMemorySegment drawAnyFreeSegment() {
+        for (Integer segmentSize : this.freeQueues.keySet()) {
+            final MainMemorySegment freeSegment = drawFreeSegment(segmentSize);
+            if (freeSegment != null) {
+                return freeSegment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Draw a {@link MainMemorySegment} of the given capacity from the {@link #freeQueues}.
+     *
+     * @param segmentSize the capacity of the {@link MainMemorySegment} to draw
+     * @return the drawn {@link MainMemorySegment} or {@code null} if none was available
+     */
+    private MainMemorySegment drawFreeSegment(int segmentSize) {
+        final StripedQueueableQueue<MainMemorySegment> freeQueue = this.freeQueues.get(segmentSize);
+        final MainMemorySegment freeSegment = freeQueue == null ? null : freeQueue.poll();
+        if (freeSegment != null) {
+            this.freeCapacity.addAndGet(-freeSegment.capacity());
+            freeSegment.shouldBeInState(SegmentState.FREE);
+            if (freeSegment.getOwner() != null) {
+                throw new IllegalStateException();
+            }
+        }
+        return freeSegment;
+    }
+
+    /**
+     * Draws a {@link MainMemorySegment} from the {@link Tenant#backedQueues} of a given {@link Tenant} and resets it.
+     *
+     * @param victim   the {@link Tenant} to draw from
+     * @param priority the {@link SegmentPriority} of the segment to draw
+     * @return the drawn {@link MainMemorySegment} or {@code null} if none was available
+     */
+    private MainMemorySegment drawBackedSegment(Tenant victim, SegmentPriority priority) {
+        MainMemorySegment backedMemorySegment;
+        while ((backedMemorySegment =
+                victim.backedQueues[priority.ordinal()].poll()) != null) { // NB: Polling locks the owner.
+            final VirtualMemorySegment owner = backedMemorySegment.getOwner();
+            final long stamp = owner.tryLockPreemption();
+            if (stamp == 0L) {
+                // The segment is about to be accessed and will be enqueued again afterwards.
+                owner.getMainMemorySegmentLock().unlock();
+                continue;
+            }
+            try {
+                backedMemorySegment.shouldBeInState(SegmentState.BACKED);
+                if (owner.yieldMainMemory() != backedMemorySegment) {
+                    throw new IllegalStateException("The segment/owner relationship seems to be broken.");
+                }
+            } finally {
+                owner.unlockPreemption(stamp);
+                owner.getMainMemorySegmentLock().unlock();
+            }
+            victim.release(backedMemorySegment);
+            backedMemorySegment.reset();
+            return backedMemorySegment;
+        }
+        return null;
+    }
+
+    /**
+     * Try to spill a segment from the {@link Tenant#spillQueues} of a given {@link Tenant} so that it can be revoked.
+     * Then revoke it directly.
+     *
+     * @param victim   the {@link Tenant} to draw from
+     * @param priority the {@link SegmentPriority} of the segment to draw
+     * @return the stolen free {@link MainMemorySegment} or {@code null} if none could be stolen
+     */
+    private MainMemorySegment drawDirtySegment(Tenant victim, SegmentPriority priority) throws IOException {
+        // Find a spillable main memory segment.
+        MainMemorySegment spillableSegment;
+        while ((spillableSegment =
+                victim.spillQueues[priority.ordinal()].poll()) != null) { // NB: Polling yields a lock on the owner.
+            final VirtualMemorySegment owner = spillableSegment.getOwner();
+            final long stamp = owner.tryLockPreemption();
+            if (stamp == 0L) {
+                // The segment is about to be accessed and will be enqueued again afterwards.
+                owner.getMainMemorySegmentLock().unlock();
+                continue;
+            }
+            try {
+                spillableSegment.shouldBeInState(SegmentState.DIRTY);
+                spill(spillableSegment);
+                revoke(spillableSegment);
+            } finally {
+                owner.unlockPreemption(stamp);
+                owner.getMainMemorySegmentLock().unlock();
+            }
+            victim.release(spillableSegment);
+
+            // Reset and deliver the main memory segment.
+            spillableSegment.reset();
+            return spillableSegment;
+        }
+        return null;
+    }
+
+    /**
+     * Spill a given {@link MainMemorySegment} to disk. This method assumes that the calling thread holds the
+     * associated {@link VirtualMemorySegment#getMainMemorySegmentLock()}. Also, it
+     * sets up the {@link VirtualMemorySegment#setDiskMemorySegment(DiskMemorySegment)} properly.
+     *
+     * @param spillableSegment the segment to spill
+     * @throws IOException
+     */
+    private void spill(MainMemorySegment spillableSegment) throws IOException {
+        // Find the owner.
+        final VirtualMemorySegment owner = spillableSegment.getOwner();
+        if (owner == null) {
+            throw new IllegalStateException();
+        }
+
+        // Determine whether there already is a disk memory segment for this main memory segment.
+        // Then spill the main memory segment.
+        final long startTime = System.nanoTime();
+        DiskMemorySegment diskMemorySegment = owner.getDiskMemorySegment();
+        if (diskMemorySegment != null) {
+            diskMemorySegment.getDiskOperator().write(spillableSegment, diskMemorySegment);
+        } else {
+            diskMemorySegment = selectDiskOperator().write(spillableSegment);
+            owner.setDiskMemorySegment(diskMemorySegment);
+        }
+        this.stats.recordSpill(diskMemorySegment.getSize(), System.nanoTime() - startTime);
+        spillableSegment.setState(SegmentState.BACKED);
+    }
+
+    /**
+     * Revokes a {@link MainMemorySegment} from its {@link VirtualMemorySegment}. This method assumes that the calling thread holds the
+     * associated {@link VirtualMemorySegment#getMainMemorySegmentLock()}.
+     *
+     * @param mms the segment to spill
+     * @throws IOException
+     * @return the former {@link MainMemorySegment#getOwner()}
+     */
+    private VirtualMemorySegment revoke(MainMemorySegment mms) throws IOException {
+        // Revoke the memory from its owner.
+        final VirtualMemorySegment owner = mms.getOwner();
+        if (owner.yieldMainMemory() != mms) {
+            throw new RuntimeException("Relationship between main memory segment and owner seems to be broken.");
+        }
+        return owner;
+    }
+
+    /**
+     * Creates a new {@link MainMemorySegment}.
+     *
+     * @param segmentSize the capacity of the new {@link MainMemorySegment}
+     * @return the created instance or {@code null} if there are no remaining capacities
+     */
+    synchronized private MainMemorySegment tryToCreateNewMainMemorySegment(int segmentSize) {
+        if (this.allocatedCapacity + segmentSize > this.capacity) {
+            return null;
+        }
+
+        MainMemorySegment mainMemorySegment = new MainMemorySegment(segmentSize, this.isUsingDirectMemory);
+        this.allocatedCapacity += segmentSize;
+        return mainMemorySegment;
+    }
+
+    /**
+     * Starts a background thread that writes dirty segments to disk whenever fewer than {@code lowWatermark}
+     * segments can be obtained without writing to disk, i.e., free segments, backed segments, and unallocated
+     * capacity (in terms of default segments). Requests then rarely have to wait for a segment to be spilled.
+     *
+     * @param lowWatermark the number of segments that should be obtainable without writing to disk
+     * @throws IllegalStateException if background spilling is already enabled
+     */
+    synchronized public void startBackgroundSpilling(int lowWatermark) {
+        if (lowWatermark < 1) {
+            throw new IllegalArgumentException("Illegal low watermark: " + lowWatermark);
+        }
+        if (this.backgroundSpiller != null) {
+            throw new IllegalStateException("Background spilling is already enabled.");
+        }
+        this.backgroundSpiller = new BackgroundSpiller(this, lowWatermark);
+        this.backgroundSpiller.start();
+    }
+
+    /**
+     * Stops the background spilling if it is enabled.
+     *
+     * @see #startBackgroundSpilling(int)
+     */
+    public void stopBackgroundSpilling() {
+        final BackgroundSpiller backgroundSpiller;
+        synchronized (this) {
+            backgroundSpiller = this.backgroundSpiller;
+            this.backgroundSpiller = null;
+        }
+        if (backgroundSpiller != null) {
+            backgroundSpiller.stop();
+        }
+    }
+
+    /**
+     * Estimates the number of segments that can be obtained without writing to disk, i.e., free segments, backed
+     * segments, and unallocated capacity in terms of default segments.
+     *
+     * @return the estimated number of segments
+     */
+    int countCheaplyObtainableSegments() {
+        long numSegments = Math.max(0L, this.capacity - this.allocatedCapacity) / this.defaultMemorySize;
+        numSegments += countFreeSegments();
+        numSegments += countBackedSegments();
+        return (int) Math.min(numSegments, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes a dirty segment to disk without revoking it from its owner, so that it can be preempted cheaply later
+     * on. Segments with low {@link SegmentPriority} are considered first.
+     *
+     * @return whether a dirty segment has been found
+     * @throws IOException if the dirty segment could not be written; it stays dirty then
+     */
+    boolean backDirtySegment() throws IOException {
+        for (SegmentPriority priority : SegmentPriority.values()) {
+            for (Tenant tenant : this.tenants) {
+                final MainMemorySegment dirtySegment =
+                        tenant.spillQueues[priority.ordinal()].poll(); // NB: Polling locks the owner.
+                if (dirtySegment == null) continue;
+
+                // Exclude accesses and releases of the segment while backing it, just like a preemption.
+                final VirtualMemorySegment owner = dirtySegment.getOwner();
+                final long stamp = owner.tryLockPreemption();
+                if (stamp == 0L) {
+                    // The segment is being accessed and will be enqueued again afterwards.
+                    owner.getMainMemorySegmentLock().unlock();
+                    return true;
+                }
+                try {
+                    dirtySegment.shouldBeInState(SegmentState.DIRTY);
+                    if (owner.getMainMemorySegment() != dirtySegment) {
+                        throw new IllegalStateException("The segment/owner relationship seems to be broken.");
+                    }
+                    try {
+                        spill(dirtySegment);
+                    } catch (IOException e) {
+                        this.stats.recordFailedSpill();
+                        throw e;
+                    } finally {
+                        tenant.enqueue(dirtySegment);
+                    }
+                } finally {
+                    owner.unlockPreemption(stamp);
+                    owner.getMainMemorySegmentLock().unlock();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Selects the {@link DiskOperator} to spill a new segment to. This is the one with the fewest pending operations
+     * and, among those, the next one in a round-robin fashion.
+     *
+     * @return the selected {@link DiskOperator}
+     */
+    private DiskOperator selectDiskOperator() {
+        if (this.diskOperators.length == 1) {
+            return this.diskOperators[0];
+        }
+        final int offset = (int) (this.diskOperatorSelections.getAndIncrement() % this.diskOperators.length);
+        DiskOperator selectedDiskOperator = null;
+        for (int i = 0; i < this.diskOperators.length; i++) {
+            final DiskOperator diskOperator = this.diskOperators[(offset + i) % this.diskOperators.length];
+            if (selectedDiskOperator == null ||
+                    diskOperator.getNumPendingOperations() < selectedDiskOperator.getNumPendingOperations()) {
+                selectedDiskOperator = diskOperator;
+            }
+        }
+        return selectedDiskOperator;
+    }
+
+    /**
+     * Compacts the spill files by moving spilled segments towards the start of the files, so that the files can be
+     * truncated. Concurrent spilling and loading is blocked on each file while it is being compacted.
+     *
+     * @param maxRelocations the maximum number of segments to move per spill file
+     * @return the number of moved segments
+     * @see DiskOperator#compact(int)
+     */
+    public int compactSpillFiles(int maxRelocations) {
+        int numRelocations = 0;
+        for (DiskOperator diskOperator : this.diskOperators) {
+            try {
+                numRelocations += diskOperator.compact(maxRelocations);
+            } catch (IOException e) {
+                throw new ManagedMemoryException("Could not compact the spill file.", e);
+            }
+        }
+        return numRelocations;
+    }
+
+    @Override
+    public void close() {
+        stopBackgroundSpilling();
+        closeDiskOperators();
+    }
+
+    /**
+     * Closes all {@link #diskOperators} that have been created.
+     */
+    private void closeDiskOperators() {
+        for (DiskOperator diskOperator : this.diskOperators) {
+            if (diskOperator == null) continue;
+            try {
+                diskOperator.close();
+            } catch (Exception e) {
+                LOGGER.error("Could not close the disk operator.", e);
+            }
+        }
+    }
+
+    @Override
+    public int getDefaultSegmentSize() {
+        return this.defaultMemorySize;
+    }
+
+    @Override
     public long getMaximumCapacity() {
         return this.capacity;
     }
 
-    @Override
-    public long getAllocatedCapacity() {
-        return this.allocatedCapacity;
+    @Override
+    public long getAllocatedCapacity() {
+        return this.allocatedCapacity;
+    }
+
+    @Override
+    public long getFreeCapacity() {
+        return this.freeCapacity.get() + (long) countMagazineSegments() * this.defaultMemorySize;
+    }
+
+    @Override
+    public void resize(long newCapacity) throws CapacityExceededException {
+        if (newCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        // Let the clients give back memory voluntarily before preempting their segments.
+        final long shortage = this.allocatedCapacity - getFreeCapacity() - newCapacity;
+        if (shortage > 0) {
+            relieveMemoryPressure(this.tenants, shortage);
+        }
+
+        resizeAndPreempt(newCapacity);
+    }
+
+    /**
+     * Changes the {@link #capacity} and preempts segments as needed.
+     *
+     * @param newCapacity the new capacity in bytes
+     * @throws CapacityExceededException if not enough segments could be preempted
+     * @see #resize(long)
+     */
+    synchronized private void resizeAndPreempt(long newCapacity) throws CapacityExceededException {
+        if (newCapacity < this.guaranteedCapacity) {
+            this.stats.recordCapacityExceeded();
+            throw new CapacityExceededException(String.format("Cannot resize to %d bytes: %d bytes are guaranteed to child memory managers.",
+                    newCapacity, this.guaranteedCapacity));
+        }
+        this.capacity = newCapacity;
+
+        // If we need to shrink the main memory usage, go to the free segments at first.
+        if (this.allocatedCapacity > this.capacity) {
+            reclaimFreeSegmentMagazines();
+        }
+        while (this.allocatedCapacity > this.capacity) {
+            // Try to get a backed segment.
+            final MainMemorySegment freeSegment = drawAnyFreeSegment();
+            if (freeSegment == null) break;
+            this.allocatedCapacity -= freeSegment.capacity();
+        }
+
+        // Next, go to the backed segments.
+        for (SegmentPriority priority : SegmentPriority.values()) {
+            for (Tenant tenant : this.tenants) {
+                while (this.allocatedCapacity > this.capacity) {
+                    // Try to get a backed segment.
+                    final MainMemorySegment backedSegment = drawBackedSegment(tenant, priority);
+                    if (backedSegment == null) break;
+                    this.allocatedCapacity -= backedSegment.capacity();
+                }
+            }
+        }
+
+        // When the eviction of free and backed segments was not sufficient, spill dirty segments and steal them.
+        for (SegmentPriority priority : SegmentPriority.values()) {
+            for (Tenant tenant : this.tenants) {
+                while (this.allocatedCapacity > this.capacity) {
+                    // Try to get a backed segment.
+                    final MainMemorySegment dirtySegment;
+                    try {
+                        dirtySegment = drawDirtySegment(tenant, priority);
+                    } catch (IOException e) {
+                        throw new ManagedMemoryException("Could not spill dirty segment when resizing the managed memory.", e);
+                    }
+                    if (dirtySegment == null) break;
+                    this.allocatedCapacity -= dirtySegment.capacity();
+                }
+            }
+        }
+
+        if (this.allocatedCapacity > this.capacity) {
+            this.capacity = this.allocatedCapacity;
+            this.stats.recordCapacityExceeded();
+            throw new CapacityExceededException("Could not resize the capacity as requested.");
+        }
+
+        // Requests might wait for the capacity that has been added.
+        signalSegmentAvailability();
+    }
+
+    /**
+     * Shrinks the main memory held by a {@link Tenant} to its {@link Tenant#maxCapacity} by preempting its segments.
+     * The preempted segments are made available as free segments.
+     *
+     * @param tenant the {@link Tenant} to shrink
+     * @throws CapacityExceededException if the {@link Tenant} cannot be shrunk sufficiently
+     */
+    void shrinkToQuota(Tenant tenant) throws CapacityExceededException {
+        while (tenant.residentCapacity.get() > tenant.maxCapacity) {
+            final MainMemorySegment stolenSegment = stealMainMemorySegment(tenant);
+            if (stolenSegment == null) {
+                this.stats.recordCapacityExceeded();
+                throw new CapacityExceededException("Could not shrink the memory to the requested quota.");
+            }
+            returnFreeSegment(stolenSegment);
+        }
+    }
+
+    /**
+     * Closes the given {@link Tenant}, i.e., it does not request memory anymore and its guaranteed capacity is
+     * revoked.
+     *
+     * @param tenant the {@link Tenant} to close
+     */
+    synchronized void closeTenant(Tenant tenant) {
+        if (tenant.isClosed) {
+            return;
+        }
+        tenant.isClosed = true;
+        this.guaranteedCapacity -= tenant.minCapacity;
+        tenant.releaseReservedSegments();
+        tenant.unregisterIfDrained();
+    }
+
+    /**
+     * Puts a reset {@link MainMemorySegment} into the {@link #freeQueues}.
+     *
+     * @param mainMemorySegment the {@link MainMemorySegment} to put
+     */
+    private void returnFreeSegment(MainMemorySegment mainMemorySegment) {
+        mainMemorySegment.shouldBeUnlinked();
+        mainMemorySegment.shouldBeInState(SegmentState.FREE);
+        this.freeQueues
+                .computeIfAbsent((int) mainMemorySegment.capacity(), segmentSize -> new StripedQueueableQueue<>())
+                .add(mainMemorySegment);
+        this.freeCapacity.addAndGet(mainMemorySegment.capacity());
+        signalSegmentAvailability();
+    }
+
+    /**
+     * Creates a {@link FreeSegmentMagazine} for the calling thread and registers it.
+     *
+     * @return the created {@link FreeSegmentMagazine}
+     */
+    private FreeSegmentMagazine createFreeSegmentMagazine() {
+        final FreeSegmentMagazine magazine = new FreeSegmentMagazine(FreeSegmentMagazine.DEFAULT_CAPACITY);
+        this.freeSegmentMagazines.add(magazine);
+        return magazine;
+    }
+
+    /**
+     * Puts a reset {@link MainMemorySegment} into the {@link FreeSegmentMagazine} of the calling thread if it has the
+     * {@link #defaultMemorySize}. A full magazine is half drained into the {@link #freeQueues} beforehand.
+     *
+     * @param mainMemorySegment the {@link MainMemorySegment} to put
+     */
+    private void returnFreeSegmentToMagazine(MainMemorySegment mainMemorySegment) {
+        if (mainMemorySegment.capacity() != this.defaultMemorySize) {
+            returnFreeSegment(mainMemorySegment);
+            return;
+        }
+        mainMemorySegment.shouldBeUnlinked();
+        mainMemorySegment.shouldBeInState(SegmentState.FREE);
+
+        final FreeSegmentMagazine magazine = this.freeSegmentMagazine.get();
+        List<MainMemorySegment> drainedSegments = null;
+        while (!magazine.push(mainMemorySegment)) {
+            if (drainedSegments == null) drainedSegments = new ArrayList<>(magazine.capacity());
+            if (magazine.drainTo(drainedSegments, (magazine.capacity() + 1) / 2) == 0) {
+                // The magazine cannot hold any segment.
+                drainedSegments.add(mainMemorySegment);
+                break;
+            }
+        }
+
+        // Waiting requests could not see the segment in the magazine.
+        if (this.numWaitingRequests.get() > 0) {
+            if (drainedSegments == null) drainedSegments = new ArrayList<>(magazine.capacity());
+            magazine.drainTo(drainedSegments);
+        }
+
+        if (drainedSegments != null) {
+            for (MainMemorySegment drainedSegment : drainedSegments) {
+                returnFreeSegment(drainedSegment);
+            }
+        }
+    }
+
+    /**
+     * Draws a {@link MainMemorySegment} of the {@link #defaultMemorySize} from the {@link FreeSegmentMagazine} of the
+     * calling thread. An empty magazine is half refilled from the {@link #freeQueues} beforehand.
+     *
+     * @return the drawn {@link MainMemorySegment} or {@code null} if none was available
+     */
+    private MainMemorySegment drawFreeSegmentFromMagazine() {
+        final FreeSegmentMagazine magazine = this.freeSegmentMagazine.get();
+        final MainMemorySegment cachedSegment = magazine.pop();
+        if (cachedSegment != null) {
+            return cachedSegment;
+        }
+
+        // Refill the magazine in a batch.
+        final MainMemorySegment freeSegment = drawFreeSegment(this.defaultMemorySize);
+        if (freeSegment == null) {
+            return null;
+        }
+        for (int i = 1; i < magazine.capacity() / 2; i++) {
+            final MainMemorySegment nextFreeSegment = drawFreeSegment(this.defaultMemorySize);
+            if (nextFreeSegment == null) break;
+            if (!magazine.push(nextFreeSegment)) {
+                returnFreeSegment(nextFreeSegment);
+                break;
+            }
+        }
+        return freeSegment;
+    }
+
+    /**
+     * Moves the segments of all {@link #freeSegmentMagazines} into the {@link #freeQueues}, so that they are
+     * available to all threads. Also, forgets the magazines of terminated threads.
+     *
+     * @return whether any segment has been moved
+     */
+    private boolean reclaimFreeSegmentMagazines() {
+        final List<MainMemorySegment> reclaimedSegments = new ArrayList<>();
+        for (FreeSegmentMagazine magazine : this.freeSegmentMagazines) {
+            if (!magazine.isOwnerAlive()) {
+                this.freeSegmentMagazines.remove(magazine);
+            }
+            magazine.drainTo(reclaimedSegments);
+        }
+        for (MainMemorySegment reclaimedSegment : reclaimedSegments) {
+            returnFreeSegment(reclaimedSegment);
+        }
+        return !reclaimedSegments.isEmpty();
+    }
+
+    /**
+     * @return the number of {@link MainMemorySegment}s in the {@link #freeSegmentMagazines}
+     */
+    private int countMagazineSegments() {
+        int numSegments = 0;
+        for (FreeSegmentMagazine magazine : this.freeSegmentMagazines) {
+            numSegments += magazine.size();
+        }
+        return numSegments;
+    }
+
+    @Override
+    public void addMemoryPressureListener(MemoryPressureListener listener) {
+        addMemoryPressureListener(this.rootTenant, listener);
+    }
+
+    @Override
+    public void removeMemoryPressureListener(MemoryPressureListener listener) {
+        removeMemoryPressureListener(this.rootTenant, listener);
+    }
+
+    /**
+     * Registers a {@link MemoryPressureListener} with a {@link Tenant}.
+     *
+     * @param tenant   the {@link Tenant}
+     * @param listener the {@link MemoryPressureListener} to register
+     */
+    void addMemoryPressureListener(Tenant tenant, MemoryPressureListener listener) {
+        if (listener == null) {
+            throw new NullPointerException();
+        }
+        tenant.memoryPressureListeners.add(listener);
+        this.numMemoryPressureListeners.incrementAndGet();
+    }
+
+    /**
+     * Unregisters a {@link MemoryPressureListener} from a {@link Tenant}.
+     *
+     * @param tenant   the {@link Tenant}
+     * @param listener the {@link MemoryPressureListener} to unregister
+     */
+    void removeMemoryPressureListener(Tenant tenant, MemoryPressureListener listener) {
+        if (tenant.memoryPressureListeners.remove(listener)) {
+            this.numMemoryPressureListeners.decrementAndGet();
+        }
     }
 
-    @Override
-    public long getFreeCapacity() {
-        return this.freeCapacity;
+    /**
+     * Lets {@link MemoryPressureListener}s be notified proactively, i.e., as soon as fewer than the given number of
+     * segments can be obtained without writing to disk (see {@link #startBackgroundSpilling(int)}). Regardless of
+     * this threshold, listeners are notified before segments are preempted and when the capacity is reduced.
+     *
+     * @param numSegments the number of segments that should be obtainable without writing to disk; {@code 0} to
+     *                    disable proactive notifications (the default)
+     */
+    public void setMemoryPressureThreshold(int numSegments) {
+        if (numSegments < 0) {
+            throw new IllegalArgumentException("Illegal threshold: " + numSegments);
+        }
+        this.memoryPressureThreshold = numSegments;
     }
 
-    @Override
-    synchronized public void resize(long newCapacity) throws CapacityExceededException {
-        if (newCapacity < 0) {
-            throw new IllegalArgumentException();
+    /**
+     * Notifies the {@link MemoryPressureListener}s of a single {@link Tenant}.
+     *
+     * @param tenant            the {@link Tenant} whose listeners should be notified
+     * @param requestedCapacity the main memory capacity (in bytes) that should be given back
+     * @return whether any listener has been notified
+     */
+    boolean relieveMemoryPressure(Tenant tenant, long requestedCapacity) {
+        return relieveMemoryPressure(Collections.singletonList(tenant), requestedCapacity);
+    }
+
+    /**
+     * Notifies the {@link MemoryPressureListener}s of the given {@link Tenant}s unless another thread already does
+     * so or no listeners are registered.
+     *
+     * @param tenants           the {@link Tenant}s whose listeners should be notified
+     * @param requestedCapacity the main memory capacity (in bytes) that should be given back
+     * @return whether any listener has been notified
+     */
+    private boolean relieveMemoryPressure(Iterable<Tenant> tenants, long requestedCapacity) {
+        if (this.numMemoryPressureListeners.get() == 0 || !this.isRelievingMemoryPressure.compareAndSet(false, true)) {
+            return false;
         }
-        this.capacity = newCapacity;
+        boolean isAnyListenerNotified = false;
+        try {
+            for (Tenant tenant : tenants) {
+                for (MemoryPressureListener listener : tenant.memoryPressureListeners) {
+                    try {
+                        listener.onMemoryPressure(requestedCapacity);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Memory pressure listener {} failed.", listener, e);
+                    }
+                    isAnyListenerNotified = true;
+                }
+            }
+        } finally {
+            this.isRelievingMemoryPressure.set(false);
+        }
+        return isAnyListenerNotified;
+    }
 
-        // If we need to shrink the main memory usage, go to the free segments at first.
-        while (this.allocatedCapacity > this.capacity) {
-            // Try to get a backed segment.
-            final MainMemorySegment freeSegment = drawFreeSegment();
-            if (freeSegment == null) break;
-            this.allocatedCapacity -= freeSegment.capacity();
+    /**
+     * Lets loading spilled segments wait for main memory if all of it is being accessed, rather than failing
+     * immediately with a {@link CapacityExceededException}. Loading is triggered by
+     * {@link VirtualMemorySegment#getReadAccess()} and {@link VirtualMemorySegment#getWriteAccess()}. The loading
+     * thread waits until another thread finishes an access or releases a segment.
+     *
+     * <p>Beware that a thread that waits for loading still holds all other accesses that it has acquired, so that
+     * threads waiting for each other can only resolve by running into the timeout.</p>
+     *
+     * @param timeout the maximum time to wait; {@code 0} to fail immediately (the default)
+     * @param unit    the {@link TimeUnit} of the {@code timeout}
+     */
+    public void setLoadTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Illegal timeout: " + timeout);
         }
+        this.loadTimeoutNanos = unit.toNanos(timeout);
+    }
 
-        // Next, go to the backed segments.
-        while (this.allocatedCapacity > this.capacity) {
-            // Try to get a backed segment.
-            final MainMemorySegment backedSegment = drawBackedSegment();
-            if (backedSegment == null) break;
-            this.allocatedCapacity -= backedSegment.capacity();
+    /**
+     * @return the statistics on the operation of this manager and its {@link ChildMemoryManager}s
+     */
+    public MemoryManagerStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * @return the number of free {@link MainMemorySegment}s
+     */
+    int countFreeSegments() {
+        int numSegments = countMagazineSegments();
+        for (StripedQueueableQueue<MainMemorySegment> freeQueue : this.freeQueues.values()) {
+            numSegments += freeQueue.size();
         }
+        return numSegments;
+    }
 
-        // When the eviction of free and backed segments was not sufficient, spill dirty segments and steal them.
-        while (this.allocatedCapacity > this.capacity) {
-            // Try to get a backed segment.
-            final MainMemorySegment dirtySegment;
-            try {
-                dirtySegment = drawDirtySegment();
-            } catch (IOException e) {
-                throw new ManagedMemoryException("Could not spill dirty segment when resizing the managed memory.", e);
+    /**
+     * @return the number of backed {@link MainMemorySegment}s that are not being accessed
+     */
+    int countBackedSegments() {
+        int numSegments = 0;
+        for (Tenant tenant : this.tenants) {
+            for (EvictionPolicy backedQueue : tenant.backedQueues) {
+                numSegments += backedQueue.size();
             }
-            if (dirtySegment == null) break;
-            this.allocatedCapacity -= dirtySegment.capacity();
         }
+        return numSegments;
+    }
 
-        if (this.allocatedCapacity > this.capacity) {
-            this.capacity = this.allocatedCapacity;
-            throw new CapacityExceededException("Could not resize the capacity as requested.");
+    /**
+     * @return the number of dirty {@link MainMemorySegment}s that are not being accessed
+     */
+    int countDirtySegments() {
+        int numSegments = 0;
+        for (Tenant tenant : this.tenants) {
+            for (EvictionPolicy spillQueue : tenant.spillQueues) {
+                numSegments += spillQueue.size();
+            }
         }
+        return numSegments;
+    }
+
+    /**
+     * @return whether this memory manager allocates the payloads of its segments off-heap
+     */
+    public boolean isUsingDirectMemory() {
+        return this.isUsingDirectMemory;
     }
 
     @Override
@@ -434,4 +1614,417 @@ public class GlobalMemoryManager implements MemoryManager {
         return String.format("GlobalMemoryManager[%d MB, %.1f%% used]",
                 capacity >>> 20, 100d * allocatedCapacity / capacity);
     }
+
+    /**
+     * A tenant is a share of the main memory of this manager. It owns the {@link VirtualMemorySegment}s that have
+     * been requested through it, keeps track of their resident {@link MainMemorySegment}s and provides the
+     * {@link MemoryCapabilities} to them.
+     */
+    class Tenant implements MemoryCapabilities {
+
+        /**
+         * The main memory capacity (in bytes) that is guaranteed to this tenant.
+         */
+        private final long minCapacity;
+
+        /**
+         * The main memory capacity (in bytes) that this tenant must not exceed.
+         */
+        private volatile long maxCapacity;
+
+        /**
+         * The main memory capacity (in bytes) of the {@link MainMemorySegment}s held by this tenant.
+         */
+        private final AtomicLong residentCapacity = new AtomicLong(0L);
+
+        /**
+         * Keep track of {@link MainMemorySegment}s that could be spilled to disk, indexed by {@link SegmentPriority}.
+         */
+        private final EvictionPolicy[] spillQueues = createEvictionPolicies();
+
+        /**
+         * Keep track of {@link MainMemorySegment}s that are backed, indexed by {@link SegmentPriority}.
+         */
+        private final EvictionPolicy[] backedQueues = createEvictionPolicies();
+
+        /**
+         * Tells whether the {@link #spillQueues} and {@link #backedQueues} retain accessed segments.
+         *
+         * @see EvictionPolicy#isRetainingAccessedSegments()
+         */
+        private final boolean isRetainingAccessedSegments = this.spillQueues[0].isRetainingAccessedSegments();
+
+        /**
+         * Keeps free {@link MainMemorySegment}s that remain accounted to this tenant or {@code null} if this tenant
+         * hands back free segments to the manager.
+         */
+        private final QueueableQueue<MainMemorySegment> reservedSegments;
+
+        /**
+         * {@link MemoryPressureListener}s that are notified when this tenant should give back main memory.
+         */
+        private final List<MemoryPressureListener> memoryPressureListeners = new CopyOnWriteArrayList<>();
+
+        /**
+         * Tells whether this tenant has been closed, i.e., it does not request memory anymore.
+         */
+        private volatile boolean isClosed = false;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param minCapacity         the main memory capacity (in bytes) that is guaranteed to this tenant
+         * @param maxCapacity         the main memory capacity (in bytes) that this tenant must not exceed
+         * @param isReservingSegments whether this tenant keeps its free segments for itself until it is closed
+         */
+        Tenant(long minCapacity, long maxCapacity, boolean isReservingSegments) {
+            this.minCapacity = minCapacity;
+            this.maxCapacity = maxCapacity;
+            this.reservedSegments = isReservingSegments ? new QueueableQueue<>() : null;
+        }
+
+        @Override
+        public void load(VirtualMemorySegment virtualMemorySegment) throws CapacityExceededException {
+            // Do some sanity checks.
+            if (virtualMemorySegment == null) {
+                throw new IllegalStateException();
+            }
+            if (virtualMemorySegment.getMainMemorySegment() != null) {
+                LOGGER.warn("Requested to load a main memory segment that is already there.");
+                return;
+            }
+            final DiskMemorySegment diskMemorySegment = virtualMemorySegment.getDiskMemorySegment();
+            if (diskMemorySegment == null) {
+                throw new IllegalStateException();
+            }
+
+            // Obtain a free MainMemorySegment.
+            GlobalMemoryManager.this.stats.recordAccess(false);
+            final MainMemorySegment freeSegment = obtainFreeMainMemorySegment(this, diskMemorySegment.getCapacity(),
+                    GlobalMemoryManager.this.loadTimeoutNanos);
+            if (freeSegment == null) {
+                throw new CapacityExceededException("Could not obtain free segment to load spilled memory.");
+            }
+
+            // Load the DiskMemorySegment into the MainMemorySegment.
+            final DiskOperator diskOperator = diskMemorySegment.getDiskOperator();
+            final long startTime = System.nanoTime();
+            try {
+                diskOperator.load(diskMemorySegment, freeSegment);
+            } catch (IOException e) {
+                throw new ManagedMemoryException("Could not load a memory segment from disk.", e);
+            }
+            GlobalMemoryManager.this.stats.recordLoad(diskMemorySegment.getSize(), System.nanoTime() - startTime);
+
+            // Update the MainMemorySegment state and integrate it into the Memory.
+            freeSegment.assignTo(virtualMemorySegment);
+            freeSegment.setState(SegmentState.BACKED);
+        }
+
+        @Override
+        public void loadEmpty(VirtualMemorySegment virtualMemorySegment) throws CapacityExceededException {
+            // Do some sanity checks.
+            if (virtualMemorySegment == null) {
+                throw new IllegalStateException();
+            }
+            if (virtualMemorySegment.getMainMemorySegment() != null) {
+                LOGGER.warn("Requested to load a main memory segment that is already there.");
+                return;
+            }
+            final DiskMemorySegment diskMemorySegment = virtualMemorySegment.getDiskMemorySegment();
+            if (diskMemorySegment == null) {
+                throw new IllegalStateException();
+            }
+
+            // Obtain a free MainMemorySegment.
+            GlobalMemoryManager.this.stats.recordSkippedLoad();
+            final MainMemorySegment freeSegment = obtainFreeMainMemorySegment(this, diskMemorySegment.getCapacity(),
+                    GlobalMemoryManager.this.loadTimeoutNanos);
+            if (freeSegment == null) {
+                throw new CapacityExceededException("Could not obtain free segment to load spilled memory.");
+            }
+
+            // Drop the outdated DiskMemorySegment rather than reading it.
+            virtualMemorySegment.setDiskMemorySegment(null);
+            diskMemorySegment.free();
+
+            // The MainMemorySegment is the only copy of the memory now.
+            freeSegment.assignTo(virtualMemorySegment);
+            freeSegment.setState(SegmentState.DIRTY);
+        }
+
+        @Override
+        public CompletableFuture<Void> loadAsync(VirtualMemorySegment virtualMemorySegment) {
+            // Do some sanity checks.
+            if (virtualMemorySegment == null) {
+                throw new IllegalStateException();
+            }
+            if (virtualMemorySegment.getMainMemorySegment() != null) {
+                LOGGER.warn("Requested to load a main memory segment that is already there.");
+                return CompletableFuture.completedFuture(null);
+            }
+            final DiskMemorySegment diskMemorySegment = virtualMemorySegment.getDiskMemorySegment();
+            if (diskMemorySegment == null) {
+                throw new IllegalStateException();
+            }
+
+            // Obtain a free MainMemorySegment without waiting for one or spilling any.
+            final MainMemorySegment freeSegment =
+                    obtainFreeMainMemorySegmentWithoutSpilling(this, diskMemorySegment.getCapacity());
+            if (freeSegment == null) {
+                // The next access will load the memory and record the miss.
+                return CompletableFuture.completedFuture(null);
+            }
+            GlobalMemoryManager.this.stats.recordAccess(false);
+
+            // Load the DiskMemorySegment into the MainMemorySegment.
+            final DiskOperator diskOperator = diskMemorySegment.getDiskOperator();
+            final long startTime = System.nanoTime();
+            return diskOperator.loadAsync(diskMemorySegment, freeSegment).whenComplete((ignore, exception) -> {
+                if (exception != null) {
+                    // Give back the MainMemorySegment, so that the memory can be loaded synchronously upon access.
+                    LOGGER.warn("Could not load a memory segment from disk asynchronously.", exception);
+                    freeSegment.reset();
+                    if (!reserve(freeSegment)) {
+                        release(freeSegment);
+                        returnFreeSegment(freeSegment);
+                    }
+                    return;
+                }
+                GlobalMemoryManager.this.stats.recordLoad(diskMemorySegment.getSize(), System.nanoTime() - startTime);
+
+                // Update the MainMemorySegment state and integrate it into the Memory.
+                freeSegment.assignTo(virtualMemorySegment);
+                freeSegment.setState(SegmentState.BACKED);
+            });
+        }
+
+        @Override
+        public void notifyHit(VirtualMemorySegment virtualMemorySegment) {
+            GlobalMemoryManager.this.stats.recordAccess(true);
+        }
+
+        @Override
+        public void returnMemory(MainMemorySegment mainMemorySegment, DiskMemorySegment diskMemorySegment) {
+            if (mainMemorySegment != null) {
+                mainMemorySegment.reset();
+                if (!reserve(mainMemorySegment)) {
+                    release(mainMemorySegment);
+                    returnFreeSegmentToMagazine(mainMemorySegment);
+                }
+            }
+
+            if (diskMemorySegment != null) {
+                diskMemorySegment.free();
+            }
+        }
+
+        @Override
+        public void enqueue(MainMemorySegment mainMemorySegment) {
+            mainMemorySegment.shouldBeUnlinked();
+
+            // Determine an appropriate queue.
+            switch (mainMemorySegment.getState()) {
+                case FREE:
+                    returnFreeSegment(mainMemorySegment);
+                    break;
+                case BACKED:
+                    this.backedQueues[getPriority(mainMemorySegment).ordinal()].add(mainMemorySegment);
+                    signalSegmentAvailability();
+                    break;
+                case DIRTY:
+                    this.spillQueues[getPriority(mainMemorySegment).ordinal()].add(mainMemorySegment);
+                    signalSegmentAvailability();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown/unhandled segment state: " + mainMemorySegment.getState());
+            }
+        }
+
+        @Override
+        public boolean isRetainingAccessedSegments() {
+            return this.isRetainingAccessedSegments;
+        }
+
+        @Override
+        public void back(VirtualMemorySegment virtualMemorySegment) {
+            final MainMemorySegment mms = virtualMemorySegment.getMainMemorySegment();
+            if (mms == null || mms.getState() != SegmentState.DIRTY) {
+                return;
+            }
+
+            try {
+                spill(mms);
+            } catch (IOException e) {
+                throw new ManagedMemoryException(e);
+            }
+        }
+
+        @Override
+        public CompletableFuture<Void> backAsync(VirtualMemorySegment virtualMemorySegment) {
+            final MainMemorySegment mms = virtualMemorySegment.getMainMemorySegment();
+            if (mms == null || mms.getState() != SegmentState.DIRTY) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // Determine whether there already is a disk memory segment for this main memory segment.
+            // Then write the main memory segment.
+            final long startTime = System.nanoTime();
+            final DiskMemorySegment existingDiskMemorySegment = virtualMemorySegment.getDiskMemorySegment();
+            final CompletableFuture<DiskMemorySegment> writingFuture;
+            if (existingDiskMemorySegment != null) {
+                writingFuture = existingDiskMemorySegment.getDiskOperator()
+                        .writeAsync(mms, existingDiskMemorySegment)
+                        .thenApply(ignore -> existingDiskMemorySegment);
+            } else {
+                writingFuture = selectDiskOperator().writeAsync(mms);
+            }
+            return writingFuture.handle((diskMemorySegment, exception) -> {
+                if (exception != null) {
+                    // The segment just stays dirty, so that it is spilled as usual.
+                    LOGGER.warn("Could not back a memory segment asynchronously.", exception);
+                    GlobalMemoryManager.this.stats.recordFailedSpill();
+                    return null;
+                }
+                virtualMemorySegment.setDiskMemorySegment(diskMemorySegment);
+                GlobalMemoryManager.this.stats.recordSpill(diskMemorySegment.getSize(), System.nanoTime() - startTime);
+                mms.setState(SegmentState.BACKED);
+                return null;
+            });
+        }
+
+        /**
+         * Determines the {@link SegmentPriority} of a given {@link MainMemorySegment}.
+         *
+         * @param mainMemorySegment the {@link MainMemorySegment}
+         * @return the {@link SegmentPriority} of its owner or {@link SegmentPriority#NORMAL} if it has no owner
+         */
+        private SegmentPriority getPriority(MainMemorySegment mainMemorySegment) {
+            final VirtualMemorySegment owner = mainMemorySegment.getOwner();
+            return owner == null ? SegmentPriority.NORMAL : owner.getPriority();
+        }
+
+        /**
+         * Keeps a free {@link MainMemorySegment} in the {@link #reservedSegments} if this tenant reserves segments and
+         * is not closed.
+         *
+         * @param freeSegment the reset {@link MainMemorySegment}
+         * @return whether the {@link MainMemorySegment} has been kept
+         */
+        private boolean reserve(MainMemorySegment freeSegment) {
+            if (this.reservedSegments == null) {
+                return false;
+            }
+            synchronized (this) {
+                if (this.isClosed) {
+                    return false;
+                }
+                this.reservedSegments.add(freeSegment);
+            }
+            signalSegmentAvailability();
+            return true;
+        }
+
+        /**
+         * Hands back the {@link #reservedSegments} to the manager. Must be called after closing this tenant.
+         */
+        private void releaseReservedSegments() {
+            if (this.reservedSegments == null) {
+                return;
+            }
+            synchronized (this) {
+                MainMemorySegment reservedSegment;
+                while ((reservedSegment = this.reservedSegments.poll()) != null) {
+                    release(reservedSegment);
+                    returnFreeSegment(reservedSegment);
+                }
+            }
+        }
+
+        /**
+         * Accounts further main memory to this tenant unless it would exceed its {@link #maxCapacity} then.
+         *
+         * @param requestedCapacity the further main memory (in bytes)
+         * @return whether the main memory has been accounted
+         */
+        boolean tryToAccount(long requestedCapacity) {
+            long residentCapacity;
+            do {
+                residentCapacity = this.residentCapacity.get();
+                if (residentCapacity + requestedCapacity > this.maxCapacity) {
+                    return false;
+                }
+            } while (!this.residentCapacity.compareAndSet(residentCapacity, residentCapacity + requestedCapacity));
+            return true;
+        }
+
+        /**
+         * @return the main memory capacity (in bytes) held by this tenant beyond its guaranteed capacity
+         */
+        long getExcessCapacity() {
+            return this.residentCapacity.get() - (this.isClosed ? 0L : this.minCapacity);
+        }
+
+        /**
+         * Accounts that this tenant does not hold the given {@link MainMemorySegment} anymore.
+         *
+         * @param mainMemorySegment the released {@link MainMemorySegment}
+         */
+        private void release(MainMemorySegment mainMemorySegment) {
+            unaccount(mainMemorySegment.capacity());
+        }
+
+        /**
+         * Accounts that this tenant does not hold the given main memory anymore, e.g., to revert
+         * {@link #tryToAccount(long)}.
+         *
+         * @param capacity the main memory (in bytes)
+         */
+        private void unaccount(long capacity) {
+            this.residentCapacity.addAndGet(-capacity);
+            unregisterIfDrained();
+        }
+
+        /**
+         * Removes this tenant from the {@link #tenants} if it is closed and does not hold main memory anymore.
+         */
+        private void unregisterIfDrained() {
+            if (this.isClosed && this.residentCapacity.get() == 0L) {
+                GlobalMemoryManager.this.tenants.remove(this);
+            }
+        }
+
+        long getMinCapacity() {
+            return this.minCapacity;
+        }
+
+        long getMaxCapacity() {
+            return this.maxCapacity;
+        }
+
+        void setMaxCapacity(long maxCapacity) {
+            this.maxCapacity = maxCapacity;
+        }
+
+        long getResidentCapacity() {
+            return this.residentCapacity.get();
+        }
+
+        boolean isClosed() {
+            return this.isClosed;
+        }
+    }
+
+    /**
+     * Creates an {@link EvictionPolicy} for each {@link SegmentPriority}.
+     *
+     * @return the {@link EvictionPolicy}s, indexed by {@link SegmentPriority#ordinal()}
+     */
+    private EvictionPolicy[] createEvictionPolicies() {
+        final EvictionPolicy[] policies = new EvictionPolicy[SegmentPriority.values().length];
+        for (int i = 0; i < policies.length; i++) {
+            policies[i] = this.evictionPolicyFactory.create();
+        }
+        return policies;
+    }
 }
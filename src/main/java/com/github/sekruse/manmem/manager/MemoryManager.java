@@ -1,7 +1,11 @@
 package com.github.sekruse.manmem.manager;
 
+import com.github.sekruse.manmem.memory.SegmentPriority;
 import com.github.sekruse.manmem.memory.VirtualMemorySegment;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Interace to a memory manager.
  */
@@ -15,6 +19,88 @@ public interface MemoryManager {
      */
     VirtualMemorySegment requestDefaultMemory() throws CapacityExceededException;
 
+    /**
+     * Request the default share of memory served by this memory manager with a given priority to stay in main memory.
+     *
+     * @param priority the {@link SegmentPriority} of the requested memory
+     * @return a {@link VirtualMemorySegment} representing the requested memory
+     * @throws CapacityExceededException if the memory manager cannot serve the request due to missing capacities
+     * @see VirtualMemorySegment#setPriority(SegmentPriority)
+     */
+    VirtualMemorySegment requestDefaultMemory(SegmentPriority priority) throws CapacityExceededException;
+
+    /**
+     * Request the default share of memory served by this memory manager. If all main memory is currently being
+     * accessed, wait for other threads to finish their accesses rather than failing immediately.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the {@link TimeUnit} of the {@code timeout}
+     * @return a {@link VirtualMemorySegment} representing the requested memory
+     * @throws CapacityExceededException if the memory manager cannot serve the request within the timeout or the
+     *                                   thread has been interrupted while waiting
+     */
+    VirtualMemorySegment requestDefaultMemory(long timeout, TimeUnit unit) throws CapacityExceededException;
+
+    /**
+     * Request several default shares of memory served by this memory manager at once. Either all of them are served
+     * or none, so that clients do not run out of memory halfway through.
+     *
+     * @param numSegments the number of requested shares of memory
+     * @return {@link VirtualMemorySegment}s representing the requested memory
+     * @throws CapacityExceededException if the memory manager cannot serve all of the shares
+     */
+    List<VirtualMemorySegment> requestDefaultMemory(int numSegments) throws CapacityExceededException;
+
+    /**
+     * Reserves main memory for a number of default segments. The reserved main memory is obtained up front and
+     * cannot be preempted by other clients until the {@link Reservation} is closed, so that clients can determine
+     * how many segments they can keep resident at the same time (e.g., the fan-in of a merge) before they start.
+     * Reservations cannot be nested, i.e., a {@link Reservation} itself does not support this method.
+     *
+     * @param numSegments the number of default segments to reserve
+     * @return a {@link Reservation} that serves the reserved segments
+     * @throws CapacityExceededException     if the segments cannot be reserved
+     * @throws UnsupportedOperationException if this memory manager is a {@link Reservation}
+     */
+    Reservation reserve(int numSegments) throws CapacityExceededException;
+
+    /**
+     * Request a piece of memory of at least the given size. The actual size is determined by
+     * {@link MemoryManagers#toSizeClass(int, int)}.
+     *
+     * @param size the requested amount of memory (in bytes)
+     * @return a {@link VirtualMemorySegment} representing the requested memory
+     * @throws CapacityExceededException if the memory manager cannot serve the request due to missing capacities
+     */
+    VirtualMemorySegment requestMemory(int size) throws CapacityExceededException;
+
+    /**
+     * Request a piece of memory of at least the given size with a given priority to stay in main memory. The actual
+     * size is determined by {@link MemoryManagers#toSizeClass(int, int)}.
+     *
+     * @param size     the requested amount of memory (in bytes)
+     * @param priority the {@link SegmentPriority} of the requested memory
+     * @return a {@link VirtualMemorySegment} representing the requested memory
+     * @throws CapacityExceededException if the memory manager cannot serve the request due to missing capacities
+     */
+    VirtualMemorySegment requestMemory(int size, SegmentPriority priority) throws CapacityExceededException;
+
+    /**
+     * Registers a {@link MemoryPressureListener} that is notified when this memory manager runs short of main memory,
+     * i.e., before it preempts segments and when its capacity is reduced.
+     *
+     * @param listener the {@link MemoryPressureListener} to register
+     */
+    void addMemoryPressureListener(MemoryPressureListener listener);
+
+    /**
+     * Unregisters a {@link MemoryPressureListener}.
+     *
+     * @param listener the {@link MemoryPressureListener} to unregister
+     * @see #addMemoryPressureListener(MemoryPressureListener)
+     */
+    void removeMemoryPressureListener(MemoryPressureListener listener);
+
     /**
      * Closes this memory manager and tells to release any used resources.
      */
@@ -42,11 +128,12 @@ public interface MemoryManager {
     long getFreeCapacity();
 
     /**
-     * Change the capacity of managed main memory.
+     * Change the capacity of managed main memory. The size of a {@link Reservation} is fixed, though.
      *
      * @param capacity the new capacity in bytes
-     * @throws CapacityExceededException if the capacity is lowered and the current state of managed memory does not
-     *                                   fit the new capacity
+     * @throws CapacityExceededException     if the capacity is lowered and the current state of managed memory does
+     *                                       not fit the new capacity
+     * @throws UnsupportedOperationException if this memory manager is a {@link Reservation}
      */
     void resize(long capacity) throws CapacityExceededException;
 }
@@ -0,0 +1,303 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects statistics on the operation of a {@link GlobalMemoryManager}, including its {@link ChildMemoryManager}s.
+ * Counters are updated concurrently and can be read at any time; queue lengths are determined upon request.
+ *
+ * @see GlobalMemoryManager#getStats()
+ */
+public class MemoryManagerStats {
+
+    /**
+     * The ways how a {@link GlobalMemoryManager} obtains main memory segments, in the order in which they are tried.
+     */
+    public enum Source {
+
+        /**
+         * A segment of a {@link Reservation} has been used.
+         */
+        RESERVED,
+
+        /**
+         * A free segment has been reused.
+         */
+        FREE,
+
+        /**
+         * A new segment has been allocated from unused capacity.
+         */
+        NEW,
+
+        /**
+         * Free segments of a different size have been discarded to allocate a new segment.
+         */
+        RESHAPED,
+
+        /**
+         * A segment of a tenant exceeding its guaranteed capacity has been preempted.
+         */
+        FOREIGN_PREEMPTION,
+
+        /**
+         * A segment of the requesting tenant has been preempted.
+         */
+        OWN_PREEMPTION,
+
+        /**
+         * A segment of the requesting tenant has been preempted, because the tenant reached its maximum capacity.
+         */
+        QUOTA_PREEMPTION
+
+    }
+
+    /**
+     * The {@link GlobalMemoryManager} that is described.
+     */
+    private final GlobalMemoryManager memoryManager;
+
+    /**
+     * Counts accesses to memory that was resident in main memory.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Counts accesses to memory that had to be loaded from disk.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Counts accesses to spilled memory that is overwritten entirely and therefore did not have to be loaded.
+     */
+    private final LongAdder skippedLoads = new LongAdder();
+
+    /**
+     * Measures the latencies of loading segments from disk.
+     */
+    private final LatencyHistogram loadLatencies = new LatencyHistogram();
+
+    /**
+     * Measures the latencies of spilling segments to disk.
+     */
+    private final LatencyHistogram spillLatencies = new LatencyHistogram();
+
+    /**
+     * Counts the bytes loaded from disk.
+     */
+    private final LongAdder loadedBytes = new LongAdder();
+
+    /**
+     * Counts the bytes spilled to disk.
+     */
+    private final LongAdder spilledBytes = new LongAdder();
+
+    /**
+     * Counts the segments that could not be written to disk in the background.
+     */
+    private final LongAdder failedSpills = new LongAdder();
+
+    /**
+     * Counts the obtained main memory segments, indexed by {@link Source#ordinal()}.
+     */
+    private final LongAdder[] obtainedSegments = new LongAdder[Source.values().length];
+
+    /**
+     * Counts how often a {@link CapacityExceededException} has been raised.
+     */
+    private final LongAdder capacityExceededExceptions = new LongAdder();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager the {@link GlobalMemoryManager} to be described
+     */
+    MemoryManagerStats(GlobalMemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
+        for (int i = 0; i < this.obtainedSegments.length; i++) {
+            this.obtainedSegments[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records an access to memory.
+     *
+     * @param isHit whether the memory was resident in main memory
+     */
+    void recordAccess(boolean isHit) {
+        (isHit ? this.hits : this.misses).increment();
+    }
+
+    /**
+     * Records an access to spilled memory that did not have to be loaded from disk, because it is overwritten.
+     */
+    void recordSkippedLoad() {
+        this.skippedLoads.increment();
+    }
+
+    /**
+     * Records the loading of a segment from disk.
+     *
+     * @param numBytes the number of loaded bytes
+     * @param nanos    the duration of the loading in nanoseconds
+     */
+    void recordLoad(long numBytes, long nanos) {
+        this.loadedBytes.add(numBytes);
+        this.loadLatencies.record(nanos);
+    }
+
+    /**
+     * Records the spilling of a segment to disk.
+     *
+     * @param numBytes the number of spilled bytes
+     * @param nanos    the duration of the spilling in nanoseconds
+     */
+    void recordSpill(long numBytes, long nanos) {
+        this.spilledBytes.add(numBytes);
+        this.spillLatencies.record(nanos);
+    }
+
+    /**
+     * Records that a segment could not be written to disk in the background.
+     */
+    void recordFailedSpill() {
+        this.failedSpills.increment();
+    }
+
+    /**
+     * Records that a main memory segment has been obtained.
+     *
+     * @param source how the segment has been obtained
+     */
+    void recordObtainedSegment(Source source) {
+        this.obtainedSegments[source.ordinal()].increment();
+    }
+
+    /**
+     * Records that a {@link CapacityExceededException} has been raised.
+     */
+    void recordCapacityExceeded() {
+        this.capacityExceededExceptions.increment();
+    }
+
+    /**
+     * @return the number of accesses to memory that was resident in main memory
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of accesses to memory that had to be loaded from disk
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the number of accesses to spilled memory that did not have to be loaded from disk, because the memory
+     * was overwritten; these are counted neither as hits nor as misses
+     */
+    public long getSkippedLoads() {
+        return this.skippedLoads.sum();
+    }
+
+    /**
+     * @return the share of accesses to memory that was resident in main memory or {@code NaN} if there were no
+     * accesses
+     */
+    public double getHitRatio() {
+        final long hits = getHits(), accesses = hits + getMisses();
+        return accesses == 0L ? Double.NaN : hits / (double) accesses;
+    }
+
+    /**
+     * @return the latencies of loading segments from disk
+     */
+    public LatencyHistogram getLoadLatencies() {
+        return this.loadLatencies;
+    }
+
+    /**
+     * @return the latencies of spilling segments to disk
+     */
+    public LatencyHistogram getSpillLatencies() {
+        return this.spillLatencies;
+    }
+
+    /**
+     * @return the number of bytes loaded from disk
+     */
+    public long getLoadedBytes() {
+        return this.loadedBytes.sum();
+    }
+
+    /**
+     * @return the number of bytes spilled to disk
+     */
+    public long getSpilledBytes() {
+        return this.spilledBytes.sum();
+    }
+
+    /**
+     * @return the number of segments that could not be written to disk in the background and stayed dirty
+     */
+    public long getFailedSpills() {
+        return this.failedSpills.sum();
+    }
+
+    /**
+     * @param source a way to obtain main memory segments
+     * @return the number of main memory segments obtained in the given way
+     */
+    public long getObtainedSegments(Source source) {
+        return this.obtainedSegments[source.ordinal()].sum();
+    }
+
+    /**
+     * @return how often a {@link CapacityExceededException} has been raised
+     */
+    public long getCapacityExceededExceptions() {
+        return this.capacityExceededExceptions.sum();
+    }
+
+    /**
+     * @return the current number of free main memory segments
+     */
+    public int getNumFreeSegments() {
+        return this.memoryManager.countFreeSegments();
+    }
+
+    /**
+     * @return the current number of backed main memory segments that are not being accessed
+     */
+    public int getNumBackedSegments() {
+        return this.memoryManager.countBackedSegments();
+    }
+
+    /**
+     * @return the current number of dirty main memory segments that are not being accessed
+     */
+    public int getNumDirtySegments() {
+        return this.memoryManager.countDirtySegments();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("MemoryManagerStats[");
+        sb.append(String.format("hits=%d, misses=%d, skippedLoads=%d, loaded=%d B, spilled=%d B, failedSpills=%d, "
+                        + "loads=%s, spills=%s, obtained={",
+                getHits(), getMisses(), getSkippedLoads(), getLoadedBytes(), getSpilledBytes(), getFailedSpills(),
+                this.loadLatencies, this.spillLatencies));
+        String separator = "";
+        for (Source source : Source.values()) {
+            sb.append(separator).append(source).append('=').append(getObtainedSegments(source));
+            separator = ", ";
+        }
+        sb.append(String.format("}, capacityExceeded=%d, free=%d, backed=%d, dirty=%d]",
+                getCapacityExceededExceptions(), getNumFreeSegments(), getNumBackedSegments(), getNumDirtySegments()));
+        return sb.toString();
+    }
+}
@@ -5,6 +5,28 @@ package com.github.sekruse.manmem.manager;
  */
 public class MemoryManagers {
 
+    /**
+     * The largest size (in bytes) of a segment that can be requested via {@link MemoryManager#requestMemory(int)}.
+     */
+    public static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /**
+     * Determine the size class for a requested amount of memory, i.e., the size of the segment that serves the
+     * request. Size classes are the default segment size and all powers of two. Among those, the smallest one that
+     * can host the requested memory is chosen.
+     *
+     * @param size               the requested amount of memory (in bytes)
+     * @param defaultSegmentSize the default segment size (in bytes)
+     * @return the size (in bytes) of the segment to serve the request
+     */
+    public static int toSizeClass(int size, int defaultSegmentSize) {
+        if (size < 1 || size > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Illegal segment size: " + size);
+        }
+        final int powerOfTwo = Integer.bitCount(size) == 1 ? size : Integer.highestOneBit(size) << 1;
+        return (defaultSegmentSize >= size && defaultSegmentSize < powerOfTwo) ? defaultSegmentSize : powerOfTwo;
+    }
+
     /**
      * Calculate the number of required segments to host a given amount of memory.
      *
@@ -0,0 +1,24 @@
+package com.github.sekruse.manmem.manager;
+
+/**
+ * A memory pressure listener is notified when a {@link MemoryManager} is about to preempt segments, so that clients
+ * can give back memory voluntarily, e.g., by dropping cached segments via
+ * {@link com.github.sekruse.manmem.memory.VirtualMemorySegment#release()}. This is much cheaper than preempting
+ * segments that have to be written to disk and read again later on.
+ *
+ * <p>Listeners are called on the thread that requests memory, possibly while it holds accesses to other segments.
+ * Hence, they should return quickly and must not wait for other threads.</p>
+ *
+ * @see MemoryManager#addMemoryPressureListener(MemoryPressureListener)
+ */
+public interface MemoryPressureListener {
+
+    /**
+     * Notifies that the {@link MemoryManager} runs short of main memory.
+     *
+     * @param requestedCapacity the main memory capacity (in bytes) that the {@link MemoryManager} would like to be
+     *                          given back; releasing less or nothing is fine
+     */
+    void onMemoryPressure(long requestedCapacity);
+
+}
@@ -0,0 +1,187 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.memory.SegmentPriority;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A reservation is a {@link MemoryManager} that holds main memory for a fixed number of default segments. This main
+ * memory is obtained when the reservation is created and is not preempted by other memory managers. Segments that are
+ * requested from the reservation are served from the reserved main memory; if they are released, their main memory
+ * returns to the reservation. Only when more segments are requested than reserved, the reservation preempts its own
+ * segments.
+ * <p>As its size is fixed, a reservation can neither be {@link #resize(long) resized} nor
+ * {@link #reserve(int) reserve} segments itself.</p>
+ *
+ * @see MemoryManager#reserve(int)
+ */
+public class Reservation implements MemoryManager {
+
+    /**
+     * The {@link GlobalMemoryManager} that the main memory is reserved from.
+     */
+    private final GlobalMemoryManager parent;
+
+    /**
+     * The share of the {@link #parent} that holds the reserved main memory.
+     */
+    private final GlobalMemoryManager.Tenant tenant;
+
+    /**
+     * The number of reserved default segments.
+     */
+    private final int numSegments;
+
+    /**
+     * Is run when this reservation is closed or {@code null}.
+     */
+    private final Runnable closeHook;
+
+    /**
+     * Tells whether this reservation has been closed.
+     */
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+    /**
+     * Creates a new instance.
+     *
+     * @param parent      the {@link GlobalMemoryManager} that the main memory is reserved from
+     * @param tenant      the share of the {@code parent} that holds the reserved main memory
+     * @param numSegments the number of reserved default segments
+     * @param closeHook   is run when this reservation is closed or {@code null}
+     */
+    Reservation(GlobalMemoryManager parent, GlobalMemoryManager.Tenant tenant, int numSegments, Runnable closeHook) {
+        this.parent = parent;
+        this.tenant = tenant;
+        this.numSegments = numSegments;
+        this.closeHook = closeHook;
+    }
+
+    /**
+     * @return the number of reserved default segments
+     */
+    public int getNumSegments() {
+        return this.numSegments;
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory() throws CapacityExceededException {
+        return requestDefaultMemory(SegmentPriority.NORMAL);
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory(SegmentPriority priority) throws CapacityExceededException {
+        ensureNotClosed();
+        return this.parent.requestMemory(this.tenant, this.parent.getDefaultSegmentSize(), priority);
+    }
+
+    @Override
+    public VirtualMemorySegment requestDefaultMemory(long timeout, TimeUnit unit) throws CapacityExceededException {
+        ensureNotClosed();
+        return this.parent.requestMemory(this.tenant, this.parent.getDefaultSegmentSize(), SegmentPriority.NORMAL,
+                unit.toNanos(timeout));
+    }
+
+    @Override
+    public List<VirtualMemorySegment> requestDefaultMemory(int numSegments) throws CapacityExceededException {
+        ensureNotClosed();
+        return this.parent.requestMemory(this.tenant, this.parent.getDefaultSegmentSize(), SegmentPriority.NORMAL,
+                numSegments);
+    }
+
+    /**
+     * Reservations cannot be nested.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Reservation reserve(int numSegments) {
+        throw new UnsupportedOperationException("Cannot reserve segments within a reservation.");
+    }
+
+    @Override
+    public VirtualMemorySegment requestMemory(int size) throws CapacityExceededException {
+        return requestMemory(size, SegmentPriority.NORMAL);
+    }
+
+    @Override
+    public VirtualMemorySegment requestMemory(int size, SegmentPriority priority) throws CapacityExceededException {
+        ensureNotClosed();
+        final int segmentSize = MemoryManagers.toSizeClass(size, this.parent.getDefaultSegmentSize());
+        return this.parent.requestMemory(this.tenant, segmentSize, priority);
+    }
+
+    @Override
+    public void addMemoryPressureListener(MemoryPressureListener listener) {
+        this.parent.addMemoryPressureListener(this.tenant, listener);
+    }
+
+    @Override
+    public void removeMemoryPressureListener(MemoryPressureListener listener) {
+        this.parent.removeMemoryPressureListener(this.tenant, listener);
+    }
+
+    /**
+     * Gives the reserved main memory back. {@link VirtualMemorySegment}s that have been requested from this
+     * reservation remain valid but may be preempted from now on.
+     */
+    @Override
+    public void close() {
+        if (this.isClosed.compareAndSet(false, true)) {
+            this.parent.closeTenant(this.tenant);
+            if (this.closeHook != null) {
+                this.closeHook.run();
+            }
+        }
+    }
+
+    @Override
+    public int getDefaultSegmentSize() {
+        return this.parent.getDefaultSegmentSize();
+    }
+
+    @Override
+    public long getMaximumCapacity() {
+        return this.tenant.getMaxCapacity();
+    }
+
+    @Override
+    public long getAllocatedCapacity() {
+        return this.tenant.getResidentCapacity();
+    }
+
+    /**
+     * @return the reserved main memory capacity (in bytes) that is not used by any segment of this reservation
+     */
+    @Override
+    public long getFreeCapacity() {
+        return Math.max(0L, this.tenant.getMaxCapacity() - this.tenant.getResidentCapacity());
+    }
+
+    /**
+     * The size of a reservation is fixed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void resize(long capacity) {
+        throw new UnsupportedOperationException("Cannot resize a reservation.");
+    }
+
+    /**
+     * @throws IllegalStateException if this reservation has been closed
+     */
+    private void ensureNotClosed() {
+        if (this.tenant.isClosed()) {
+            throw new IllegalStateException("Reservation is already closed.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Reservation[%d x %d bytes]", this.numSegments, getDefaultSegmentSize());
+    }
+}
@@ -5,6 +5,8 @@ import com.github.sekruse.manmem.memory.DiskMemorySegment;
 import com.github.sekruse.manmem.memory.MainMemorySegment;
 import com.github.sekruse.manmem.memory.VirtualMemorySegment;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This class encapsulates capabilities that are needed for {@link VirtualMemorySegment} to operate.
  */
@@ -19,6 +21,36 @@ public interface MemoryCapabilities {
      */
     void load(VirtualMemorySegment virtualMemorySegment) throws CapacityExceededException;
 
+    /**
+     * Provides a {@link com.github.sekruse.manmem.memory.MainMemorySegment} for a {@link VirtualMemorySegment} that
+     * has been spilled without loading its contents. Instead, its {@link DiskMemorySegment} is freed.
+     *
+     * @param virtualMemorySegment the {@link VirtualMemorySegment} that has been spilled and is about to be overwritten
+     * @throws CapacityExceededException if no {@link com.github.sekruse.manmem.memory.MainMemorySegment} could be
+     *                                   obtained
+     */
+    void loadEmpty(VirtualMemorySegment virtualMemorySegment) throws CapacityExceededException;
+
+    /**
+     * Starts to load the {@link com.github.sekruse.manmem.memory.MainMemorySegment} for a
+     * {@link VirtualMemorySegment} that has been spilled. Unlike {@link #load(VirtualMemorySegment)}, this method
+     * neither waits for capacities nor spills other segments. The {@link VirtualMemorySegment} must not be accessed
+     * until the returned future is completed.
+     *
+     * @param virtualMemorySegment the {@link VirtualMemorySegment} that has been spilled
+     * @return a future that is completed when the loading is done; it is completed right away without loading
+     * anything if no {@link com.github.sekruse.manmem.memory.MainMemorySegment} could be obtained
+     */
+    CompletableFuture<Void> loadAsync(VirtualMemorySegment virtualMemorySegment);
+
+    /**
+     * Notifies that the {@link MainMemorySegment} of a {@link VirtualMemorySegment} has been accessed while being
+     * resident, i.e., without {@link #load(VirtualMemorySegment) loading} it.
+     *
+     * @param virtualMemorySegment the accessed {@link VirtualMemorySegment}
+     */
+    void notifyHit(VirtualMemorySegment virtualMemorySegment);
+
     /**
      * Return a piece of memory to the manager. This ends the lifecycle of the memory object.
      *
@@ -34,6 +66,15 @@ public interface MemoryCapabilities {
      */
     void enqueue(MainMemorySegment mainMemorySegment);
 
+    /**
+     * Tells whether an enqueued {@link MainMemorySegment} may stay in its queue while it is being accessed, so that
+     * the access does not need to dequeue and enqueue it again.
+     *
+     * @return whether accessed {@link MainMemorySegment}s may stay enqueued
+     * @see com.github.sekruse.manmem.manager.eviction.EvictionPolicy#isRetainingAccessedSegments()
+     */
+    boolean isRetainingAccessedSegments();
+
     /**
      * Writes the {@link MainMemorySegment} of the given {@link VirtualMemorySegment}. Assumes that the
      * {@link VirtualMemorySegment#getMainMemorySegmentLock()} is held.
@@ -41,4 +82,14 @@ public interface MemoryCapabilities {
      * @param virtualMemorySegment the {@link VirtualMemorySegment} to back
      */
     void back(VirtualMemorySegment virtualMemorySegment);
+
+    /**
+     * Writes the {@link MainMemorySegment} of the given {@link VirtualMemorySegment} asynchronously. The
+     * {@link MainMemorySegment} must neither be modified nor preempted until the returned future is completed, and
+     * there must not be concurrent calls for the same {@link VirtualMemorySegment}.
+     *
+     * @param virtualMemorySegment the {@link VirtualMemorySegment} to back
+     * @return a future that is completed when the {@link MainMemorySegment} is backed
+     */
+    CompletableFuture<Void> backAsync(VirtualMemorySegment virtualMemorySegment);
 }
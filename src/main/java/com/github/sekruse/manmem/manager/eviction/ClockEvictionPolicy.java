@@ -0,0 +1,67 @@
+package com.github.sekruse.manmem.manager.eviction;
+
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+import com.github.sekruse.manmem.util.StripedQueueableQueue;
+
+/**
+ * This policy implements the CLOCK algorithm: The {@link MainMemorySegment}s form a ring that is swept by a clock
+ * hand. Segments that have been accessed since the hand passed them, as told by their
+ * {@link MainMemorySegment#getAccessCount()}, are granted a second chance and their reference is cleared.
+ * The first unreferenced segment is preempted. To avoid lock contention, there is a ring per
+ * {@link StripedQueueableQueue stripe}.
+ * <p>Segments stay in the ring while they are being accessed, so an access only sets the reference, i.e., increments
+ * the access count, rather than relinking the segment. Only write accesses to segments that are not dirty relink
+ * them, because they move the segments into another policy.</p>
+ */
+public class ClockEvictionPolicy implements EvictionPolicy {
+
+    /**
+     * Holds the {@link MainMemorySegment}s. The heads of its stripes are the positions of the clock hands.
+     */
+    private final StripedQueueableQueue<MainMemorySegment> ring = new StripedQueueableQueue<>();
+
+    @Override
+    public void add(MainMemorySegment mainMemorySegment) {
+        this.ring.add(mainMemorySegment);
+    }
+
+    @Override
+    public MainMemorySegment poll() {
+        return this.ring.poll(ClockEvictionPolicy::isReferenced);
+    }
+
+    /**
+     * Checks whether the given {@link MainMemorySegment} is referenced and clears its reference.
+     *
+     * @param mainMemorySegment the {@link MainMemorySegment} to check
+     * @return whether it was referenced
+     */
+    private static boolean isReferenced(MainMemorySegment mainMemorySegment) {
+        if (mainMemorySegment.getAccessCount() == 0) {
+            return false;
+        }
+        mainMemorySegment.clearAccessCount();
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return this.ring.size();
+    }
+
+    @Override
+    public boolean isRetainingAccessedSegments() {
+        return true;
+    }
+
+    /**
+     * Factory for {@link ClockEvictionPolicy}s.
+     */
+    public static class Factory implements EvictionPolicy.Factory {
+
+        @Override
+        public EvictionPolicy create() {
+            return new ClockEvictionPolicy();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.sekruse.manmem.manager.eviction;
+
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+import com.github.sekruse.manmem.util.QueueableQueue;
+
+/**
+ * An eviction policy keeps track of {@link MainMemorySegment}s that could be preempted and decides which of them
+ * should be preempted next.
+ * <p>NB: Implementations must keep the segments in {@link QueueableQueue}s (or stripes thereof, see
+ * {@link com.github.sekruse.manmem.util.StripedQueueableQueue}), because segments remove themselves from
+ * their {@link MainMemorySegment#getQueue()} once they are accessed unless the policy
+ * {@link #isRetainingAccessedSegments() retains accessed segments}. Also, polling a segment must acquire the lock of
+ * its owner as described in {@link MainMemorySegment}.</p>
+ */
+public interface EvictionPolicy {
+
+    /**
+     * Adds a {@link MainMemorySegment} that could be preempted.
+     *
+     * @param mainMemorySegment the {@link MainMemorySegment} to add; must be unlinked
+     */
+    void add(MainMemorySegment mainMemorySegment);
+
+    /**
+     * Selects a {@link MainMemorySegment} to be preempted and removes it from this policy.
+     *
+     * @return the selected {@link MainMemorySegment} or {@code null} if there is none
+     * @see QueueableQueue#poll()
+     */
+    MainMemorySegment poll();
+
+    /**
+     * @return the number of {@link MainMemorySegment}s in this policy
+     */
+    int size();
+
+    /**
+     * Tells whether {@link MainMemorySegment}s may stay in this policy while they are being accessed. Such a policy
+     * learns about accesses only via {@link MainMemorySegment#getAccessCount()}, so that accesses need not relink the
+     * segments. Segments that are being accessed cannot be preempted, though, so they might be polled and dropped
+     * from this policy; they are added again when their accesses are finished. Other policies have segments removed
+     * for each access and added again afterwards.
+     *
+     * @return whether accessed segments may stay in this policy
+     */
+    default boolean isRetainingAccessedSegments() {
+        return false;
+    }
+
+    /**
+     * A factory that creates {@link EvictionPolicy}s.
+     */
+    interface Factory {
+
+        /**
+         * Creates a new, empty {@link EvictionPolicy}.
+         *
+         * @return the {@link EvictionPolicy}
+         */
+        EvictionPolicy create();
+
+    }
+
+}
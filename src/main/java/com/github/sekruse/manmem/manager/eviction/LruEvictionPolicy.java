@@ -0,0 +1,43 @@
+package com.github.sekruse.manmem.manager.eviction;
+
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+import com.github.sekruse.manmem.util.StripedQueueableQueue;
+
+/**
+ * This policy preempts the least recently used {@link MainMemorySegment}. As segments are added to the policy
+ * whenever their last access has been finished, this boils down to a FIFO queue. To avoid lock contention, the queue
+ * is striped, which makes the order approximate under concurrent accesses (see {@link StripedQueueableQueue}).
+ */
+public class LruEvictionPolicy implements EvictionPolicy {
+
+    /**
+     * Holds the {@link MainMemorySegment}s in order of their last use.
+     */
+    private final StripedQueueableQueue<MainMemorySegment> queue = new StripedQueueableQueue<>();
+
+    @Override
+    public void add(MainMemorySegment mainMemorySegment) {
+        this.queue.add(mainMemorySegment);
+    }
+
+    @Override
+    public MainMemorySegment poll() {
+        return this.queue.poll();
+    }
+
+    @Override
+    public int size() {
+        return this.queue.size();
+    }
+
+    /**
+     * Factory for {@link LruEvictionPolicy}s.
+     */
+    public static class Factory implements EvictionPolicy.Factory {
+
+        @Override
+        public EvictionPolicy create() {
+            return new LruEvictionPolicy();
+        }
+    }
+}
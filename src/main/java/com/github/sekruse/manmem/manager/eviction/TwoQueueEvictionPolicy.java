@@ -0,0 +1,143 @@
+package com.github.sekruse.manmem.manager.eviction;
+
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+import com.github.sekruse.manmem.util.StripedQueueableQueue;
+
+/**
+ * This policy implements a simplified 2Q algorithm: {@link MainMemorySegment}s that have been accessed less than a
+ * promotion threshold since they have been loaded are kept in a FIFO probation queue, all other segments are kept in
+ * an LRU protected queue. The probation queue is preempted first as long as it holds a certain share of the segments.
+ * In consequence, segments that are touched only once or twice, e.g., by a sequential scan, do not flush frequently
+ * used segments out of main memory.
+ * <p>Unlike the original 2Q algorithm, this implementation does not remember preempted segments. Also, both queues
+ * are {@link StripedQueueableQueue}s, so their order is approximate under concurrent accesses.</p>
+ */
+public class TwoQueueEvictionPolicy implements EvictionPolicy {
+
+    /**
+     * The default number of accesses after that a segment is promoted to the protected queue. Note that writing a
+     * segment and reading it once afterwards does not suffice to promote it.
+     */
+    public static final int DEFAULT_PROMOTION_THRESHOLD = 3;
+
+    /**
+     * The default share of segments that may reside in the probation queue before the protected queue is preempted.
+     */
+    public static final double DEFAULT_PROBATION_SHARE = 0.25d;
+
+    /**
+     * Holds the {@link MainMemorySegment}s that have been accessed less than {@link #promotionThreshold} times.
+     */
+    private final StripedQueueableQueue<MainMemorySegment> probationQueue = new StripedQueueableQueue<>();
+
+    /**
+     * Holds the {@link MainMemorySegment}s that have been accessed at least {@link #promotionThreshold} times.
+     */
+    private final StripedQueueableQueue<MainMemorySegment> protectedQueue = new StripedQueueableQueue<>();
+
+    /**
+     * The number of accesses after that a segment is promoted to the {@link #protectedQueue}.
+     */
+    private final int promotionThreshold;
+
+    /**
+     * The share of segments that may reside in the {@link #probationQueue} before the {@link #protectedQueue} is
+     * preempted.
+     */
+    private final double probationShare;
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_PROMOTION_THRESHOLD} and {@link #DEFAULT_PROBATION_SHARE}.
+     */
+    public TwoQueueEvictionPolicy() {
+        this(DEFAULT_PROMOTION_THRESHOLD, DEFAULT_PROBATION_SHARE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param promotionThreshold the number of accesses after that a segment is promoted to the protected queue; must
+     *                           not exceed {@link MainMemorySegment#MAX_RECORDED_ACCESSES}
+     * @param probationShare     the share of segments that may reside in the probation queue before the protected
+     *                           queue is preempted
+     */
+    public TwoQueueEvictionPolicy(int promotionThreshold, double probationShare) {
+        if (promotionThreshold < 1 || promotionThreshold > MainMemorySegment.MAX_RECORDED_ACCESSES) {
+            throw new IllegalArgumentException("Illegal promotion threshold: " + promotionThreshold);
+        }
+        if (probationShare < 0d || probationShare > 1d) {
+            throw new IllegalArgumentException("Illegal probation share: " + probationShare);
+        }
+        this.promotionThreshold = promotionThreshold;
+        this.probationShare = probationShare;
+    }
+
+    @Override
+    public void add(MainMemorySegment mainMemorySegment) {
+        if (mainMemorySegment.getAccessCount() >= this.promotionThreshold) {
+            this.protectedQueue.add(mainMemorySegment);
+        } else {
+            this.probationQueue.add(mainMemorySegment);
+        }
+    }
+
+    @Override
+    public MainMemorySegment poll() {
+        final int numProbationarySegments = this.probationQueue.size();
+        final boolean isPreemptingProbationQueue =
+                numProbationarySegments > this.probationShare * (numProbationarySegments + this.protectedQueue.size());
+        MainMemorySegment victim;
+        if (isPreemptingProbationQueue) {
+            victim = this.probationQueue.poll();
+            if (victim == null) victim = this.protectedQueue.poll();
+        } else {
+            victim = this.protectedQueue.poll();
+            if (victim == null) victim = this.probationQueue.poll();
+        }
+        return victim;
+    }
+
+    @Override
+    public int size() {
+        return this.probationQueue.size() + this.protectedQueue.size();
+    }
+
+    /**
+     * Factory for {@link TwoQueueEvictionPolicy}s.
+     */
+    public static class Factory implements EvictionPolicy.Factory {
+
+        /**
+         * @see TwoQueueEvictionPolicy#promotionThreshold
+         */
+        private final int promotionThreshold;
+
+        /**
+         * @see TwoQueueEvictionPolicy#probationShare
+         */
+        private final double probationShare;
+
+        /**
+         * Creates a new instance with {@link #DEFAULT_PROMOTION_THRESHOLD} and {@link #DEFAULT_PROBATION_SHARE}.
+         */
+        public Factory() {
+            this(DEFAULT_PROMOTION_THRESHOLD, DEFAULT_PROBATION_SHARE);
+        }
+
+        /**
+         * Creates a new instance.
+         *
+         * @param promotionThreshold see {@link TwoQueueEvictionPolicy#TwoQueueEvictionPolicy(int, double)}
+         * @param probationShare     see {@link TwoQueueEvictionPolicy#TwoQueueEvictionPolicy(int, double)}
+         */
+        public Factory(int promotionThreshold, double probationShare) {
+            this.promotionThreshold = promotionThreshold;
+            this.probationShare = probationShare;
+        }
+
+        @Override
+        public EvictionPolicy create() {
+            return new TwoQueueEvictionPolicy(this.promotionThreshold, this.probationShare);
+        }
+    }
+}
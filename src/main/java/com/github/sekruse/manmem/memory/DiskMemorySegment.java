@@ -14,9 +14,15 @@ public class DiskMemorySegment {
     private final DiskOperator diskOperator;
 
     /**
-     * This offset within the file that is managed by the {@link DiskOperator}.
+     * This offset within the file that is managed by the {@link DiskOperator}. It changes when the
+     * {@link DiskOperator} compacts its file.
      */
-    private final long fileOffset;
+    private volatile long fileOffset;
+
+    /**
+     * The number of bytes that are reserved for this segment in the file.
+     */
+    private final int capacity;
 
     /**
      * The size of the segment in bytes.
@@ -28,10 +34,12 @@ public class DiskMemorySegment {
      *
      * @param diskOperator the operator that is managing this segment
      * @param fileOffset   the offset within the file where this segment should be written
+     * @param capacity     the number of bytes that are reserved for this segment in the file
      */
-    public DiskMemorySegment(DiskOperator diskOperator, long fileOffset) {
+    public DiskMemorySegment(DiskOperator diskOperator, long fileOffset, int capacity) {
         this.diskOperator = diskOperator;
         this.fileOffset = fileOffset;
+        this.capacity = capacity;
     }
 
     /**
@@ -48,6 +56,23 @@ public class DiskMemorySegment {
         return this.fileOffset;
     }
 
+    /**
+     * Declares that this segment has been moved within its file. Only to be called by the {@link DiskOperator}.
+     *
+     * @param fileOffset the new offset within the file
+     */
+    public void relocate(long fileOffset) {
+        this.fileOffset = fileOffset;
+    }
+
+    /**
+     * @return the number of bytes that are reserved for this segment in the file; this is also the capacity of the
+     * {@link MainMemorySegment} that this segment has been written from
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
     public void setSize(int size) {
         this.size = size;
     }
@@ -4,6 +4,8 @@ import com.github.sekruse.manmem.util.Queueable;
 import com.github.sekruse.manmem.util.QueueableQueue;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class encapsulates an actual amount of main memory. Notice the concurrent modification requirements imposed
@@ -15,6 +17,11 @@ import java.nio.ByteBuffer;
  */
 public class MainMemorySegment implements Queueable<MainMemorySegment> {
 
+    /**
+     * The maximum number of accesses that are recorded by {@link #recordAccess()}.
+     */
+    public static final int MAX_RECORDED_ACCESSES = 15;
+
     /**
      * If this segment is in use, it is attached to a {@link VirtualMemorySegment} object.
      */
@@ -37,9 +44,20 @@ public class MainMemorySegment implements Queueable<MainMemorySegment> {
     private SegmentState state = SegmentState.FREE;
 
     /**
-     * The payload of this main memory segment that stores the actual data.
+     * The payload of this main memory segment that stores the actual data. It is either backed by a heap array or by
+     * direct (off-heap) memory. Its position and limit are never changed, only views on it are handed out.
+     */
+    private final ByteBuffer payload;
+
+    /**
+     * A view on the {@link #payload} that is handed out by {@link #leaseByteBuffer()} to avoid allocations.
+     */
+    private final ByteBuffer cachedView;
+
+    /**
+     * Tells whether the {@link #cachedView} is currently leased.
      */
-    private final byte[] payload;
+    private final AtomicBoolean isCachedViewLeased = new AtomicBoolean(false);
 
     /**
      * The position of the next writable byte within {@link #payload}.
@@ -47,12 +65,30 @@ public class MainMemorySegment implements Queueable<MainMemorySegment> {
     private int payloadLimit = 0;
 
     /**
-     * Creates a new instance with a payload of the given size.
+     * The number of accesses to this segment since it has been reset. This is a hint for eviction policies only and
+     * therefore not maintained atomically.
+     */
+    private int accessCount = 0;
+
+    /**
+     * Creates a new instance with a heap payload of the given size.
      *
      * @param payloadSize the size of the payload of this segment
      */
     public MainMemorySegment(int payloadSize) {
-        this.payload = new byte[payloadSize];
+        this(payloadSize, false);
+    }
+
+    /**
+     * Creates a new instance with a payload of the given size.
+     *
+     * @param payloadSize the size of the payload of this segment
+     * @param isDirect    whether the payload should be allocated off-heap as direct memory; such payloads do not burden
+     *                    the garbage collector and can be transferred to and from files without intermediate copies
+     */
+    public MainMemorySegment(int payloadSize, boolean isDirect) {
+        this.payload = isDirect ? ByteBuffer.allocateDirect(payloadSize) : ByteBuffer.allocate(payloadSize);
+        this.cachedView = this.payload.duplicate();
     }
 
     @Override
@@ -97,7 +133,14 @@ public class MainMemorySegment implements Queueable<MainMemorySegment> {
      * @return the payload capacity of this main memory segment in bytes
      */
     public long capacity() {
-        return this.payload.length;
+        return this.payload.capacity();
+    }
+
+    /**
+     * @return whether the payload of this segment resides in direct (off-heap) memory
+     */
+    public boolean isDirect() {
+        return this.payload.isDirect();
     }
 
     /**
@@ -117,21 +160,68 @@ public class MainMemorySegment implements Queueable<MainMemorySegment> {
     /**
      * Experimental API.
      *
-     * @return the payload of this memory segment as {@link ByteBuffer}
+     * @return a view on the payload of this memory segment as {@link ByteBuffer}; it has an accessible array if and only
+     * if the segment is not {@link #isDirect() direct}
      */
     public ByteBuffer asByteBuffer() {
-        return ByteBuffer.wrap(this.payload, 0, this.payloadLimit);
+        final ByteBuffer view = this.payload.duplicate();
+        view.limit(this.payloadLimit);
+        return view;
+    }
+
+    /**
+     * Like {@link #asByteBuffer()}, but hands out a cached view if it is not leased already, thereby avoiding
+     * allocations. Leased views should be {@link #returnByteBuffer(ByteBuffer) returned} when they are not used
+     * anymore.
+     *
+     * @return a view on the payload of this memory segment as {@link ByteBuffer}
+     */
+    public ByteBuffer leaseByteBuffer() {
+        if (!this.isCachedViewLeased.compareAndSet(false, true)) {
+            return asByteBuffer();
+        }
+        this.cachedView.clear();
+        this.cachedView.limit(this.payloadLimit);
+        this.cachedView.order(ByteOrder.BIG_ENDIAN);
+        return this.cachedView;
+    }
+
+    /**
+     * Returns a view obtained from {@link #leaseByteBuffer()}, so that it can be handed out again.
+     *
+     * @param buf the view to return
+     */
+    public void returnByteBuffer(ByteBuffer buf) {
+        if (buf == this.cachedView) {
+            this.isCachedViewLeased.set(false);
+        }
+    }
+
+    /**
+     * Reads an {@code int} from the payload, regardless of how much of it has been written.
+     *
+     * @param offset the offset of the {@code int} in bytes
+     * @return the read value
+     * @throws IndexOutOfBoundsException if the offset exceeds the payload capacity
+     */
+    public int getInt(int offset) {
+        return this.payload.getInt(offset);
     }
 
     /**
      * Experimental API. Updates the payload size by the limit of this buffer.
      *
-     * @param buf the buffer to update from; must be retrieved by {@link #asByteBuffer()}
+     * @param buf the buffer to update from; must be retrieved by {@link #leaseByteBuffer()} or, if this segment is
+     *            not {@link #isDirect() direct}, by {@link #asByteBuffer()}
      * @see ByteBuffer#limit()
      */
     public void update(ByteBuffer buf) {
-        if (!buf.hasArray() || buf.array() != this.payload) {
-            throw new IllegalArgumentException("Buffer does belong to this main memory segment.");
+        // Views on direct payloads cannot be told apart from other direct buffers, so only the cached view is known
+        // to belong to this segment.
+        final boolean isBelonging = buf == this.cachedView ||
+                (this.payload.hasArray() && buf.hasArray() && buf.array() == this.payload.array());
+        if (!isBelonging) {
+            throw new IllegalArgumentException("Buffer does not belong to this main memory segment.");
         }
 
         this.payloadLimit = buf.limit();
@@ -144,6 +234,7 @@ public class MainMemorySegment implements Queueable<MainMemorySegment> {
         shouldBeUnlinked();
         this.owner = null;
         this.payloadLimit = 0;
+        this.accessCount = 0;
         this.state = SegmentState.FREE;
         // We do not eliminate the payload. In particular for efficiency.
     }
@@ -197,13 +288,33 @@ public class MainMemorySegment implements Queueable<MainMemorySegment> {
      * @return whether this element was linked to other elements
      */
     public boolean dequeue() {
-        final boolean wasLinked = unlink();
-        if (!wasLinked && getQueue() != null) {
-            throw new IllegalStateException("Segment was in a queue but not linked.");
-        } else {
-            setQueue(null);
+        final QueueableQueue<MainMemorySegment> queue = getQueue();
+        return queue == null ? unlink() : queue.remove(this);
+    }
+
+    /**
+     * Records that this segment has been accessed. The number of recorded accesses saturates at
+     * {@link #MAX_RECORDED_ACCESSES}, from when on this method does not write anymore.
+     */
+    public void recordAccess() {
+        if (this.accessCount < MAX_RECORDED_ACCESSES) {
+            this.accessCount++;
         }
-        return wasLinked;
+    }
+
+    /**
+     * @return the number of recorded accesses to this segment since it has been reset
+     * @see #recordAccess()
+     */
+    public int getAccessCount() {
+        return this.accessCount;
+    }
+
+    /**
+     * Forgets all recorded accesses to this segment.
+     */
+    public void clearAccessCount() {
+        this.accessCount = 0;
     }
 
     public long getSize() {
@@ -5,6 +5,9 @@ import java.nio.ByteBuffer;
 /**
  * Common interface for any kind of access to {@link VirtualMemorySegment}. The access is valid until the {@link #close()} method
  * has been called. An open access might exclude other accesses.
+ * <p>Closed accesses can be re-armed to avoid allocations, e.g., via
+ * {@link VirtualMemorySegment#getReadAccess(ReadAccess)}. Note that the {@link #getPayload() payload} must not be used
+ * after closing the access, as it might be handed out to another access.</p>
  */
 public abstract class MemoryAccess implements AutoCloseable {
 
@@ -16,20 +19,44 @@ public abstract class MemoryAccess implements AutoCloseable {
     /**
      * The payload memory that is being accessed.
      */
-    protected final ByteBuffer payload;
+    protected ByteBuffer payload;
+
+    /**
+     * The {@link MainMemorySegment} that provides the {@link #payload}.
+     */
+    private MainMemorySegment mainMemorySegment;
 
     /**
      * The {@link VirtualMemorySegment} that is accessed by this object.
      */
-    protected final VirtualMemorySegment virtualMemorySegment;
+    protected VirtualMemorySegment virtualMemorySegment;
+
+    /**
+     * The stamp of the lock that the {@link #virtualMemorySegment} has granted for this access.
+     */
+    protected long stamp;
 
     /**
      * Creates a new access object for some memory.
      * @param virtualMemorySegment the {@link VirtualMemorySegment} that should be accessed
+     * @param stamp                the stamp of the lock granted for this access
      */
-    public MemoryAccess(VirtualMemorySegment virtualMemorySegment) {
+    public MemoryAccess(VirtualMemorySegment virtualMemorySegment, long stamp) {
+        arm(virtualMemorySegment, stamp);
+    }
+
+    /**
+     * Lets this access object grant access to some memory.
+     *
+     * @param virtualMemorySegment the {@link VirtualMemorySegment} that should be accessed
+     * @param stamp                the stamp of the lock granted for this access
+     */
+    void arm(VirtualMemorySegment virtualMemorySegment, long stamp) {
         this.virtualMemorySegment = virtualMemorySegment;
-        this.payload = virtualMemorySegment.getMainMemorySegment().asByteBuffer();
+        this.stamp = stamp;
+        this.mainMemorySegment = virtualMemorySegment.getMainMemorySegment();
+        this.payload = this.mainMemorySegment.leaseByteBuffer();
+        this.isClosed = false;
     }
 
     /**
@@ -46,10 +73,18 @@ public abstract class MemoryAccess implements AutoCloseable {
         }
     }
 
+    /**
+     * @return whether this access has been closed
+     */
+    public boolean isClosed() {
+        return this.isClosed;
+    }
+
     @Override
     public void close() {
         ensureNotClosed();
         this.isClosed = true;
+        this.mainMemorySegment.returnByteBuffer(this.payload);
     }
 
 
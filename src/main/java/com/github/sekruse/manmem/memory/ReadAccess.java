@@ -9,15 +9,16 @@ public class ReadAccess extends MemoryAccess {
      * Creates a new access object for some memory.
      *
      * @param virtualMemorySegment the payload of the memory
+     * @param stamp                the stamp of the read lock granted for this access
      */
-    public ReadAccess(VirtualMemorySegment virtualMemorySegment) {
-        super(virtualMemorySegment);
+    public ReadAccess(VirtualMemorySegment virtualMemorySegment, long stamp) {
+        super(virtualMemorySegment, stamp);
     }
 
     @Override
     public void close() {
         super.close();
-        this.virtualMemorySegment.notifyReadAccessDone();
+        this.virtualMemorySegment.notifyReadAccessDone(this.stamp);
     }
 
     @Override
@@ -0,0 +1,26 @@
+package com.github.sekruse.manmem.memory;
+
+/**
+ * The priorities in this enum can be assigned to {@link VirtualMemorySegment}s. When main memory has to be preempted,
+ * segments of lower priority are preempted before segments of higher priority. The constants are ordered from the
+ * lowest to the highest priority.
+ */
+public enum SegmentPriority {
+
+    /**
+     * A low priority should be assigned to segments that are unlikely to be accessed again soon, e.g., segments that
+     * have already been consumed.
+     */
+    LOW,
+
+    /**
+     * The normal priority is the default priority of segments.
+     */
+    NORMAL,
+
+    /**
+     * A high priority should be assigned to segments that are frequently accessed, e.g., the buckets of a hash table.
+     */
+    HIGH
+
+}
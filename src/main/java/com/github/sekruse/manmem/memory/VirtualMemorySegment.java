@@ -5,37 +5,43 @@ import com.github.sekruse.manmem.manager.capabilities.MemoryAccessException;
 import com.github.sekruse.manmem.manager.capabilities.MemoryCapabilities;
 import com.github.sekruse.manmem.util.QueueableQueue;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * This class represents a piece of memory to clients. The physical location of the memory (RAM, disk) is not
  * determined.
+ * <p>Accesses are regulated by a {@link StampedLock}: {@link ReadAccess}es hold its read lock, {@link WriteAccess}es
+ * and preemptions hold its write lock. While being accessed, the {@link MainMemorySegment} can therefore not be
+ * preempted. It is also removed from its queue unless the eviction policy retains accessed segments. In addition,
+ * {@link #readInt(int)} reads resident memory optimistically without acquiring any lock.</p>
  */
 public class VirtualMemorySegment {
 
     /**
-     * The number maximum concurrent reads.
-     * We do not actually need to restrict this number unless there are performance implications.
-     *
-     * @see #readSemaphore
+     * Caches a {@link ReadAccess} per thread that {@link #readInt(int)} re-arms when it cannot read optimistically.
      */
-    private static final int MAX_CONCURRENT_READS = 1024;
+    private static final ThreadLocal<ReadAccess> FALLBACK_READ_ACCESS = new ThreadLocal<>();
 
     /**
-     * {@link Semaphore} to regulate read and write accesses.
+     * {@link StampedLock} to regulate read and write accesses as well as preemptions.
      */
-    private Semaphore readSemaphore = new Semaphore(MAX_CONCURRENT_READS, false);
+    private final StampedLock accessLock = new StampedLock();
 
     /**
-     * {@link java.util.concurrent.locks.Lock} to regulate write accesses.
+     * {@link java.util.concurrent.locks.Lock} to prevent concurrent readers from loading the
+     * {@link #mainMemorySegment} more than once.
      */
-    private ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock loadLock = new ReentrantLock();
 
     /**
      * The main memory segment that backs this memory. This segment may be {@code null} due to memory preemption.
+     * It is {@code volatile}, so that optimistic reads see the payload of newly loaded segments.
      */
-    private MainMemorySegment mainMemorySegment;
+    private volatile MainMemorySegment mainMemorySegment;
 
     /**
      * The disk memory segment that backs this memory.
@@ -53,33 +59,75 @@ public class VirtualMemorySegment {
     private ReentrantLock mmsLock = new ReentrantLock();
 
     /**
-     * Creates a new instance.
+     * The priority of this memory to stay in main memory.
+     */
+    private volatile SegmentPriority priority;
+
+    /**
+     * Counts the {@link MemoryAccess}es and {@link #backAsync() backings} that hold the {@link #accessLock}. Unlike
+     * them, preemptions and {@link #prefetch() prefetches} hold the {@link #accessLock} without being counted, so
+     * that {@link #release()} can wait for them rather than failing.
+     */
+    private final AtomicInteger numAccesses = new AtomicInteger(0);
+
+    /**
+     * Tells whether a {@link #backAsync()} call is in progress. As that method only holds a read lock, this flag keeps
+     * concurrent calls from writing the {@link #mainMemorySegment} to disk more than once.
+     */
+    private final AtomicBoolean isBeingBacked = new AtomicBoolean(false);
+
+    /**
+     * Creates a new instance with {@link SegmentPriority#NORMAL} priority.
      *
      * @param capabilities the capabilities needed to operate with a
      *                     {@link com.github.sekruse.manmem.manager.MemoryManager}.
      */
     public VirtualMemorySegment(MemoryCapabilities capabilities) {
+        this(capabilities, SegmentPriority.NORMAL);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capabilities the capabilities needed to operate with a
+     *                     {@link com.github.sekruse.manmem.manager.MemoryManager}.
+     * @param priority     the {@link SegmentPriority} of the new instance
+     */
+    public VirtualMemorySegment(MemoryCapabilities capabilities, SegmentPriority priority) {
+        if (priority == null) {
+            throw new NullPointerException();
+        }
         this.capabilities = capabilities;
+        this.priority = priority;
     }
 
     /**
      * Release this memory so that it can be dropped or recycled. Calling this function declares that this memory
-     * will no longer be used.
+     * will no longer be used. Ongoing preemptions and {@link #prefetch() prefetches} are waited for.
      *
      * @throws MemoryAccessException if there is still some {@link MemoryAccess} on this VirtualMemorySegment
      */
     public void release() throws MemoryAccessException {
-        if (this.writeLock.tryLock()) {
-            if (this.readSemaphore.tryAcquire(MAX_CONCURRENT_READS)) {
-                dequeMainMemorySegment();
-                this.capabilities.returnMemory(this.mainMemorySegment, this.diskMemorySegment);
-                this.readSemaphore.release(MAX_CONCURRENT_READS);
-            } else {
-                this.writeLock.unlock();
-                throw new MemoryAccessException("Segment is still being read-accessed.");
+        long stamp;
+        while ((stamp = this.accessLock.tryWriteLock()) == 0L) {
+            if (this.numAccesses.get() > 0) {
+                throw new MemoryAccessException(this.accessLock.isReadLocked() ?
+                        "Segment is still being read-accessed." :
+                        "Segment is being write-accessed.");
             }
-        } else {
-            throw new MemoryAccessException("Segment is being write-accessed.");
+            // Preemptions and prefetches are no accesses, so wait for them to finish.
+            Thread.yield();
+        }
+        try {
+            dequeMainMemorySegment();
+            final MainMemorySegment mainMemorySegment = this.mainMemorySegment;
+            final DiskMemorySegment diskMemorySegment = this.diskMemorySegment;
+            // Forget the segments, as they might be recycled for other memory right away.
+            this.mainMemorySegment = null;
+            this.diskMemorySegment = null;
+            this.capabilities.returnMemory(mainMemorySegment, diskMemorySegment);
+        } finally {
+            this.accessLock.unlockWrite(stamp);
         }
     }
 
@@ -119,6 +167,33 @@ public class VirtualMemorySegment {
         return diskMemorySegment;
     }
 
+    /**
+     * @return the {@link SegmentPriority} of this memory
+     */
+    public SegmentPriority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Changes the {@link SegmentPriority} of this memory. The change is respected by any subsequent preemption.
+     *
+     * @param priority the new {@link SegmentPriority}
+     */
+    public void setPriority(SegmentPriority priority) {
+        if (priority == null) {
+            throw new NullPointerException();
+        }
+        if (this.priority == priority) {
+            return;
+        }
+        this.priority = priority;
+
+        // Move the MainMemorySegment into the queue that corresponds to the new priority.
+        if (dequeMainMemorySegment()) {
+            enqueueIfNotAccessed();
+        }
+    }
+
     /**
      * Yield the {@link MainMemorySegment}. The segment will be delivered in its current state.
      *
@@ -141,28 +216,56 @@ public class VirtualMemorySegment {
      * spilled. If it was loaded, it will also be available via {@link #getMainMemorySegment()} unless it is spilled
      * again.
      *
+     * @param isKeepingContents whether the contents of a spilled {@link MainMemorySegment} should be loaded; if not,
+     *                          they are discarded along with the {@link DiskMemorySegment}
+     * @param isWriting         whether the {@link MainMemorySegment} is requested for a {@link WriteAccess}
      * @return the {@link MainMemorySegment}
      * @throws CapacityExceededException if the {@link MainMemorySegment} could not be retrieved due to lack of
      *                                   capacities
      */
-    private MainMemorySegment ensureMainMemorySegment() throws CapacityExceededException {
-        // Make sure that
-        dequeMainMemorySegment();
+    private MainMemorySegment ensureMainMemorySegment(boolean isKeepingContents, boolean isWriting)
+            throws CapacityExceededException {
+        // The held access lock prevents preemptions, so the segment may stay enqueued unless the eviction policy
+        // needs to observe the access or a write access changes the state and hence the queue of the segment.
+        final MainMemorySegment residentSegment = getMainMemorySegment();
+        if (residentSegment != null && this.capabilities.isRetainingAccessedSegments()
+                && (!isWriting || residentSegment.getState() == SegmentState.DIRTY)) {
+            residentSegment.recordAccess();
+            this.capabilities.notifyHit(this);
+            return residentSegment;
+        }
 
-        if (getMainMemorySegment() != null) {
-            return getMainMemorySegment();
+        dequeMainMemorySegment();
+        if (residentSegment != null) {
+            residentSegment.recordAccess();
+            this.capabilities.notifyHit(this);
+            return residentSegment;
         }
 
         if (getDiskMemorySegment() == null) {
             throw new IllegalStateException("Neither a main memory segment nor a disk segment given.");
         }
 
-        this.capabilities.load(this);
-        if (getMainMemorySegment() == null) {
+        // Concurrent readers might request loading at the same time, but only one of them may do so.
+        this.loadLock.lock();
+        try {
+            if (getMainMemorySegment() == null) {
+                if (isKeepingContents) {
+                    this.capabilities.load(this);
+                } else {
+                    this.capabilities.loadEmpty(this);
+                }
+            }
+        } finally {
+            this.loadLock.unlock();
+        }
+        final MainMemorySegment loadedSegment = getMainMemorySegment();
+        if (loadedSegment == null) {
             throw new IllegalStateException("Still no main memory segment present after loading.");
         }
+        loadedSegment.recordAccess();
 
-        return getMainMemorySegment();
+        return loadedSegment;
     }
 
     /**
@@ -172,16 +275,71 @@ public class VirtualMemorySegment {
      * @see {@link AutoCloseable#close()}
      */
     public ReadAccess getReadAccess() {
-        // Acquire a read semaphore when there is no pending or active write request.
-        this.writeLock.lock();
-        this.readSemaphore.acquireUninterruptibly();
-        this.writeLock.unlock();
+        return getReadAccess(null);
+    }
+
+    /**
+     * Grants {@link ReadAccess} to this memory by re-arming a closed {@link ReadAccess}, thereby avoiding allocations.
+     *
+     * @param reusableAccess a closed {@link ReadAccess} to re-arm or {@code null} to create a new one
+     * @return the {@link ReadAccess}, which must be closed after use!
+     * @throws IllegalStateException if the given {@link ReadAccess} has not been closed
+     */
+    public ReadAccess getReadAccess(ReadAccess reusableAccess) {
+        if (reusableAccess != null && !reusableAccess.isClosed()) {
+            throw new IllegalStateException("Cannot reuse an open access.");
+        }
+
+        // Acquire the read lock when there is no active write access.
+        final long stamp = this.accessLock.readLock();
+        this.numAccesses.incrementAndGet();
 
         // Load the MainMemorySegment if necessary.
-        ensureMainMemorySegment();
+        try {
+            ensureMainMemorySegment(true, false);
+        } catch (RuntimeException e) {
+            notifyReadAccessDone(stamp);
+            throw e;
+        }
 
         // Wrap the memory segment in a read access.
-        return new ReadAccess(this);
+        if (reusableAccess == null) {
+            return new ReadAccess(this, stamp);
+        }
+        reusableAccess.arm(this, stamp);
+        return reusableAccess;
+    }
+
+    /**
+     * Grants {@link ReadAccess} to this memory only if it is resident and not being write-accessed, so that the
+     * access neither waits nor loads the memory or preempts other memory for it.
+     *
+     * @param reusableAccess a closed {@link ReadAccess} to re-arm or {@code null} to create a new one
+     * @return the {@link ReadAccess}, which must be closed after use, or {@code null} if it could not be granted
+     * @throws IllegalStateException if the given {@link ReadAccess} has not been closed
+     */
+    public ReadAccess tryGetReadAccess(ReadAccess reusableAccess) {
+        if (reusableAccess != null && !reusableAccess.isClosed()) {
+            throw new IllegalStateException("Cannot reuse an open access.");
+        }
+
+        // The read lock excludes preemptions, so the memory stays resident if it is so now.
+        final long stamp = this.accessLock.tryReadLock();
+        if (stamp == 0L) {
+            return null;
+        }
+        this.numAccesses.incrementAndGet();
+        if (getMainMemorySegment() == null) {
+            notifyReadAccessDone(stamp);
+            return null;
+        }
+        ensureMainMemorySegment(true, false);
+
+        if (reusableAccess == null) {
+            return new ReadAccess(this, stamp);
+        }
+        reusableAccess.arm(this, stamp);
+        return reusableAccess;
     }
 
     /**
@@ -191,17 +349,172 @@ public class VirtualMemorySegment {
      * @see {@link AutoCloseable#close()}
      */
     public WriteAccess getWriteAccess() {
-        // Mark the pending write request.
-        this.writeLock.lock();
+        return getWriteAccess(null);
+    }
+
+    /**
+     * Grants {@link WriteAccess} to this memory by re-arming a closed {@link WriteAccess}, thereby avoiding
+     * allocations.
+     *
+     * @param reusableAccess a closed {@link WriteAccess} to re-arm or {@code null} to create a new one
+     * @return the {@link WriteAccess}, which must be closed after use!
+     * @throws IllegalStateException if the given {@link WriteAccess} has not been closed
+     */
+    public WriteAccess getWriteAccess(WriteAccess reusableAccess) {
+        return getWriteAccess(reusableAccess, true);
+    }
 
-        // Wait for all reads to finish.
-        this.readSemaphore.acquireUninterruptibly(MAX_CONCURRENT_READS);
+    /**
+     * Grants {@link WriteAccess} to this memory for overwriting it entirely. The previous contents are irrelevant to
+     * the caller, so a spilled {@link MainMemorySegment} is not loaded from disk. Instead, its
+     * {@link DiskMemorySegment} is dropped and the {@link WriteAccess} shows undefined contents.
+     *
+     * @return a {@link WriteAccess}, which must be closed after use!
+     * @see {@link AutoCloseable#close()}
+     */
+    public WriteAccess getOverwriteAccess() {
+        return getOverwriteAccess(null);
+    }
+
+    /**
+     * Grants {@link WriteAccess} to this memory for overwriting it entirely by re-arming a closed {@link WriteAccess}.
+     *
+     * @param reusableAccess a closed {@link WriteAccess} to re-arm or {@code null} to create a new one
+     * @return the {@link WriteAccess}, which must be closed after use!
+     * @throws IllegalStateException if the given {@link WriteAccess} has not been closed
+     * @see #getOverwriteAccess()
+     */
+    public WriteAccess getOverwriteAccess(WriteAccess reusableAccess) {
+        return getWriteAccess(reusableAccess, false);
+    }
+
+    /**
+     * Grants {@link WriteAccess} to this memory.
+     *
+     * @param reusableAccess    a closed {@link WriteAccess} to re-arm or {@code null} to create a new one
+     * @param isKeepingContents whether the current contents of this memory should be visible to the access
+     * @return the {@link WriteAccess}, which must be closed after use!
+     * @throws IllegalStateException if the given {@link WriteAccess} has not been closed
+     */
+    private WriteAccess getWriteAccess(WriteAccess reusableAccess, boolean isKeepingContents) {
+        if (reusableAccess != null && !reusableAccess.isClosed()) {
+            throw new IllegalStateException("Cannot reuse an open access.");
+        }
+
+        // Wait for all other accesses to finish.
+        final long stamp = this.accessLock.writeLock();
+        this.numAccesses.incrementAndGet();
 
         // Load the MainMemorySegment if necessary.
-        ensureMainMemorySegment();
+        try {
+            ensureMainMemorySegment(isKeepingContents, true);
+        } catch (RuntimeException e) {
+            notifyWriteAccessDone(stamp);
+            throw e;
+        }
 
-        // Wrap the memory segment in a read access.
-        return new WriteAccess(this);
+        // Wrap the memory segment in a write access.
+        if (reusableAccess == null) {
+            return new WriteAccess(this, stamp);
+        }
+        reusableAccess.arm(this, stamp);
+        return reusableAccess;
+    }
+
+    /**
+     * Starts to load this memory asynchronously if it has been spilled, so that a subsequent access does not have to
+     * wait for the disk. Accesses in the meantime wait for the loading to finish. Nothing is loaded if this memory
+     * is being accessed or if no {@link MainMemorySegment} can be obtained without waiting or spilling; the next
+     * access will then load it as usual.
+     * <p>The loaded {@link MainMemorySegment} is not enqueued and can therefore not be preempted until the memory has
+     * been accessed. Hence, prefetches do not preempt each other, but the prefetched memory should be accessed
+     * eventually.</p>
+     *
+     * @return a future that is completed when the loading is done or has not been started; this memory can only be
+     * {@link #release() released} after its completion
+     */
+    public CompletableFuture<Void> prefetch() {
+        if (getMainMemorySegment() != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Exclude any access while loading, but do not wait for ongoing accesses.
+        final long stamp = this.accessLock.tryWriteLock();
+        if (stamp == 0L) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Void> loadingFuture;
+        try {
+            loadingFuture = getMainMemorySegment() == null && getDiskMemorySegment() != null ?
+                    this.capabilities.loadAsync(this) :
+                    CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            this.accessLock.unlockWrite(stamp);
+            throw e;
+        }
+        // NB: Do not enqueue the loaded segment. The first access will do so.
+        return loadingFuture.whenComplete((ignore, exception) -> this.accessLock.unlockWrite(stamp));
+    }
+
+    /**
+     * Reads an {@code int} from this memory. If the memory is resident, it is read optimistically, i.e., without
+     * acquiring any lock, so that concurrent readers do not contend with each other. Only if the read interferes with
+     * a concurrent {@link WriteAccess} or preemption or if the memory is not resident, it is repeated with a
+     * {@link ReadAccess}.
+     * <p>Note that optimistic reads are not counted as hits and do not refresh the position of the memory in
+     * recency-based eviction queues. However, they are {@link MainMemorySegment#recordAccess() recorded} as a hint for
+     * eviction policies. This is racy, so that concurrent reads might lose updates, which is benign for a hint.
+     * Because the recorded accesses saturate, reads of hot memory eventually stop writing the hint at all.</p>
+     *
+     * @param offset the offset of the {@code int} in bytes; may exceed the written payload, in which case the value
+     *               is undefined
+     * @return the read value
+     */
+    public int readInt(int offset) {
+        final long stamp = this.accessLock.tryOptimisticRead();
+        if (stamp != 0L) {
+            final MainMemorySegment residentSegment = getMainMemorySegment();
+            if (residentSegment != null) {
+                final int value = residentSegment.getInt(offset);
+                if (this.accessLock.validate(stamp)) {
+                    residentSegment.recordAccess();
+                    return value;
+                }
+            }
+        }
+
+        // Re-arm the ReadAccess of the calling thread unless it is in use by an enclosing call.
+        final ReadAccess reusableAccess = FALLBACK_READ_ACCESS.get();
+        final ReadAccess readAccess = getReadAccess(
+                reusableAccess != null && reusableAccess.isClosed() ? reusableAccess : null);
+        if (readAccess != reusableAccess) {
+            FALLBACK_READ_ACCESS.set(readAccess);
+        }
+        try {
+            return getMainMemorySegment().getInt(offset);
+        } finally {
+            readAccess.close();
+        }
+    }
+
+    /**
+     * Tries to exclude any other access to this memory, including optimistic reads, so that its
+     * {@link MainMemorySegment} can be preempted. Assumes that the {@link #getMainMemorySegmentLock()} is held. If
+     * this method fails, the {@link MainMemorySegment} is being accessed and will be enqueued again afterwards.
+     *
+     * @return a stamp for {@link #unlockPreemption(long)} or {@code 0} if this memory is being accessed
+     */
+    public long tryLockPreemption() {
+        return this.accessLock.tryWriteLock();
+    }
+
+    /**
+     * Admits accesses to this memory again after a preemption.
+     *
+     * @param stamp the stamp obtained by {@link #tryLockPreemption()}
+     */
+    public void unlockPreemption(long stamp) {
+        this.accessLock.unlockWrite(stamp);
     }
 
     /**
@@ -248,18 +561,23 @@ public class VirtualMemorySegment {
 
     /**
      * If a {@link ReadAccess} has finished, it has to release its access.
+     *
+     * @param stamp the stamp of the {@link ReadAccess}
      */
-    public void notifyReadAccessDone() {
-        this.readSemaphore.release();
+    public void notifyReadAccessDone(long stamp) {
+        this.numAccesses.decrementAndGet();
+        this.accessLock.unlockRead(stamp);
         enqueueIfNotAccessed();
     }
 
     /**
      * If a {@link WriteAccess} has finished, it has to release its access.
+     *
+     * @param stamp the stamp of the {@link WriteAccess}
      */
-    public void notifyWriteAccessDone() {
-        this.readSemaphore.release(MAX_CONCURRENT_READS);
-        this.writeLock.unlock();
+    public void notifyWriteAccessDone(long stamp) {
+        this.numAccesses.decrementAndGet();
+        this.accessLock.unlockWrite(stamp);
         enqueueIfNotAccessed();
     }
 
@@ -268,34 +586,73 @@ public class VirtualMemorySegment {
      * Enqueues the {@link #mainMemorySegment} of the object into a suitable queue in
      * {@link com.github.sekruse.manmem.manager.MemoryManager} if there is no pending access request to it.
      */
-    synchronized void enqueueIfNotAccessed() {
-        // synchronized: if two threads are racing to enqueue this segment + segment gets polled -> problem
-        if (getMainMemorySegment() == null || !getMainMemorySegment().isUnlinked()) {
-            return;
+    void enqueueIfNotAccessed() {
+        // Accesses acquire the access lock before they deque the segment under the main memory segment lock. So,
+        // if the access lock is free while we hold the latter, no access can be using the enqueued segment.
+        final ReentrantLock mmsLock = getMainMemorySegmentLock();
+        mmsLock.lock();
+        try {
+            final MainMemorySegment mms = getMainMemorySegment();
+            if (mms != null && mms.isUnlinked()
+                    && !this.accessLock.isReadLocked() && !this.accessLock.isWriteLocked()) {
+                this.capabilities.enqueue(mms);
+            }
+        } finally {
+            mmsLock.unlock();
         }
+    }
 
-        if (this.writeLock.tryLock() && this.readSemaphore.tryAcquire(MAX_CONCURRENT_READS)) {
-            getMainMemorySegmentLock().lock();
-            this.capabilities.enqueue(getMainMemorySegment());
-            getMainMemorySegmentLock().unlock();
-            this.readSemaphore.release(MAX_CONCURRENT_READS);
+
+    /**
+     * Starts to back the {@link MainMemorySegment} to disk asynchronously, so that it can be preempted cheaply later
+     * on. In the meantime, this memory can be read but not written. Nothing is backed if this memory is being
+     * written, preempted, or backed asynchronously already.
+     *
+     * @return a future that is completed when the backing is done or has not been started; this memory can only be
+     * {@link #release() released} after its completion
+     */
+    public CompletableFuture<Void> backAsync() {
+        // Exclude writes and preemptions while backing, but do not wait for them.
+        final long stamp = this.accessLock.tryReadLock();
+        if (stamp == 0L) {
+            return CompletableFuture.completedFuture(null);
+        }
+        this.numAccesses.incrementAndGet();
+        if (!this.isBeingBacked.compareAndSet(false, true)) {
+            notifyReadAccessDone(stamp);
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Void> backingFuture;
+        try {
+            dequeMainMemorySegment();
+            backingFuture = this.capabilities.backAsync(this);
+        } catch (RuntimeException e) {
+            this.isBeingBacked.set(false);
+            notifyReadAccessDone(stamp);
+            throw e;
         }
-        if (this.writeLock.isHeldByCurrentThread()) this.writeLock.unlock();
+        return backingFuture.whenComplete((ignore, exception) -> {
+            this.isBeingBacked.set(false);
+            notifyReadAccessDone(stamp);
+        });
     }
 
-
     /**
      * Backs the {@link MainMemorySegment} to disk.
      */
     public void back() {
-        if (!this.writeLock.tryLock()) {
-            throw new MemoryAccessException("Cannot back segment that is currently being written.");
+        final long stamp = this.accessLock.tryWriteLock();
+        if (stamp == 0L) {
+            throw new MemoryAccessException("Cannot back segment that is currently being accessed.");
         }
-        dequeMainMemorySegment();
-        if (getMainMemorySegment() != null) {
-            this.capabilities.back(this);
+        try {
+            dequeMainMemorySegment();
+            if (getMainMemorySegment() != null) {
+                this.capabilities.back(this);
+            }
+        } finally {
+            this.accessLock.unlockWrite(stamp);
         }
-        this.writeLock.unlock();
         enqueueIfNotAccessed();
     }
 }
@@ -14,9 +14,16 @@ public class WriteAccess extends MemoryAccess {
      * Creates a new access object for some memory.
      *
      * @param virtualMemorySegment the memory to be written
+     * @param stamp                the stamp of the write lock granted for this access
      */
-    public WriteAccess(VirtualMemorySegment virtualMemorySegment) {
-        super(virtualMemorySegment);
+    public WriteAccess(VirtualMemorySegment virtualMemorySegment, long stamp) {
+        super(virtualMemorySegment, stamp);
+    }
+
+    @Override
+    void arm(VirtualMemorySegment virtualMemorySegment, long stamp) {
+        super.arm(virtualMemorySegment, stamp);
+        this.isMemoryChanged = true;
     }
 
     /**
@@ -31,16 +38,17 @@ public class WriteAccess extends MemoryAccess {
 
     @Override
     public void close() {
-        super.close();
-
+        // Update the segment before the payload view is returned by closing, as it might be leased again right away.
+        ensureNotClosed();
         if (this.isMemoryChanged) {
             final MainMemorySegment mainMemorySegment = this.virtualMemorySegment.getMainMemorySegment();
             mainMemorySegment.update(this.payload);
             mainMemorySegment.setState(SegmentState.DIRTY); // We might have to lock here. However, there is no
             // concurrent action.
         }
+        super.close();
 
-        this.virtualMemorySegment.notifyWriteAccessDone();
+        this.virtualMemorySegment.notifyWriteAccessDone(this.stamp);
     }
 
     @Override
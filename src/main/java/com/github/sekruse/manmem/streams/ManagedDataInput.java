@@ -0,0 +1,217 @@
+package com.github.sekruse.manmem.streams;
+
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * This class reads primitive values from {@link VirtualMemorySegment}s in the format of
+ * {@link java.io.DataInputStream}, e.g., as written by a {@link ManagedDataOutput}. Values are taken straight from the
+ * payload of the current segment. Only values that span two segments are read byte by byte.
+ */
+public class ManagedDataInput extends MemoryInputStream implements DataInput {
+
+    /**
+     * Creates a new instance.
+     *
+     * @param vmsIterable the {@link VirtualMemorySegment}s that should be iterated
+     */
+    public ManagedDataInput(Iterable<VirtualMemorySegment> vmsIterable) {
+        this(vmsIterable.iterator());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param vmsIterator contains the {@link VirtualMemorySegment}s that should be iterated
+     */
+    public ManagedDataInput(Iterator<VirtualMemorySegment> vmsIterator) {
+        this(vmsIterator, 0, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param vmsIterable   the {@link VirtualMemorySegment}s that should be iterated
+     * @param prefetchDepth the maximum number of {@link VirtualMemorySegment}s to prefetch ahead of the currently
+     *                      read one
+     * @param isConsuming   whether to {@link VirtualMemorySegment#release() release} every segment as soon as it has
+     *                      been read completely
+     */
+    public ManagedDataInput(Iterable<VirtualMemorySegment> vmsIterable, int prefetchDepth, boolean isConsuming) {
+        this(vmsIterable.iterator(), prefetchDepth, isConsuming);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param vmsIterator   contains the {@link VirtualMemorySegment}s that should be iterated
+     * @param prefetchDepth the maximum number of {@link VirtualMemorySegment}s to prefetch ahead of the currently
+     *                      read one
+     * @param isConsuming   whether to {@link VirtualMemorySegment#release() release} every segment as soon as it has
+     *                      been read completely
+     */
+    public ManagedDataInput(Iterator<VirtualMemorySegment> vmsIterator, int prefetchDepth, boolean isConsuming) {
+        super(vmsIterator, prefetchDepth, isConsuming);
+    }
+
+    /**
+     * Provides the payload of the current segment if it can serve the given number of bytes.
+     *
+     * @param numBytes the number of bytes
+     * @return the payload to take the bytes from directly or {@code null} if they must be read byte by byte
+     */
+    private ByteBuffer bufferWithRemaining(int numBytes) {
+        final ByteBuffer buffer = readableBuffer();
+        return buffer != null && buffer.remaining() >= numBytes ? buffer : null;
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return the byte as unsigned value
+     * @throws EOFException if there are no more bytes
+     */
+    private int readOrFail() throws EOFException {
+        final int b = read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    /**
+     * Reads a big-endian value byte by byte. This is the slow path for values that span two segments.
+     *
+     * @param numBytes the number of bytes to read
+     * @return the read value in the lowest bytes
+     * @throws EOFException if there are not enough bytes
+     */
+    private long readBytewise(int numBytes) throws EOFException {
+        long value = 0L;
+        for (int i = 0; i < numBytes; i++) {
+            value = (value << 8) | readOrFail();
+        }
+        return value;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws EOFException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws EOFException {
+        while (len > 0) {
+            final int numReadBytes = read(b, off, len);
+            if (numReadBytes == -1) {
+                throw new EOFException();
+            }
+            off += numReadBytes;
+            len -= numReadBytes;
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int numSkippedBytes = 0;
+        long skipped;
+        while (numSkippedBytes < n && (skipped = skip(n - numSkippedBytes)) > 0) {
+            numSkippedBytes += skipped;
+        }
+        return numSkippedBytes;
+    }
+
+    @Override
+    public boolean readBoolean() throws EOFException {
+        return readOrFail() != 0;
+    }
+
+    @Override
+    public byte readByte() throws EOFException {
+        return (byte) readOrFail();
+    }
+
+    @Override
+    public int readUnsignedByte() throws EOFException {
+        return readOrFail();
+    }
+
+    @Override
+    public short readShort() throws EOFException {
+        final ByteBuffer buffer = bufferWithRemaining(Short.BYTES);
+        if (buffer != null) {
+            return buffer.getShort();
+        }
+        return (short) readBytewise(Short.BYTES);
+    }
+
+    @Override
+    public int readUnsignedShort() throws EOFException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws EOFException {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws EOFException {
+        final ByteBuffer buffer = bufferWithRemaining(Integer.BYTES);
+        if (buffer != null) {
+            return buffer.getInt();
+        }
+        return (int) readBytewise(Integer.BYTES);
+    }
+
+    @Override
+    public long readLong() throws EOFException {
+        final ByteBuffer buffer = bufferWithRemaining(Long.BYTES);
+        if (buffer != null) {
+            return buffer.getLong();
+        }
+        return readBytewise(Long.BYTES);
+    }
+
+    @Override
+    public float readFloat() throws EOFException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws EOFException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    public String readLine() {
+        final StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = read()) != -1) {
+            if (b == '\n') {
+                return sb.toString();
+            }
+            if (b == '\r') {
+                // Swallow a subsequent line feed.
+                final ByteBuffer buffer = readableBuffer();
+                if (buffer != null && buffer.get(buffer.position()) == '\n') {
+                    buffer.get();
+                }
+                return sb.toString();
+            }
+            sb.append((char) b);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.sekruse.manmem.streams;
+
+import com.github.sekruse.manmem.manager.MemoryManager;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+
+import java.io.DataOutput;
+import java.io.UTFDataFormatException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class writes primitive values to {@link VirtualMemorySegment}s in the format of
+ * {@link java.io.DataOutputStream}. Values are put straight into the payload of the current segment. Only values that
+ * span two segments are written byte by byte.
+ */
+public class ManagedDataOutput extends MemoryOutputStream implements DataOutput {
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     */
+    public ManagedDataOutput(MemoryManager memoryManager) {
+        this(memoryManager, new LinkedList<>());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     * @param collector     a {@link List} that will collect the created {@link VirtualMemorySegment}s
+     */
+    public ManagedDataOutput(MemoryManager memoryManager, List<VirtualMemorySegment> collector) {
+        this(memoryManager, collector, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager   the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     * @param collector       a {@link List} that will collect the created {@link VirtualMemorySegment}s
+     * @param isWritingBehind whether written segments should be backed to disk in the background right away, so
+     *                        that their main memory can be preempted cheaply later on
+     */
+    public ManagedDataOutput(MemoryManager memoryManager, List<VirtualMemorySegment> collector,
+                             boolean isWritingBehind) {
+        super(memoryManager, collector, isWritingBehind);
+    }
+
+    /**
+     * Writes the lowest bytes of a value in big-endian order byte by byte. This is the slow path for values that
+     * span two segments.
+     *
+     * @param value    contains the bytes to write
+     * @param numBytes the number of bytes to write
+     */
+    private void writeBytewise(long value, int numBytes) {
+        for (int shift = 8 * (numBytes - 1); shift >= 0; shift -= 8) {
+            write((int) (value >>> shift));
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        write(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        write(v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        updateCurrentVirtualMemorySegment();
+        if (this.writeBuffer.remaining() >= Short.BYTES) {
+            this.writeBuffer.putShort((short) v);
+            closeFinishedSegment();
+        } else {
+            writeBytewise(v, Short.BYTES);
+        }
+    }
+
+    @Override
+    public void writeChar(int v) {
+        writeShort(v);
+    }
+
+    @Override
+    public void writeInt(int v) {
+        updateCurrentVirtualMemorySegment();
+        if (this.writeBuffer.remaining() >= Integer.BYTES) {
+            this.writeBuffer.putInt(v);
+            closeFinishedSegment();
+        } else {
+            writeBytewise(v, Integer.BYTES);
+        }
+    }
+
+    @Override
+    public void writeLong(long v) {
+        updateCurrentVirtualMemorySegment();
+        if (this.writeBuffer.remaining() >= Long.BYTES) {
+            this.writeBuffer.putLong(v);
+            closeFinishedSegment();
+        } else {
+            writeBytewise(v, Long.BYTES);
+        }
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public void writeBytes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(String s) throws UTFDataFormatException {
+        // Determine the length of the string in modified UTF-8.
+        int utfLength = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            utfLength += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        if (utfLength > 0xFFFF) {
+            throw new UTFDataFormatException(String.format("Encoded string is too long: %d bytes", utfLength));
+        }
+
+        // Encode the string.
+        final byte[] bytes = new byte[utfLength];
+        int pos = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                bytes[pos++] = (byte) c;
+            } else if (c <= 0x07FF) {
+                bytes[pos++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                bytes[pos++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeShort(utfLength);
+        write(bytes);
+    }
+}
@@ -6,11 +6,20 @@ import com.github.sekruse.manmem.memory.VirtualMemorySegment;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * This class allows to access an {@link Iterable} of {@link VirtualMemorySegment}s in
  * terms of an {@link java.io.InputStream}.
+ * <p>Optionally, the stream {@link VirtualMemorySegment#prefetch() prefetches} the next segments while the current
+ * one is being read, so that reading spilled segments does not stall at every segment boundary. Also, the stream
+ * can consume the segments, i.e., {@link VirtualMemorySegment#release() release} every segment as soon as it has been
+ * read completely.</p>
  */
 public class MemoryInputStream extends InputStream {
 
@@ -19,13 +28,34 @@ public class MemoryInputStream extends InputStream {
      */
     private final Iterator<VirtualMemorySegment> vmsIterator;
 
+    /**
+     * The maximum number of {@link VirtualMemorySegment}s to prefetch ahead of the {@link #currentVms}.
+     */
+    private final int prefetchDepth;
+
+    /**
+     * Tells whether to {@link VirtualMemorySegment#release() release} every completely read segment.
+     */
+    private final boolean isConsuming;
+
+    /**
+     * {@link VirtualMemorySegment}s that have been taken from the {@link #vmsIterator} and are being prefetched. As
+     * for the {@link #vmsIterator}, a {@code null} element ends the stream.
+     */
+    private final Deque<VirtualMemorySegment> prefetchedVmss = new LinkedList<>();
+
+    /**
+     * The futures of the prefetches of the {@link #prefetchedVmss} in the same order.
+     */
+    private final Deque<CompletableFuture<Void>> prefetchFutures = new ArrayDeque<>();
+
     /**
      * The {@link VirtualMemorySegment} that is currently being iterated.
      */
     private VirtualMemorySegment currentVms = null;
 
     /**
-     * {@link ReadAccess} to {@link #currentVms}.
+     * {@link ReadAccess} to {@link #currentVms}. It is re-armed for every segment and closed in between.
      */
     private ReadAccess readAccess;
 
@@ -49,7 +79,60 @@ public class MemoryInputStream extends InputStream {
      * @param vmsIterator contains the {@link VirtualMemorySegment}s that should be iterated
      */
     public MemoryInputStream(Iterator<VirtualMemorySegment> vmsIterator) {
+        this(vmsIterator, 0);
+    }
+
+    /**
+     * Creates a new instance that prefetches upcoming {@link VirtualMemorySegment}s.
+     *
+     * @param vmsIterable   the {@link VirtualMemorySegment}s that should be iterated
+     * @param prefetchDepth the maximum number of {@link VirtualMemorySegment}s to prefetch ahead of the currently
+     *                      read one
+     */
+    public MemoryInputStream(Iterable<VirtualMemorySegment> vmsIterable, int prefetchDepth) {
+        this(vmsIterable.iterator(), prefetchDepth);
+    }
+
+    /**
+     * Creates a new instance that prefetches upcoming {@link VirtualMemorySegment}s.
+     *
+     * @param vmsIterator   contains the {@link VirtualMemorySegment}s that should be iterated
+     * @param prefetchDepth the maximum number of {@link VirtualMemorySegment}s to prefetch ahead of the currently
+     *                      read one
+     */
+    public MemoryInputStream(Iterator<VirtualMemorySegment> vmsIterator, int prefetchDepth) {
+        this(vmsIterator, prefetchDepth, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param vmsIterable   the {@link VirtualMemorySegment}s that should be iterated
+     * @param prefetchDepth the maximum number of {@link VirtualMemorySegment}s to prefetch ahead of the currently
+     *                      read one
+     * @param isConsuming   whether to {@link VirtualMemorySegment#release() release} every segment as soon as it has
+     *                      been read completely
+     */
+    public MemoryInputStream(Iterable<VirtualMemorySegment> vmsIterable, int prefetchDepth, boolean isConsuming) {
+        this(vmsIterable.iterator(), prefetchDepth, isConsuming);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param vmsIterator   contains the {@link VirtualMemorySegment}s that should be iterated
+     * @param prefetchDepth the maximum number of {@link VirtualMemorySegment}s to prefetch ahead of the currently
+     *                      read one
+     * @param isConsuming   whether to {@link VirtualMemorySegment#release() release} every segment as soon as it has
+     *                      been read completely
+     */
+    public MemoryInputStream(Iterator<VirtualMemorySegment> vmsIterator, int prefetchDepth, boolean isConsuming) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("Illegal prefetch depth: " + prefetchDepth);
+        }
         this.vmsIterator = vmsIterator;
+        this.prefetchDepth = prefetchDepth;
+        this.isConsuming = isConsuming;
     }
 
     /**
@@ -58,22 +141,67 @@ public class MemoryInputStream extends InputStream {
      * @return whether there is a {@link VirtualMemorySegment} available after the method execution
      */
     private boolean updateCurrentVirtualMemorySegment() {
-        if (this.currentVms == null && this.vmsIterator.hasNext()) {
-            this.currentVms = this.vmsIterator.next();
+        if (this.currentVms == null && (!this.prefetchedVmss.isEmpty() || this.vmsIterator.hasNext())) {
+            if (this.prefetchedVmss.isEmpty()) {
+                this.currentVms = this.vmsIterator.next();
+            } else {
+                this.currentVms = this.prefetchedVmss.poll();
+                this.prefetchFutures.poll();
+            }
             if (this.currentVms != null) {
-                this.readAccess = this.currentVms.getReadAccess();
+                this.readAccess = this.currentVms.getReadAccess(this.readAccess);
                 this.readBuffer = this.readAccess.getPayload();
+                // Prefetch only now that the current segment is accessed and can therefore not be preempted.
+                prefetch();
             }
         }
         return this.currentVms != null;
     }
 
+    /**
+     * Prefetches upcoming {@link VirtualMemorySegment}s until {@link #prefetchDepth} segments are being prefetched.
+     * Every prefetch obtains at most a single {@link com.github.sekruse.manmem.memory.MainMemorySegment}, which cannot
+     * be preempted until it is read. So, the prefetching preempts no more segments than it loads and never preempts
+     * its own prefetches.
+     */
+    private void prefetch() {
+        while (this.prefetchedVmss.size() < this.prefetchDepth && this.vmsIterator.hasNext()) {
+            final VirtualMemorySegment vms = this.vmsIterator.next();
+            if (vms == null) {
+                // The stream ends at the null segment, so there is no need to prefetch any further.
+                this.prefetchedVmss.add(null);
+                this.prefetchFutures.add(CompletableFuture.completedFuture(null));
+                return;
+            }
+            this.prefetchedVmss.add(vms);
+            this.prefetchFutures.add(vms.prefetch());
+        }
+    }
+
+    /**
+     * Provides the payload of the currently iterated {@link VirtualMemorySegment}, thereby closing completely read
+     * segments and advancing to the next segment as needed. Bytes taken from the payload are consumed from this
+     * stream.
+     *
+     * @return the payload with at least one remaining byte or {@code null} if the stream is exhausted
+     */
+    ByteBuffer readableBuffer() {
+        while (updateCurrentVirtualMemorySegment()) {
+            if (this.readBuffer.hasRemaining()) {
+                return this.readBuffer;
+            }
+            closeSegment();
+        }
+        return null;
+    }
+
     @Override
     public int read() {
-        if (!updateCurrentVirtualMemorySegment()) {
+        final ByteBuffer buffer = readableBuffer();
+        if (buffer == null) {
             return -1;
         }
-        final byte b = this.readBuffer.get();
+        final byte b = buffer.get();
         closeFinishedSegment();
         return b & 0xFF; // avoid adding leading 1s when casting byte to int
     }
@@ -81,6 +209,23 @@ public class MemoryInputStream extends InputStream {
     @Override
     public void close() {
         if (this.currentVms != null) closeSegment();
+        // Let pending prefetches finish and touch the prefetched segments, so that they can be preempted and released.
+        final Iterator<VirtualMemorySegment> prefetchedVmsIterator = this.prefetchedVmss.iterator();
+        for (CompletableFuture<Void> prefetchFuture : this.prefetchFutures) {
+            final VirtualMemorySegment prefetchedVms = prefetchedVmsIterator.next();
+            try {
+                prefetchFuture.join();
+            } catch (CompletionException e) {
+                // The segment would have been loaded upon access, so the failure does not matter anymore.
+                continue;
+            }
+            if (prefetchedVms != null && prefetchedVms.getMainMemorySegment() != null) {
+                this.readAccess = prefetchedVms.getReadAccess(this.readAccess);
+                this.readAccess.close();
+            }
+        }
+        this.prefetchedVmss.clear();
+        this.prefetchFutures.clear();
         try {
             super.close();
         } catch (IOException e) {
@@ -91,11 +236,12 @@ public class MemoryInputStream extends InputStream {
 
     @Override
     public int read(byte[] b, int off, int len) {
-        if (!updateCurrentVirtualMemorySegment()) {
+        final ByteBuffer buffer = readableBuffer();
+        if (buffer == null) {
             return -1;
         }
-        final int numBytesToCopy = Math.min(len, this.readBuffer.remaining());
-        this.readBuffer.get(b, off, numBytesToCopy);
+        final int numBytesToCopy = Math.min(len, buffer.remaining());
+        buffer.get(b, off, numBytesToCopy);
         closeFinishedSegment();
         return numBytesToCopy;
     }
@@ -107,19 +253,14 @@ public class MemoryInputStream extends InputStream {
 
     @Override
     public long skip(long n) {
-        while (true) {
-            if (!updateCurrentVirtualMemorySegment() || n < 0) {
-                return 0;
-            }
-            final int numRemainingBytes = this.readBuffer.remaining();
-            if (numRemainingBytes <= n) {
-                closeSegment();
-                return numRemainingBytes;
-            } else if (numRemainingBytes > 0) {
-                this.readBuffer.position(this.readBuffer.position() + (int) n);
-                return (int) n;
-            }
+        final ByteBuffer buffer = n > 0 ? readableBuffer() : null;
+        if (buffer == null) {
+            return 0;
         }
+        final int numSkippedBytes = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + numSkippedBytes);
+        closeFinishedSegment();
+        return numSkippedBytes;
     }
 
     /**
@@ -132,12 +273,15 @@ public class MemoryInputStream extends InputStream {
     }
 
     /**
-     * Closes the currently iterated {@link VirtualMemorySegment}.
+     * Closes the currently iterated {@link VirtualMemorySegment} and releases it if it has been consumed.
      */
     private void closeSegment() {
+        final boolean isConsumed = this.isConsuming && !this.readBuffer.hasRemaining();
         this.readBuffer = null;
-        this.readAccess.close();
-        this.readAccess = null;
+        this.readAccess.close(); // NB: Keep the closed access to re-arm it for the next segment.
+        if (isConsumed) {
+            this.currentVms.release();
+        }
         this.currentVms = null;
     }
 }
@@ -9,6 +9,9 @@ import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * todo
@@ -31,14 +34,37 @@ public class MemoryOutputStream extends OutputStream {
     private VirtualMemorySegment currentVms;
 
     /**
-     * {@link WriteAccess} to {@link #currentVms}.
+     * {@link WriteAccess} to {@link #currentVms}. It is re-armed for every segment and closed in between.
      */
     private WriteAccess writeAccess;
 
     /**
      * {@link ByteBuffer} for {@link #writeAccess}.
      */
-    private ByteBuffer writeBuffer;
+    ByteBuffer writeBuffer;
+
+    /**
+     * The number of {@link VirtualMemorySegment}s that are {@link VirtualMemorySegment#backAsync() backed} in the
+     * background by default when writing behind.
+     */
+    public static final int DEFAULT_WRITE_BEHIND_DEPTH = 2;
+
+    /**
+     * The maximum time in milliseconds to wait for a new {@link VirtualMemorySegment} while segments are being
+     * written behind, as these cannot be preempted until they are backed.
+     */
+    private static final long WRITE_BEHIND_REQUEST_TIMEOUT_MILLIS = 10000L;
+
+    /**
+     * The maximum number of written {@link VirtualMemorySegment}s that are
+     * {@link VirtualMemorySegment#backAsync() backed} in the background at once; {@code 0} to not write behind.
+     */
+    private final int writeBehindDepth;
+
+    /**
+     * Futures of the pending {@link VirtualMemorySegment#backAsync()} calls.
+     */
+    private final List<CompletableFuture<Void>> pendingWriteBehinds = new LinkedList<>();
 
     /**
      * Creates a new instance.
@@ -56,8 +82,50 @@ public class MemoryOutputStream extends OutputStream {
      * @param collector     a {@link List} that will collect the created {@link VirtualMemorySegment}s
      */
     public MemoryOutputStream(MemoryManager memoryManager, List<VirtualMemorySegment> collector) {
+        this(memoryManager, collector, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager   the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     * @param isWritingBehind whether written segments should be backed to disk in the background right away, so
+     *                        that their main memory can be preempted cheaply later on
+     */
+    public MemoryOutputStream(MemoryManager memoryManager, boolean isWritingBehind) {
+        this(memoryManager, new LinkedList<>(), isWritingBehind);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager   the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     * @param collector       a {@link List} that will collect the created {@link VirtualMemorySegment}s
+     * @param isWritingBehind whether written segments should be backed to disk in the background right away, so
+     *                        that their main memory can be preempted cheaply later on
+     */
+    public MemoryOutputStream(MemoryManager memoryManager, List<VirtualMemorySegment> collector,
+                              boolean isWritingBehind) {
+        this(memoryManager, collector, isWritingBehind ? DEFAULT_WRITE_BEHIND_DEPTH : 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager    the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     * @param collector        a {@link List} that will collect the created {@link VirtualMemorySegment}s
+     * @param writeBehindDepth the maximum number of written segments that are backed to disk in the background at
+     *                         once, so that their main memory can be preempted cheaply later on; {@code 0} to not
+     *                         write behind
+     */
+    public MemoryOutputStream(MemoryManager memoryManager, List<VirtualMemorySegment> collector,
+                              int writeBehindDepth) {
+        if (writeBehindDepth < 0) {
+            throw new IllegalArgumentException("Illegal write-behind depth: " + writeBehindDepth);
+        }
         this.memoryManager = memoryManager;
         this.collector = collector;
+        this.writeBehindDepth = writeBehindDepth;
     }
 
     @Override
@@ -77,13 +145,25 @@ public class MemoryOutputStream extends OutputStream {
         this.write(b, 0, b.length);
     }
 
+    /**
+     * Waits for the pending background writes of completed segments, if any.
+     */
     @Override
     public void flush() {
+        for (CompletableFuture<Void> pendingWriteBehind : this.pendingWriteBehinds) {
+            try {
+                pendingWriteBehind.join();
+            } catch (CompletionException e) {
+                // The segment just stays dirty and will be spilled when needed.
+            }
+        }
+        this.pendingWriteBehinds.clear();
     }
 
     @Override
     public void close()  {
         if (this.currentVms != null) closeSegment();
+        flush();
         try {
             super.close();
         } catch (IOException e) {
@@ -102,20 +182,38 @@ public class MemoryOutputStream extends OutputStream {
     /**
      * If there is no {@link VirtualMemorySegment} being iterated currently, request a new one.
      */
-    private void updateCurrentVirtualMemorySegment() {
+    void updateCurrentVirtualMemorySegment() {
         if (this.currentVms == null) {
-            this.currentVms = this.memoryManager.requestDefaultMemory();
+            awaitWriteBehindDepth();
+            // Segments that are being backed cannot be preempted, so let the manager wait until they are backed.
+            this.currentVms = this.pendingWriteBehinds.isEmpty() ?
+                    this.memoryManager.requestDefaultMemory() :
+                    this.memoryManager.requestDefaultMemory(WRITE_BEHIND_REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
             this.collector.add(this.currentVms);
-            this.writeAccess = this.currentVms.getWriteAccess();
+            this.writeAccess = this.currentVms.getOverwriteAccess(this.writeAccess);
             this.writeBuffer = this.writeAccess.getPayload();
             this.writeBuffer.clear();
         }
     }
 
+    /**
+     * Waits for the oldest pending background writes as long as there are {@link #writeBehindDepth} of them.
+     */
+    private void awaitWriteBehindDepth() {
+        this.pendingWriteBehinds.removeIf(CompletableFuture::isDone);
+        while (!this.pendingWriteBehinds.isEmpty() && this.pendingWriteBehinds.size() >= this.writeBehindDepth) {
+            try {
+                this.pendingWriteBehinds.remove(0).join();
+            } catch (CompletionException e) {
+                // The segment just stays dirty and will be spilled when needed.
+            }
+        }
+    }
+
     /**
      * If the currently iterated {@link VirtualMemorySegment} has been completely read, close it.
      */
-    private void closeFinishedSegment() {
+    void closeFinishedSegment() {
         if (this.writeBuffer != null && !this.writeBuffer.hasRemaining()) {
             closeSegment();
         }
@@ -127,8 +225,10 @@ public class MemoryOutputStream extends OutputStream {
     private void closeSegment() {
         this.writeBuffer.flip();
         this.writeBuffer = null;
-        this.writeAccess.close();
-        this.writeAccess = null;
+        this.writeAccess.close(); // NB: Keep the closed access to re-arm it for the next segment.
+        if (this.writeBehindDepth > 0) {
+            this.pendingWriteBehinds.add(this.currentVms.backAsync());
+        }
         this.currentVms = null;
     }
 
@@ -0,0 +1,193 @@
+package com.github.sekruse.manmem.streams;
+
+import com.github.sekruse.manmem.memory.ReadAccess;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.List;
+
+/**
+ * This class allows to read a {@link List} of {@link VirtualMemorySegment}s in terms of a
+ * {@link ScatteringByteChannel}. In addition, {@link #transferTo(GatheringByteChannel)} hands the payloads of several
+ * segments at once to a gathering write, so that no intermediate copies are needed.
+ */
+public class MemoryReadableChannel implements ScatteringByteChannel {
+
+    /**
+     * The maximum number of segments whose payloads are passed to a single gathering write.
+     */
+    private static final int MAX_GATHERED_SEGMENTS = 16;
+
+    /**
+     * The {@link VirtualMemorySegment}s to be read.
+     */
+    private final List<VirtualMemorySegment> segments;
+
+    /**
+     * The index of the currently read {@link VirtualMemorySegment} within {@link #segments}.
+     */
+    private int segmentIndex = 0;
+
+    /**
+     * The position of the next byte to read within the payload of the current {@link VirtualMemorySegment}.
+     */
+    private int positionInSegment = 0;
+
+    /**
+     * {@link ReadAccess}es to the {@link #segments} that are re-armed for every transfer and closed in between.
+     */
+    private final ReadAccess[] readAccesses = new ReadAccess[MAX_GATHERED_SEGMENTS];
+
+    /**
+     * Tells whether this channel is open.
+     */
+    private boolean isOpen = true;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param segments the {@link VirtualMemorySegment}s that should be read
+     */
+    public MemoryReadableChannel(List<VirtualMemorySegment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Makes sure that this channel has not been closed.
+     *
+     * @throws ClosedChannelException if this channel has been closed
+     */
+    private void ensureOpen() throws ClosedChannelException {
+        if (!this.isOpen) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (this.segmentIndex >= this.segments.size()) {
+            return -1;
+        }
+
+        int numReadBytes = 0;
+        while (dst.hasRemaining() && this.segmentIndex < this.segments.size()) {
+            final ReadAccess readAccess = this.readAccesses[0] =
+                    this.segments.get(this.segmentIndex).getReadAccess(this.readAccesses[0]);
+            try {
+                final ByteBuffer payload = readAccess.getPayload();
+                final int payloadLimit = payload.limit();
+                payload.position(this.positionInSegment);
+                final int numBytes = Math.min(payload.remaining(), dst.remaining());
+                payload.limit(this.positionInSegment + numBytes);
+                dst.put(payload);
+                numReadBytes += numBytes;
+                advance(payload.position(), payloadLimit);
+            } finally {
+                readAccess.close();
+            }
+        }
+        return numReadBytes;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        ensureOpen();
+        if (this.segmentIndex >= this.segments.size()) {
+            return -1L;
+        }
+
+        long numReadBytes = 0L;
+        for (int i = offset; i < offset + length && this.segmentIndex < this.segments.size(); i++) {
+            numReadBytes += read(dsts[i]);
+        }
+        return numReadBytes;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts) throws IOException {
+        return read(dsts, 0, dsts.length);
+    }
+
+    /**
+     * Writes all remaining bytes of this channel to a {@link GatheringByteChannel}. The payloads of several
+     * {@link VirtualMemorySegment}s are passed to the channel at once without copying them.
+     * <p>Only the current segment is loaded if necessary. Further segments join a gathering write only if they are
+     * resident anyway, so that the transfer does not occupy more main memory than a plain {@link #read(ByteBuffer)}
+     * and does not preempt other memory for its gathering writes.</p>
+     *
+     * @param target the {@link GatheringByteChannel} to write to
+     * @return the number of transferred bytes; may be less than the number of remaining bytes if the target does not
+     * accept any more bytes for now
+     * @throws IOException if the target fails
+     */
+    public long transferTo(GatheringByteChannel target) throws IOException {
+        ensureOpen();
+        final ByteBuffer[] payloads = new ByteBuffer[MAX_GATHERED_SEGMENTS];
+        long numTransferredBytes = 0L;
+        while (this.segmentIndex < this.segments.size()) {
+            // Access the current segment and gather the subsequent resident segments.
+            this.readAccesses[0] = this.segments.get(this.segmentIndex).getReadAccess(this.readAccesses[0]);
+            int numAccesses = 1;
+            try {
+                payloads[0] = this.readAccesses[0].getPayload();
+                while (numAccesses < MAX_GATHERED_SEGMENTS && this.segmentIndex + numAccesses < this.segments.size()) {
+                    final VirtualMemorySegment segment = this.segments.get(this.segmentIndex + numAccesses);
+                    final ReadAccess readAccess = segment.tryGetReadAccess(this.readAccesses[numAccesses]);
+                    if (readAccess == null) break;
+                    this.readAccesses[numAccesses] = readAccess;
+                    payloads[numAccesses] = readAccess.getPayload();
+                    numAccesses++;
+                }
+                payloads[0].position(this.positionInSegment);
+
+                // Write the segments and determine how far the write went.
+                final long numBytes = target.write(payloads, 0, numAccesses);
+                numTransferredBytes += numBytes;
+                for (int i = 0; i < numAccesses; i++) {
+                    if (!advance(payloads[i].position(), payloads[i].limit())) break;
+                }
+                if (numBytes == 0L) break;
+            } finally {
+                for (int i = 0; i < numAccesses; i++) {
+                    payloads[i] = null;
+                    this.readAccesses[i].close();
+                }
+            }
+        }
+        return numTransferredBytes;
+    }
+
+    /**
+     * Updates the read position after reading the current {@link VirtualMemorySegment}.
+     *
+     * @param position     the position in the payload of the current {@link VirtualMemorySegment} up to which it has
+     *                     been read
+     * @param payloadLimit the number of bytes in the payload of the current {@link VirtualMemorySegment}
+     * @return whether the current {@link VirtualMemorySegment} has been read completely, i.e., the read position has
+     * moved to the next segment
+     */
+    private boolean advance(int position, int payloadLimit) {
+        if (position < payloadLimit) {
+            this.positionInSegment = position;
+            return false;
+        }
+        this.segmentIndex++;
+        this.positionInSegment = 0;
+        return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.isOpen;
+    }
+
+    @Override
+    public void close() {
+        this.isOpen = false;
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.sekruse.manmem.streams;
+
+import com.github.sekruse.manmem.manager.CapacityExceededException;
+import com.github.sekruse.manmem.manager.MemoryManager;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class allows to write to newly requested {@link VirtualMemorySegment}s in terms of a
+ * {@link GatheringByteChannel}. In addition, {@link #transferFrom(ScatteringByteChannel, long)} hands the payloads of
+ * several segments at once to a scattering read, so that no intermediate copies are needed.
+ */
+public class MemoryWritableChannel implements GatheringByteChannel {
+
+    /**
+     * The maximum number of segments whose payloads are passed to a single scattering read.
+     */
+    private static final int MAX_SCATTERED_SEGMENTS = 16;
+
+    /**
+     * Collects created {@link VirtualMemorySegment}s.
+     */
+    private final List<VirtualMemorySegment> collector;
+
+    /**
+     * Provides new {@link VirtualMemorySegment}s.
+     */
+    private final MemoryManager memoryManager;
+
+    /**
+     * The currently written {@link VirtualMemorySegment}.
+     */
+    private VirtualMemorySegment currentVms;
+
+    /**
+     * {@link WriteAccess} to {@link #currentVms}. It is re-armed for every segment and closed in between.
+     */
+    private WriteAccess writeAccess;
+
+    /**
+     * {@link ByteBuffer} for {@link #writeAccess}.
+     */
+    private ByteBuffer writeBuffer;
+
+    /**
+     * {@link WriteAccess}es to the further segments of a scattering read. They are re-armed for every read and
+     * closed in between.
+     */
+    private final WriteAccess[] scatteredWriteAccesses = new WriteAccess[MAX_SCATTERED_SEGMENTS];
+
+    /**
+     * Tells whether this channel is open.
+     */
+    private boolean isOpen = true;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     */
+    public MemoryWritableChannel(MemoryManager memoryManager) {
+        this(memoryManager, new LinkedList<>());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param memoryManager the {@link MemoryManager} from that {@link VirtualMemorySegment}s can be drawn
+     * @param collector     a {@link List} that will collect the created {@link VirtualMemorySegment}s
+     */
+    public MemoryWritableChannel(MemoryManager memoryManager, List<VirtualMemorySegment> collector) {
+        this.memoryManager = memoryManager;
+        this.collector = collector;
+    }
+
+    /**
+     * Makes sure that this channel has not been closed.
+     *
+     * @throws ClosedChannelException if this channel has been closed
+     */
+    private void ensureOpen() throws ClosedChannelException {
+        if (!this.isOpen) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        int numWrittenBytes = 0;
+        while (src.hasRemaining()) {
+            updateCurrentVirtualMemorySegment();
+            numWrittenBytes += putIntoCurrentSegment(src);
+            if (!this.writeBuffer.hasRemaining()) {
+                closeSegment();
+            }
+        }
+        return numWrittenBytes;
+    }
+
+    /**
+     * Writes the given buffers one segment at a time, i.e., every {@link VirtualMemorySegment} is filled from as many
+     * buffers as needed before the next segment is requested.
+     */
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        ensureOpen();
+        final int endIndex = offset + length;
+        int srcIndex = offset;
+        long numWrittenBytes = 0L;
+        while (true) {
+            while (srcIndex < endIndex && !srcs[srcIndex].hasRemaining()) {
+                srcIndex++;
+            }
+            if (srcIndex == endIndex) break;
+
+            updateCurrentVirtualMemorySegment();
+            while (srcIndex < endIndex && this.writeBuffer.hasRemaining()) {
+                numWrittenBytes += putIntoCurrentSegment(srcs[srcIndex]);
+                if (!srcs[srcIndex].hasRemaining()) {
+                    srcIndex++;
+                }
+            }
+            if (!this.writeBuffer.hasRemaining()) {
+                closeSegment();
+            }
+        }
+        return numWrittenBytes;
+    }
+
+    /**
+     * Copies as many bytes from a buffer to the payload of the {@link #currentVms} as fit into it.
+     *
+     * @param src the buffer to copy from
+     * @return the number of copied bytes
+     */
+    private int putIntoCurrentSegment(ByteBuffer src) {
+        final int numBytes = Math.min(src.remaining(), this.writeBuffer.remaining());
+        final int srcLimit = src.limit();
+        src.limit(src.position() + numBytes);
+        this.writeBuffer.put(src);
+        src.limit(srcLimit);
+        return numBytes;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    /**
+     * Reads bytes from a {@link ScatteringByteChannel} into this channel. The payloads of several
+     * {@link VirtualMemorySegment}s are passed to the channel at once, so that the bytes are not copied.
+     *
+     * @param source the {@link ScatteringByteChannel} to read from
+     * @param count  the maximum number of bytes to transfer
+     * @return the number of transferred bytes; may be less than {@code count} if the source has reached its end or
+     * does not provide any more bytes for now
+     * @throws IOException if the source fails
+     */
+    public long transferFrom(ScatteringByteChannel source, long count) throws IOException {
+        ensureOpen();
+        final ByteBuffer[] payloads = new ByteBuffer[MAX_SCATTERED_SEGMENTS];
+        final VirtualMemorySegment[] scatteredSegments = new VirtualMemorySegment[MAX_SCATTERED_SEGMENTS];
+        long numTransferredBytes = 0L;
+        while (numTransferredBytes < count) {
+            // Provide the current segment and as many further segments as needed and allowed.
+            updateCurrentVirtualMemorySegment();
+            final long numRemainingBytes = count - numTransferredBytes;
+            payloads[0] = this.writeBuffer;
+            int numPayloads = 1;
+            if (numRemainingBytes > this.writeBuffer.remaining()) {
+                final int segmentSize = this.memoryManager.getDefaultSegmentSize();
+                final long numMissingSegments =
+                        (numRemainingBytes - this.writeBuffer.remaining() + segmentSize - 1) / segmentSize;
+                final int numFurtherSegments = (int) Math.min(MAX_SCATTERED_SEGMENTS - 1, numMissingSegments);
+                List<VirtualMemorySegment> furtherSegments;
+                try {
+                    furtherSegments = this.memoryManager.requestDefaultMemory(numFurtherSegments);
+                } catch (CapacityExceededException e) {
+                    // Make do with the current segment.
+                    furtherSegments = Collections.emptyList();
+                }
+                for (VirtualMemorySegment segment : furtherSegments) {
+                    scatteredSegments[numPayloads] = segment;
+                    this.scatteredWriteAccesses[numPayloads] =
+                            segment.getOverwriteAccess(this.scatteredWriteAccesses[numPayloads]);
+                    payloads[numPayloads] = this.scatteredWriteAccesses[numPayloads].getPayload();
+                    payloads[numPayloads].clear();
+                    numPayloads++;
+                }
+            }
+
+            // Do not read more than requested.
+            final ByteBuffer lastPayload = payloads[numPayloads - 1];
+            long numProvidedBytes = 0L;
+            for (int i = 0; i < numPayloads - 1; i++) {
+                numProvidedBytes += payloads[i].remaining();
+            }
+            lastPayload.limit((int) Math.min(lastPayload.limit(),
+                    lastPayload.position() + numRemainingBytes - numProvidedBytes));
+
+            // Read and take over the (partially) filled segments.
+            final long numBytes;
+            try {
+                numBytes = source.read(payloads, 0, numPayloads);
+            } finally {
+                lastPayload.limit(lastPayload.capacity());
+                takeOverScatteredSegments(scatteredSegments, numPayloads);
+                for (int i = 0; i < numPayloads; i++) {
+                    payloads[i] = null;
+                    scatteredSegments[i] = null;
+                }
+            }
+            if (numBytes <= 0L) break;
+            numTransferredBytes += numBytes;
+        }
+        return numTransferredBytes;
+    }
+
+    /**
+     * Handles the segments of a scattering read after the read. Filled segments are closed. The last partially filled
+     * segment becomes the {@link #currentVms}. Segments that have not received any bytes are released.
+     *
+     * @param scatteredSegments the segments of the scattering read; the first one is the {@link #currentVms}
+     * @param numSegments       the number of segments of the scattering read
+     */
+    private void takeOverScatteredSegments(VirtualMemorySegment[] scatteredSegments, int numSegments) {
+        if (!this.writeBuffer.hasRemaining()) {
+            closeSegment();
+        }
+        for (int i = 1; i < numSegments; i++) {
+            final WriteAccess scatteredWriteAccess = this.scatteredWriteAccesses[i];
+            final ByteBuffer payload = scatteredWriteAccess.getPayload();
+            if (payload.position() == 0) {
+                payload.flip();
+                scatteredWriteAccess.close();
+                scatteredSegments[i].release();
+                continue;
+            }
+            this.collector.add(scatteredSegments[i]);
+            if (!payload.hasRemaining()) {
+                payload.flip();
+                scatteredWriteAccess.close();
+                continue;
+            }
+
+            // Keep the partially filled segment open and swap the accesses for reuse.
+            if (this.currentVms != null) {
+                closeSegment();
+            }
+            this.scatteredWriteAccesses[i] = this.writeAccess;
+            this.currentVms = scatteredSegments[i];
+            this.writeAccess = scatteredWriteAccess;
+            this.writeBuffer = payload;
+        }
+    }
+
+    /**
+     * If there is no {@link VirtualMemorySegment} being written currently, request a new one.
+     */
+    private void updateCurrentVirtualMemorySegment() {
+        if (this.currentVms == null) {
+            this.currentVms = this.memoryManager.requestDefaultMemory();
+            this.collector.add(this.currentVms);
+            this.writeAccess = this.currentVms.getOverwriteAccess(this.writeAccess);
+            this.writeBuffer = this.writeAccess.getPayload();
+            this.writeBuffer.clear();
+        }
+    }
+
+    /**
+     * Closes the currently written {@link VirtualMemorySegment}.
+     */
+    private void closeSegment() {
+        this.writeBuffer.flip();
+        this.writeBuffer = null;
+        this.writeAccess.close(); // NB: Keep the closed access to re-arm it for the next segment.
+        this.currentVms = null;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.isOpen;
+    }
+
+    @Override
+    public void close() {
+        if (this.currentVms != null) {
+            // Do not leave behind an empty segment.
+            final boolean isEmpty = this.writeBuffer.position() == 0;
+            final VirtualMemorySegment lastVms = this.currentVms;
+            closeSegment();
+            if (isEmpty) {
+                this.collector.remove(this.collector.size() - 1);
+                lastVms.release();
+            }
+        }
+        this.isOpen = false;
+    }
+
+    /**
+     * @return the collected created {@link VirtualMemorySegment}s
+     */
+    public List<VirtualMemorySegment> getCollector() {
+        return this.collector;
+    }
+}
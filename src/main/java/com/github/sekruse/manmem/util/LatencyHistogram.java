@@ -0,0 +1,111 @@
+package com.github.sekruse.manmem.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies with exponentially growing buckets: bucket {@code i} counts latencies in
+ * {@code [2^(i-1), 2^i)} nanoseconds (bucket {@code 0} counts zero latencies). Recording is cheap and thread-safe.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of buckets. Suffices for any non-negative {@code long} latency.
+     */
+    public static final int NUM_BUCKETS = Long.SIZE;
+
+    /**
+     * Counts the recorded latencies per bucket.
+     */
+    private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+
+    /**
+     * Sums up all recorded latencies (in nanoseconds).
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Creates a new, empty instance.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are treated as zero
+     */
+    public void record(long nanos) {
+        final long latency = Math.max(0L, nanos);
+        this.buckets[NUM_BUCKETS - Long.numberOfLeadingZeros(latency)].increment();
+        this.totalNanos.add(latency);
+    }
+
+    /**
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        long count = 0L;
+        for (LongAdder bucket : this.buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @param bucket the index of the bucket
+     * @return the number of recorded latencies in the given bucket
+     */
+    public long getBucketCount(int bucket) {
+        return this.buckets[bucket].sum();
+    }
+
+    /**
+     * @param bucket the index of the bucket
+     * @return the exclusive upper bound (in nanoseconds) of the latencies in the given bucket
+     */
+    public static long getBucketUpperBound(int bucket) {
+        return bucket >= NUM_BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * @return the mean of the recorded latencies in nanoseconds or {@code 0} if nothing has been recorded
+     */
+    public double getMeanNanos() {
+        final long count = getCount();
+        return count == 0L ? 0d : this.totalNanos.sum() / (double) count;
+    }
+
+    /**
+     * Estimates a percentile of the recorded latencies by the upper bound of the bucket that contains it.
+     *
+     * @param percentile the percentile in {@code (0, 100]}
+     * @return an upper bound for the percentile in nanoseconds or {@code 0} if nothing has been recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile <= 0d || percentile > 100d) {
+            throw new IllegalArgumentException("Illegal percentile: " + percentile);
+        }
+        final long count = getCount();
+        if (count == 0L) {
+            return 0L;
+        }
+        final long rank = (long) Math.ceil(count * percentile / 100d);
+        long seenLatencies = 0L;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            seenLatencies += this.buckets[bucket].sum();
+            if (seenLatencies >= rank) {
+                return getBucketUpperBound(bucket);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram[n=%d, mean=%.0f ns, p50<%d ns, p99<%d ns]",
+                getCount(), getMeanNanos(), getPercentileNanos(50d), getPercentileNanos(99d));
+    }
+}
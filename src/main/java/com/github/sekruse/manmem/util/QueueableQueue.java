@@ -2,6 +2,7 @@ package com.github.sekruse.manmem.util;
 
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 /**
  * This class makes queues made up from {@link Queueable} objects explicit by providing a head and a tail pointer and
@@ -100,6 +101,11 @@ public class QueueableQueue<Element extends Queueable<Element>> {
 
     private final ReentrantLock lock = new ReentrantLock();
 
+    /**
+     * The number of elements in this queue.
+     */
+    private volatile int size = 0;
+
     /**
      * Creates a new, empty queue.
      */
@@ -120,6 +126,7 @@ public class QueueableQueue<Element extends Queueable<Element>> {
             element.setQueue(this);
             secondToLastElement.linkWithNextElement(element);
             element.linkWithNextElement(this.tail);
+            this.size++;
         } finally {
             getLock().unlock();
         }
@@ -141,6 +148,7 @@ public class QueueableQueue<Element extends Queueable<Element>> {
             secondElement.notifyBeingPolled();
             secondElement.unlink();
             secondElement.setQueue(null);
+            this.size--;
             return secondElement.reveal();
         } finally {
             getLock().unlock();
@@ -148,6 +156,66 @@ public class QueueableQueue<Element extends Queueable<Element>> {
 
     }
 
+    /**
+     * Removes and returns the first element at the head of the queue that is not granted a second chance. Elements
+     * that are granted a second chance are moved to the tail of the queue instead. If all elements are granted a
+     * second chance, the element at the head of the queue is removed after one round.
+     *
+     * @param isGrantedSecondChance decides whether an element should be moved to the tail rather than being removed
+     * @return the removed element or {@code null} if no such element exists
+     * @see #poll()
+     */
+    public Element poll(Predicate<? super Element> isGrantedSecondChance) {
+        getLock().lock();
+        try {
+            for (int round = this.size; round > 0; round--) {
+                final Queueable<Element> secondElement = this.head.getNextElement();
+                if (!isGrantedSecondChance.test(secondElement.reveal())) {
+                    break;
+                }
+                secondElement.unlink();
+                final Queueable<Element> secondToLastElement = this.tail.getPreviousElement();
+                secondToLastElement.linkWithNextElement(secondElement);
+                secondElement.linkWithNextElement(this.tail);
+            }
+            return poll();
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the given element from this queue. The calling thread should hold the {@link #getLock()}.
+     *
+     * @param element the element to remove
+     * @return whether the element was linked to other elements
+     * @throws IllegalArgumentException if the element is not contained in this queue
+     */
+    public boolean remove(Queueable<Element> element) {
+        getLock().lock();
+        try {
+            if (element.getQueue() != this) {
+                throw new IllegalArgumentException("Element is not contained in this queue.");
+            }
+            final boolean wasLinked = element.unlink();
+            if (!wasLinked) {
+                throw new IllegalStateException("Element was in a queue but not linked.");
+            }
+            element.setQueue(null);
+            this.size--;
+            return true;
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        return this.size;
+    }
+
     /**
      * Access to the queue's {@link Lock}. It should only be held very shortly to add or remove elements from the
      * queue.
@@ -0,0 +1,130 @@
+package com.github.sekruse.manmem.util;
+
+import java.util.function.Predicate;
+
+/**
+ * This class spreads a queue of {@link Queueable} objects over several {@link QueueableQueue} stripes, so that
+ * threads adding and polling elements concurrently rarely contend for the same {@link QueueableQueue#getLock()}.
+ * Each thread has a home stripe: it adds elements to it and polls it first. Elements are contained in their stripe
+ * as told by {@link Queueable#getQueue()}, so they can still remove themselves from it.
+ * <p>NB: The FIFO order is only maintained within the stripes. Elements that have been added by a single thread are
+ * polled by that thread in FIFO order, though.</p>
+ */
+public class StripedQueueableQueue<Element extends Queueable<Element>> {
+
+    /**
+     * The maximum number of stripes that are created by default.
+     */
+    private static final int MAX_DEFAULT_STRIPES = 64;
+
+    /**
+     * The stripes of this queue. Their number is a power of two.
+     */
+    private final QueueableQueue<Element>[] stripes;
+
+    /**
+     * Creates a new, empty queue with a stripe per available processor.
+     */
+    public StripedQueueableQueue() {
+        this(Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_STRIPES));
+    }
+
+    /**
+     * Creates a new, empty queue.
+     *
+     * @param minStripes the minimum number of stripes; is rounded up to the next power of two
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StripedQueueableQueue(int minStripes) {
+        if (minStripes < 1 || minStripes > 1 << 30) {
+            throw new IllegalArgumentException("Illegal number of stripes: " + minStripes);
+        }
+        final int numStripes = Integer.highestOneBit(minStripes) == minStripes ?
+                minStripes :
+                Integer.highestOneBit(minStripes) << 1;
+        this.stripes = new QueueableQueue[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            this.stripes[i] = new QueueableQueue<>();
+        }
+    }
+
+    /**
+     * Determines the stripe that the calling thread uses first.
+     *
+     * @return the index of the home stripe
+     */
+    private int getHomeStripe() {
+        // Spread the sequential thread IDs with the golden ratio.
+        final long hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (this.stripes.length - 1);
+    }
+
+    /**
+     * Adds an element to the tail of the home stripe of the calling thread.
+     *
+     * @param element the element to add
+     * @see QueueableQueue#add(Queueable)
+     */
+    public void add(Queueable<Element> element) {
+        this.stripes[getHomeStripe()].add(element);
+    }
+
+    /**
+     * Removes and returns the element at the head of the first non-empty stripe, starting with the home stripe of the
+     * calling thread.
+     *
+     * @return the removed element or {@code null} if all stripes are empty
+     * @see QueueableQueue#poll()
+     */
+    public Element poll() {
+        final int homeStripe = getHomeStripe();
+        for (int i = 0; i < this.stripes.length; i++) {
+            final QueueableQueue<Element> stripe = this.stripes[(homeStripe + i) & (this.stripes.length - 1)];
+            if (stripe.size() == 0) continue;
+            final Element element = stripe.poll();
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes and returns the first element that is not granted a second chance from the first non-empty stripe,
+     * starting with the home stripe of the calling thread.
+     *
+     * @param isGrantedSecondChance decides whether an element should be moved to the tail rather than being removed
+     * @return the removed element or {@code null} if all stripes are empty
+     * @see QueueableQueue#poll(Predicate)
+     */
+    public Element poll(Predicate<? super Element> isGrantedSecondChance) {
+        final int homeStripe = getHomeStripe();
+        for (int i = 0; i < this.stripes.length; i++) {
+            final QueueableQueue<Element> stripe = this.stripes[(homeStripe + i) & (this.stripes.length - 1)];
+            if (stripe.size() == 0) continue;
+            final Element element = stripe.poll(isGrantedSecondChance);
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of elements in this queue; not an atomic snapshot under concurrent modifications
+     */
+    public int size() {
+        int size = 0;
+        for (QueueableQueue<Element> stripe : this.stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of stripes of this queue
+     */
+    public int getNumStripes() {
+        return this.stripes.length;
+    }
+}
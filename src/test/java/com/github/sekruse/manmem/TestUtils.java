@@ -1,6 +1,6 @@
 package com.github.sekruse.manmem;
 
-import com.github.sekruse.manmem.io.DiskOperator;
+import com.github.sekruse.manmem.manager.MemoryManagerStats;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -11,23 +11,22 @@ public class TestUtils {
     private static long resetTime = System.currentTimeMillis();
 
     /**
-     * Resets static statistics pertaining to this project.
+     * Starts a new measurement for {@link #logIoStats(Object, String, MemoryManagerStats)}.
      */
     public static void resetIoStats() {
-        DiskOperator.SEGMENT_LOADS.set(0);
-        DiskOperator.SEGMENT_WRITES.set(0);
         resetTime = System.currentTimeMillis();
     }
 
     /**
      * Logs statistics pertaining to this project.
      *
-     * @param caller the object calling this function
+     * @param caller          the object calling this function
      * @param methodSignature the signature of the test method
+     * @param stats           the {@link MemoryManagerStats} of the memory manager used by the test method
      */
-    public static void logIoStats(Object caller, String methodSignature) {
-        final long numSegmentLoads = DiskOperator.SEGMENT_LOADS.get();
-        final long numSegmentWrites = DiskOperator.SEGMENT_WRITES.get();
+    public static void logIoStats(Object caller, String methodSignature, MemoryManagerStats stats) {
+        final long numSegmentLoads = stats.getLoadLatencies().getCount();
+        final long numSegmentWrites = stats.getSpillLatencies().getCount();
         final long elapsedTime = System.currentTimeMillis() - resetTime;
         LoggerFactory
                 .getLogger(caller.getClass())
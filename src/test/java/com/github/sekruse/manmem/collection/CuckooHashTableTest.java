@@ -45,7 +45,7 @@ public class CuckooHashTableTest {
         final int segmentSize = 32 * KB;
         final long requiredMemory = CuckooHashTable.calculateRequiredMemory(numEntries, 0.5);
         final long ceiledRequiredMemory = MemoryManagers.fitMemoryToSegments(requiredMemory, segmentSize);
-        MemoryManager memoryManager = new GlobalMemoryManager(ceiledRequiredMemory * segmentSize, segmentSize);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(ceiledRequiredMemory * segmentSize, segmentSize);
         CuckooHashTable hashTable = new CuckooHashTable(numEntries * 2,
                 memoryManager,
                 noKey,
@@ -60,7 +60,7 @@ public class CuckooHashTableTest {
 
         memoryManager.close();
 
-        TestUtils.logIoStats(this, "testSimplePutAndGet()");
+        TestUtils.logIoStats(this, "testSimplePutAndGet()", memoryManager.getStats());
     }
 
     @Test
@@ -85,7 +85,7 @@ public class CuckooHashTableTest {
         final int segmentSize = 32 * KB;
         final long requiredMemory = CuckooHashTable.calculateRequiredMemory(numEntries, 0.5);
         final long ceiledRequiredMemory = MemoryManagers.fitMemoryToSegments(requiredMemory, segmentSize);
-        MemoryManager memoryManager = new GlobalMemoryManager(ceiledRequiredMemory * segmentSize, segmentSize);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(ceiledRequiredMemory * segmentSize, segmentSize);
         CuckooHashTable hashTable = new CuckooHashTable(numEntries * 2,
                 memoryManager,
                 noKey,
@@ -102,7 +102,7 @@ public class CuckooHashTableTest {
         hashTable.unlock();
         memoryManager.close();
 
-        TestUtils.logIoStats(this, "testSimplePutAndGetWithWriteLock()");
+        TestUtils.logIoStats(this, "testSimplePutAndGetWithWriteLock()", memoryManager.getStats());
 
     }
 
@@ -128,7 +128,7 @@ public class CuckooHashTableTest {
         final int segmentSize = 32 * KB;
         final long requiredMemory = CuckooHashTable.calculateRequiredMemory(numEntries, 0.5);
         final long ceiledRequiredMemory = MemoryManagers.fitMemoryToSegments(requiredMemory, segmentSize);
-        MemoryManager memoryManager = new GlobalMemoryManager(ceiledRequiredMemory * segmentSize, segmentSize);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(ceiledRequiredMemory * segmentSize, segmentSize);
         CuckooHashTable hashTable = new CuckooHashTable(numEntries * 2,
                 memoryManager,
                 noKey,
@@ -147,7 +147,7 @@ public class CuckooHashTableTest {
 
         memoryManager.close();
 
-        TestUtils.logIoStats(this, "testSimplePutAndGetWithWriteAndReadLocks()");
+        TestUtils.logIoStats(this, "testSimplePutAndGetWithWriteAndReadLocks()", memoryManager.getStats());
 
     }
 
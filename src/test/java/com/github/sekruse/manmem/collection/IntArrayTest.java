@@ -38,7 +38,7 @@ public class IntArrayTest {
         }
 
         // Create an IntArray.
-        MemoryManager memoryManager = new GlobalMemoryManager(10 * MB, 32 * KB);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(10 * MB, 32 * KB);
         final IntArray intArray = new IntArray(testData.length, memoryManager);
 
         // Insert the test data in some random order.
@@ -49,7 +49,7 @@ public class IntArrayTest {
 
         memoryManager.close();
 
-        TestUtils.logIoStats(this, "testSimpleSetAndGet()");
+        TestUtils.logIoStats(this, "testSimpleSetAndGet()", memoryManager.getStats());
     }
 
     @Test
@@ -66,7 +66,7 @@ public class IntArrayTest {
         }
 
         // Create an IntArray.
-        MemoryManager memoryManager = new GlobalMemoryManager(10 * MB, 32 * KB);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(10 * MB, 32 * KB);
         final IntArray intArray = new IntArray(testData.length, memoryManager);
         intArray.lockForWrite();
 
@@ -78,7 +78,7 @@ public class IntArrayTest {
 
         memoryManager.close();
 
-        TestUtils.logIoStats(this, "testSimpleSetAndGetWithWriteLock()");
+        TestUtils.logIoStats(this, "testSimpleSetAndGetWithWriteLock()", memoryManager.getStats());
     }
 
     @Test
@@ -95,7 +95,7 @@ public class IntArrayTest {
         }
 
         // Create an IntArray.
-        MemoryManager memoryManager = new GlobalMemoryManager(10 * MB, 32 * KB);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(10 * MB, 32 * KB);
         final IntArray intArray = new IntArray(testData.length, memoryManager);
         intArray.lockForWrite();
 
@@ -112,7 +112,7 @@ public class IntArrayTest {
 
         memoryManager.close();
 
-        TestUtils.logIoStats(this, "testSimpleSetAndGetWithWriteAndReadLocks()");
+        TestUtils.logIoStats(this, "testSimpleSetAndGetWithWriteAndReadLocks()", memoryManager.getStats());
     }
 
     /**
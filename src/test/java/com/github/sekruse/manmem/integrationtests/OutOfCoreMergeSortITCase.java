@@ -4,6 +4,7 @@ import com.github.sekruse.manmem.TestUtils;
 import com.github.sekruse.manmem.manager.CapacityExceededException;
 import com.github.sekruse.manmem.manager.GlobalMemoryManager;
 import com.github.sekruse.manmem.manager.MemoryManager;
+import com.github.sekruse.manmem.manager.MemoryManagerStats;
 import com.github.sekruse.manmem.memory.VirtualMemorySegment;
 import com.github.sekruse.manmem.memory.ReadAccess;
 import com.github.sekruse.manmem.memory.WriteAccess;
@@ -30,8 +31,8 @@ public class OutOfCoreMergeSortITCase {
         final int segmentSize = 32 * KB;
 
         TestUtils.resetIoStats();
-        runMergeSort(dataSize, managedMemory, segmentSize);
-        TestUtils.logIoStats(this, "testMedium()");
+        final MemoryManagerStats stats = runMergeSort(dataSize, managedMemory, segmentSize);
+        TestUtils.logIoStats(this, "testMedium()", stats);
     }
 
     @Test
@@ -42,8 +43,8 @@ public class OutOfCoreMergeSortITCase {
         final int segmentSize = 1;
 
         TestUtils.resetIoStats();
-        runMergeSort(dataSize, managedMemory, segmentSize);
-        TestUtils.logIoStats(this, "testMedium()");    }
+        final MemoryManagerStats stats = runMergeSort(dataSize, managedMemory, segmentSize);
+        TestUtils.logIoStats(this, "testMedium()", stats);    }
 
     @Test(expected = CapacityExceededException.class)
     public void testTooTiny() {
@@ -55,7 +56,7 @@ public class OutOfCoreMergeSortITCase {
         runMergeSort(dataSize, managedMemory, segmentSize);
     }
 
-    public void runMergeSort(int dataSize, int managedMemory, int segmentSize) {
+    public MemoryManagerStats runMergeSort(int dataSize, int managedMemory, int segmentSize) {
         byte[] originalData = new byte[dataSize];
         Random random = new Random(42);
         random.nextBytes(originalData);
@@ -65,7 +66,7 @@ public class OutOfCoreMergeSortITCase {
         Arrays.sort(sortedData);
 
         // Create a GlobalMemoryManger with a main memory capacity of 1 MB.
-        MemoryManager memoryManager = new GlobalMemoryManager(managedMemory, segmentSize);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(managedMemory, segmentSize);
 
         // Load the original data into the managed memory.
         List<VirtualMemorySegment> memories = load(originalData, memoryManager);
@@ -83,6 +84,7 @@ public class OutOfCoreMergeSortITCase {
 
         // Quit.
         memoryManager.close();
+        return memoryManager.getStats();
     }
 
     /**
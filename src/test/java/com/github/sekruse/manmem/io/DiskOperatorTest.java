@@ -8,7 +8,14 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Tests for the {@link DiskOperator} class.
@@ -133,4 +140,215 @@ public class DiskOperatorTest {
         Assert.assertEquals(diskMemorySegment1.getFileOffset(), diskMemorySegment3.getFileOffset());
     }
 
+
+    @Test
+    public void testWritingSegmentsOfDifferentSizes() throws Exception {
+        final int blockSize = 8;
+        final File diskOperatorFile = File.createTempFile("manmem", "segments");
+        diskOperatorFile.deleteOnExit();
+
+        // Create a disk operator.
+        DiskOperator diskOperator = new DiskOperator(diskOperatorFile, blockSize);
+
+        // Write a small, a large, and another small segment.
+        byte[] testData1 = new byte[]{0, 1, 2, 3};
+        final DiskMemorySegment diskMemorySegment1 = diskOperator.write(createMainMemorySegment(8, testData1));
+        byte[] testData2 = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20};
+        final DiskMemorySegment diskMemorySegment2 = diskOperator.write(createMainMemorySegment(32, testData2));
+        byte[] testData3 = new byte[]{-1, -2};
+        final DiskMemorySegment diskMemorySegment3 = diskOperator.write(createMainMemorySegment(8, testData3));
+        Assert.assertEquals(8, diskMemorySegment2.getFileOffset());
+        Assert.assertEquals(40, diskMemorySegment3.getFileOffset());
+
+        loadAndCompareMainMemorySegment(diskMemorySegment1, diskOperator, testData1, 8);
+        loadAndCompareMainMemorySegment(diskMemorySegment2, diskOperator, testData2, 32);
+        loadAndCompareMainMemorySegment(diskMemorySegment3, diskOperator, testData3, 8);
+
+        // Free the first two segments, so that a large segment fits into their coalesced blocks.
+        diskMemorySegment1.free();
+        diskMemorySegment2.free();
+        byte[] testData4 = new byte[]{42, 42, 42};
+        final DiskMemorySegment diskMemorySegment4 = diskOperator.write(createMainMemorySegment(40, testData4));
+        Assert.assertEquals(0, diskMemorySegment4.getFileOffset());
+        loadAndCompareMainMemorySegment(diskMemorySegment4, diskOperator, testData4, 40);
+        loadAndCompareMainMemorySegment(diskMemorySegment3, diskOperator, testData3, 8);
+
+        diskOperator.close();
+    }
+
+
+    @Test
+    public void testAsynchronousWritingAndReading() throws Exception {
+        final int segmentSize = 8;
+        final File diskOperatorFile = File.createTempFile("manmem", "segments");
+        diskOperatorFile.deleteOnExit();
+
+        // Create a disk operator.
+        DiskOperator diskOperator = new DiskOperator(diskOperatorFile, segmentSize);
+
+        // Issue several writes at once.
+        final byte[][] testData = {{0, 1, 2, 3}, {10, 10, 10, 10, -10, -10, -10, -10}, {1, 2, 3, 4}, {55, 66, 123}};
+        final List<CompletableFuture<DiskMemorySegment>> writeFutures = new ArrayList<>();
+        for (byte[] data : testData) {
+            writeFutures.add(diskOperator.writeAsync(createMainMemorySegment(segmentSize, data)));
+        }
+
+        // Issue several loads at once.
+        final List<MainMemorySegment> loadedSegments = new ArrayList<>();
+        final List<CompletableFuture<Void>> loadFutures = new ArrayList<>();
+        for (CompletableFuture<DiskMemorySegment> writeFuture : writeFutures) {
+            final MainMemorySegment loadedSegment = new MainMemorySegment(segmentSize);
+            loadedSegments.add(loadedSegment);
+            loadFutures.add(diskOperator.loadAsync(writeFuture.get(), loadedSegment));
+        }
+
+        // Compare the loaded main memory segments with the original data.
+        for (int i = 0; i < testData.length; i++) {
+            loadFutures.get(i).get();
+            final ByteBuffer loadedBuffer = loadedSegments.get(i).asByteBuffer();
+            Assert.assertEquals(testData[i].length, loadedBuffer.limit());
+            Assert.assertArrayEquals(testData[i], Arrays.copyOf(loadedBuffer.array(), testData[i].length));
+        }
+
+        diskOperator.close();
+    }
+
+
+    @Test
+    public void testConcurrentWritingAndReading() throws Exception {
+        final int segmentSize = 64;
+        final File diskOperatorFile = File.createTempFile("manmem", "segments");
+        diskOperatorFile.deleteOnExit();
+
+        // Create a disk operator.
+        DiskOperator diskOperator = new DiskOperator(diskOperatorFile, segmentSize);
+
+        // Let several threads write, load, and recycle segments at the same time.
+        final int numThreads = 4;
+        final ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int threadId = 0; threadId < numThreads; threadId++) {
+            final byte fillValue = (byte) threadId;
+            futures.add(executorService.submit(() -> {
+                final byte[] testData = new byte[segmentSize];
+                Arrays.fill(testData, fillValue);
+                for (int i = 0; i < 100; i++) {
+                    final DiskMemorySegment diskMemorySegment =
+                            diskOperator.write(createMainMemorySegment(segmentSize, testData));
+                    loadAndCompareMainMemorySegment(diskMemorySegment, diskOperator, testData, segmentSize);
+                    if (i % 2 == 0) {
+                        diskMemorySegment.free();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        diskOperator.close();
+    }
+
+
+    @Test
+    public void testFileShrinksWhenTrailingSegmentsAreFreed() throws Exception {
+        final int segmentSize = 8;
+        final File diskOperatorFile = File.createTempFile("manmem", "segments");
+        diskOperatorFile.deleteOnExit();
+
+        // Create a disk operator and write three segments.
+        DiskOperator diskOperator = new DiskOperator(diskOperatorFile, segmentSize);
+        final DiskMemorySegment diskMemorySegment1 = diskOperator.write(createMainMemorySegment(8, new byte[8]));
+        final DiskMemorySegment diskMemorySegment2 = diskOperator.write(createMainMemorySegment(8, new byte[8]));
+        final DiskMemorySegment diskMemorySegment3 = diskOperator.write(createMainMemorySegment(8, new byte[8]));
+        Assert.assertEquals(3 * 8, diskOperator.getFileSize());
+
+        // Freeing a segment in the middle does not shrink the file, but freeing the trailing segments does.
+        diskMemorySegment2.free();
+        Assert.assertEquals(3 * 8, diskOperator.getFileSize());
+        diskMemorySegment3.free();
+        Assert.assertEquals(8, diskOperator.getFileSize());
+        diskMemorySegment1.free();
+        Assert.assertEquals(0, diskOperator.getFileSize());
+
+        diskOperator.close();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        final int segmentSize = 8;
+        final File diskOperatorFile = File.createTempFile("manmem", "segments");
+        diskOperatorFile.deleteOnExit();
+
+        // Create a disk operator and write several segments.
+        DiskOperator diskOperator = new DiskOperator(diskOperatorFile, segmentSize);
+        final List<DiskMemorySegment> diskMemorySegments = new ArrayList<>();
+        final List<byte[]> testData = new ArrayList<>();
+        for (byte i = 0; i < 6; i++) {
+            final byte[] data = {i, i, i, i, i, i, i, i};
+            diskMemorySegments.add(diskOperator.write(createMainMemorySegment(segmentSize, data)));
+            testData.add(data);
+        }
+
+        // Free the first segments, so that the file becomes sparse.
+        for (int i = 0; i < 3; i++) {
+            diskMemorySegments.get(i).free();
+        }
+        Assert.assertEquals(6 * 8, diskOperator.getFileSize());
+
+        // Compact the file.
+        Assert.assertEquals(2, diskOperator.compact(2));
+        Assert.assertEquals(4 * 8, diskOperator.getFileSize());
+        Assert.assertEquals(1, diskOperator.compact(Integer.MAX_VALUE));
+        Assert.assertEquals(3 * 8, diskOperator.getFileSize());
+
+        for (int i = 3; i < 6; i++) {
+            Assert.assertTrue(diskMemorySegments.get(i).getFileOffset() < 3 * 8);
+            loadAndCompareMainMemorySegment(diskMemorySegments.get(i), diskOperator, testData.get(i), segmentSize);
+        }
+
+        diskOperator.close();
+    }
+
+    @Test
+    public void testCompactionDuringAsynchronousWriting() throws Exception {
+        final int segmentSize = 8;
+        final File diskOperatorFile = File.createTempFile("manmem", "segments");
+        diskOperatorFile.deleteOnExit();
+        DiskOperator diskOperator = new DiskOperator(diskOperatorFile, segmentSize);
+
+        // Keep on compacting while segments are written asynchronously behind freed segments.
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AtomicBoolean isCompacting = new AtomicBoolean(true);
+        final Future<?> compaction = executor.submit(() -> {
+            while (isCompacting.get()) {
+                diskOperator.compact(Integer.MAX_VALUE);
+            }
+            return null;
+        });
+        final List<DiskMemorySegment> diskMemorySegments = new ArrayList<>();
+        final List<byte[]> testData = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final DiskMemorySegment filler = diskOperator.write(createMainMemorySegment(segmentSize, new byte[3]));
+            final byte[] data = {(byte) i, (byte) (i >> 8), 1, 2, 3};
+            final CompletableFuture<DiskMemorySegment> writingFuture =
+                    diskOperator.writeAsync(createMainMemorySegment(segmentSize, data));
+            filler.free();
+            diskMemorySegments.add(writingFuture.join());
+            testData.add(data);
+        }
+        isCompacting.set(false);
+        compaction.get();
+        executor.shutdown();
+
+        // All segments should have been relocated with their actual sizes.
+        for (int i = 0; i < diskMemorySegments.size(); i++) {
+            loadAndCompareMainMemorySegment(diskMemorySegments.get(i), diskOperator, testData.get(i), segmentSize);
+        }
+
+        diskOperator.close();
+    }
+
 }
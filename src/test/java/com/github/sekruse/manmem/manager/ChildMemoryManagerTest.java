@@ -0,0 +1,184 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.memory.ReadAccess;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for the {@link ChildMemoryManager}.
+ */
+public class ChildMemoryManagerTest {
+
+    @Test
+    public void testMaximumCapacityIsEnforced() {
+        GlobalMemoryManager globalMemoryManager = new GlobalMemoryManager(4 * 32, 32);
+        MemoryManager childMemoryManager = globalMemoryManager.createChildMemoryManager(0, 2 * 32);
+
+        // Write three segments although only two fit into the quota.
+        List<VirtualMemorySegment> segments = new ArrayList<>();
+        for (byte i = 0; i < 3; i++) {
+            final VirtualMemorySegment vms = childMemoryManager.requestDefaultMemory();
+            write(vms, i);
+            segments.add(vms);
+            Assert.assertTrue(childMemoryManager.getAllocatedCapacity() <= 2 * 32);
+        }
+
+        // The other tenants should not have been affected.
+        Assert.assertEquals(2 * 32, globalMemoryManager.getAllocatedCapacity());
+
+        // Check that all data is still valid.
+        for (byte i = 0; i < 3; i++) {
+            Assert.assertEquals(i, read(segments.get(i)));
+        }
+
+        globalMemoryManager.close();
+    }
+
+    @Test
+    public void testMaximumCapacityIsEnforcedForConcurrentRequests() throws InterruptedException {
+        GlobalMemoryManager globalMemoryManager = new GlobalMemoryManager(64 * 32, 32);
+        MemoryManager childMemoryManager = globalMemoryManager.createChildMemoryManager(0, 4 * 32);
+
+        // Let several threads request more segments than fit into the quota at the same time.
+        final AtomicLong maxAllocatedCapacity = new AtomicLong();
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 100; j++) {
+                    try {
+                        childMemoryManager.requestDefaultMemory();
+                    } catch (CapacityExceededException e) {
+                        // All other segments of the child are in flight, which is fine.
+                    }
+                    maxAllocatedCapacity.accumulateAndGet(childMemoryManager.getAllocatedCapacity(), Math::max);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        startSignal.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertTrue(maxAllocatedCapacity.get() <= 4 * 32);
+        Assert.assertEquals(4 * 32, childMemoryManager.getAllocatedCapacity());
+
+        globalMemoryManager.close();
+    }
+
+    @Test
+    public void testTenantsExceedingTheirShareArePreemptedFirst() {
+        GlobalMemoryManager globalMemoryManager = new GlobalMemoryManager(4 * 32, 32);
+        MemoryManager greedyMemoryManager = globalMemoryManager.createChildMemoryManager(2 * 32, 4 * 32);
+        MemoryManager modestMemoryManager = globalMemoryManager.createChildMemoryManager(2 * 32, 4 * 32);
+
+        // Let the greedy child occupy all the memory.
+        List<VirtualMemorySegment> greedySegments = new ArrayList<>();
+        for (byte i = 0; i < 4; i++) {
+            final VirtualMemorySegment vms = greedyMemoryManager.requestDefaultMemory();
+            write(vms, i);
+            greedySegments.add(vms);
+        }
+        Assert.assertEquals(4 * 32, greedyMemoryManager.getAllocatedCapacity());
+
+        // The modest child should be able to get its guaranteed share from the greedy one.
+        final VirtualMemorySegment vms1 = modestMemoryManager.requestDefaultMemory();
+        write(vms1, (byte) 10);
+        final VirtualMemorySegment vms2 = modestMemoryManager.requestDefaultMemory();
+        write(vms2, (byte) 11);
+        Assert.assertEquals(2 * 32, greedyMemoryManager.getAllocatedCapacity());
+        Assert.assertEquals(2 * 32, modestMemoryManager.getAllocatedCapacity());
+
+        // Now that both children are within their share, the modest child has to preempt its own segments.
+        final VirtualMemorySegment vms3 = modestMemoryManager.requestDefaultMemory();
+        write(vms3, (byte) 12);
+        Assert.assertEquals(2 * 32, greedyMemoryManager.getAllocatedCapacity());
+        Assert.assertEquals(2 * 32, modestMemoryManager.getAllocatedCapacity());
+
+        // Check that all data is still valid.
+        Assert.assertEquals(10, read(vms1));
+        Assert.assertEquals(11, read(vms2));
+        Assert.assertEquals(12, read(vms3));
+        for (byte i = 0; i < 4; i++) {
+            Assert.assertEquals(i, read(greedySegments.get(i)));
+        }
+
+        globalMemoryManager.close();
+    }
+
+    @Test(expected = CapacityExceededException.class)
+    public void testGuaranteedCapacitiesMustNotExceedTheParentCapacity() {
+        GlobalMemoryManager globalMemoryManager = new GlobalMemoryManager(4 * 32, 32);
+        globalMemoryManager.createChildMemoryManager(3 * 32, 4 * 32);
+        try {
+            globalMemoryManager.createChildMemoryManager(2 * 32, 4 * 32);
+        } finally {
+            globalMemoryManager.close();
+        }
+    }
+
+    @Test
+    public void testClosingReturnsGuaranteedCapacity() {
+        GlobalMemoryManager globalMemoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final ChildMemoryManager childMemoryManager = globalMemoryManager.createChildMemoryManager(3 * 32, 4 * 32);
+        final VirtualMemorySegment vms = childMemoryManager.requestDefaultMemory();
+        childMemoryManager.close();
+
+        // The guaranteed capacity should be available again, while the requested memory is still usable.
+        globalMemoryManager.createChildMemoryManager(4 * 32, 4 * 32);
+        write(vms, (byte) 42);
+        Assert.assertEquals(42, read(vms));
+        vms.release();
+
+        globalMemoryManager.close();
+    }
+
+    @Test
+    public void testResizing() {
+        GlobalMemoryManager globalMemoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final ChildMemoryManager childMemoryManager = globalMemoryManager.createChildMemoryManager(32, 4 * 32);
+        final VirtualMemorySegment vms1 = childMemoryManager.requestDefaultMemory();
+        write(vms1, (byte) 1);
+        final VirtualMemorySegment vms2 = childMemoryManager.requestDefaultMemory();
+        write(vms2, (byte) 2);
+
+        childMemoryManager.resize(32);
+        Assert.assertEquals(32, childMemoryManager.getAllocatedCapacity());
+        Assert.assertEquals(32, globalMemoryManager.getFreeCapacity());
+
+        Assert.assertEquals(1, read(vms1));
+        Assert.assertEquals(2, read(vms2));
+
+        globalMemoryManager.close();
+    }
+
+    private static void write(VirtualMemorySegment vms, byte value) {
+        try (WriteAccess writeAccess = vms.getWriteAccess()) {
+            final ByteBuffer buffer = writeAccess.getPayload();
+            buffer.clear();
+            buffer.put(value).flip();
+        }
+    }
+
+    private static byte read(VirtualMemorySegment vms) {
+        try (ReadAccess readAccess = vms.getReadAccess()) {
+            return readAccess.getPayload().get();
+        }
+    }
+
+}
@@ -1,13 +1,30 @@
 package com.github.sekruse.manmem.manager;
 
+import com.github.sekruse.manmem.io.DiskOperator;
+import com.github.sekruse.manmem.manager.eviction.LruEvictionPolicy;
+import com.github.sekruse.manmem.memory.SegmentPriority;
+import com.github.sekruse.manmem.memory.SegmentState;
 import com.github.sekruse.manmem.memory.VirtualMemorySegment;
 import com.github.sekruse.manmem.memory.ReadAccess;
 import com.github.sekruse.manmem.memory.WriteAccess;
-import jdk.nashorn.internal.ir.annotations.Ignore;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests for the {@link GlobalMemoryManager}.
@@ -127,10 +144,567 @@ public class GlobalMemoryManagerTest {
         }
     }
 
-    @Ignore
+    @Test
+    public void testLowPriorityIsPreemptedFirst() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+
+        // The high priority segment is the first to be enqueued and therefore the first candidate in its queue.
+        final VirtualMemorySegment highPriorityVms = memoryManager.requestDefaultMemory(SegmentPriority.HIGH);
+        highPriorityVms.getWriteAccess().close();
+        final VirtualMemorySegment lowPriorityVms = memoryManager.requestDefaultMemory(SegmentPriority.LOW);
+        lowPriorityVms.getWriteAccess().close();
+
+        memoryManager.requestDefaultMemory();
+        Assert.assertNotNull(highPriorityVms.getMainMemorySegment());
+        Assert.assertNull(lowPriorityVms.getMainMemorySegment());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testChangedPriorityIsRespected() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+
+        final VirtualMemorySegment vms1 = memoryManager.requestDefaultMemory();
+        vms1.getWriteAccess().close();
+        final VirtualMemorySegment vms2 = memoryManager.requestDefaultMemory();
+        vms2.getWriteAccess().close();
+        vms1.setPriority(SegmentPriority.HIGH);
+        Assert.assertEquals(SegmentPriority.HIGH, vms1.getPriority());
+
+        memoryManager.requestDefaultMemory();
+        Assert.assertNotNull(vms1.getMainMemorySegment());
+        Assert.assertNull(vms2.getMainMemorySegment());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testSpillingDirectMemory() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32, (File) null,
+                new LruEvictionPolicy.Factory(), true);
+        Assert.assertTrue(memoryManager.isUsingDirectMemory());
+
+        // Write more segments than fit into main memory.
+        final List<VirtualMemorySegment> segments = new ArrayList<>();
+        for (byte i = 0; i < 4; i++) {
+            final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+            try (WriteAccess writeAccess = vms.getWriteAccess()) {
+                final ByteBuffer buffer = writeAccess.getPayload();
+                Assert.assertTrue(buffer.isDirect());
+                buffer.clear();
+                buffer.put(i).put(i).flip();
+            }
+            segments.add(vms);
+        }
+
+        // Check that the spilled segments are restored.
+        for (byte i = 0; i < 4; i++) {
+            try (ReadAccess readAccess = segments.get(i).getReadAccess()) {
+                final ByteBuffer buffer = readAccess.getPayload();
+                Assert.assertEquals(2, buffer.limit());
+                Assert.assertEquals(i, buffer.get());
+                Assert.assertEquals(i, buffer.get());
+            }
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testSegmentsOfDifferentSizes() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+
+        // Request a small and a large segment and fill them.
+        final VirtualMemorySegment smallVms = memoryManager.requestMemory(5);
+        final VirtualMemorySegment largeVms = memoryManager.requestMemory(64);
+        try (WriteAccess writeAccess = smallVms.getWriteAccess()) {
+            Assert.assertEquals(8, writeAccess.getPayload().capacity());
+            writeAccess.getPayload().clear();
+            writeAccess.getPayload().put((byte) 1).flip();
+        }
+        try (WriteAccess writeAccess = largeVms.getWriteAccess()) {
+            Assert.assertEquals(64, writeAccess.getPayload().capacity());
+            writeAccess.getPayload().clear();
+            writeAccess.getPayload().put(new byte[64]).put(63, (byte) 2).flip();
+        }
+        Assert.assertEquals(8 + 64, memoryManager.getAllocatedCapacity());
+
+        // Another large segment does not fit anymore, so that some segment needs to be spilled.
+        final VirtualMemorySegment largeVms2 = memoryManager.requestMemory(64);
+        Assert.assertTrue(memoryManager.getAllocatedCapacity() <= 4 * 32);
+        largeVms2.release();
+
+        // Release the large segment, so that its capacity can be reused for small segments.
+        largeVms.release();
+        final List<VirtualMemorySegment> smallSegments = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            smallSegments.add(memoryManager.requestMemory(16));
+        }
+
+        try (ReadAccess readAccess = smallVms.getReadAccess()) {
+            Assert.assertEquals(1, readAccess.getPayload().limit());
+            Assert.assertEquals((byte) 1, readAccess.getPayload().get());
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testBackgroundSpilling() throws InterruptedException {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+        memoryManager.startBackgroundSpilling(2);
+
+        // Occupy all the memory with dirty segments.
+        final List<VirtualMemorySegment> segments = new ArrayList<>();
+        for (byte i = 0; i < 4; i++) {
+            final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+            try (WriteAccess writeAccess = vms.getWriteAccess()) {
+                writeAccess.getPayload().clear();
+                writeAccess.getPayload().put(i).flip();
+            }
+            segments.add(vms);
+        }
+
+        // Wait for the background spiller to back some of them.
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while (memoryManager.countCheaplyObtainableSegments() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assert.assertTrue(memoryManager.countCheaplyObtainableSegments() >= 2);
+        Assert.assertEquals(4, segments.stream().filter(vms -> vms.getMainMemorySegment() != null).count());
+
+        // Check that all data is still valid after preempting the backed segments.
+        segments.add(memoryManager.requestDefaultMemory());
+        segments.add(memoryManager.requestDefaultMemory());
+        for (byte i = 0; i < 4; i++) {
+            try (ReadAccess readAccess = segments.get(i).getReadAccess()) {
+                Assert.assertEquals(i, readAccess.getPayload().get());
+            }
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testBackgroundSpillingBacksOffAfterFailures() throws Exception {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final List<VirtualMemorySegment> segments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+            try (WriteAccess writeAccess = vms.getWriteAccess()) {
+                writeAccess.getPayload().clear().putInt(i).flip();
+            }
+            segments.add(vms);
+        }
+
+        // Let all further writes to disk fail.
+        segments.get(0).getDiskMemorySegment().getDiskOperator().close();
+        memoryManager.startBackgroundSpilling(2);
+        Thread.sleep(350L);
+        memoryManager.stopBackgroundSpilling();
+
+        // The spiller should have retried only about every 100 ms.
+        final long numFailedSpills = memoryManager.getStats().getFailedSpills();
+        Assert.assertTrue(numFailedSpills >= 1L);
+        Assert.assertTrue(String.format("%d failed spills", numFailedSpills), numFailedSpills <= 6L);
+        Assert.assertEquals(2, memoryManager.getStats().getNumDirtySegments());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testReleasingWhileSpillingInTheBackground() throws InterruptedException {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(16 * 32, 32);
+        memoryManager.startBackgroundSpilling(16);
+
+        // Let several threads write, verify and release segments, while the spiller keeps on backing them.
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int threadId = t;
+            final Thread thread = new Thread(() -> {
+                final LinkedList<VirtualMemorySegment> window = new LinkedList<>();
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        final VirtualMemorySegment vms = memoryManager.requestDefaultMemory(1, TimeUnit.SECONDS);
+                        try (WriteAccess writeAccess = vms.getWriteAccess()) {
+                            writeAccess.getPayload().clear();
+                            writeAccess.getPayload().putInt(threadId * 10000 + i).flip();
+                        }
+                        window.add(vms);
+                        if (window.size() > 6) {
+                            final VirtualMemorySegment oldestVms = window.poll();
+                            try (ReadAccess readAccess = oldestVms.getReadAccess()) {
+                                Assert.assertEquals(threadId * 10000 + i - 6, readAccess.getPayload().getInt());
+                            }
+                            oldestVms.release();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        memoryManager.stopBackgroundSpilling();
+        Assert.assertEquals(Collections.emptyList(), failures);
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testReleasingWhilePreemptingAndPrefetching() throws InterruptedException {
+        // A release waits for a pending prefetch.
+        GlobalMemoryManager smallMemoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final VirtualMemorySegment vms1 = smallMemoryManager.requestDefaultMemory();
+        vms1.getWriteAccess().close();
+        smallMemoryManager.requestDefaultMemory().getWriteAccess().close();
+        smallMemoryManager.requestDefaultMemory().release();
+        Assert.assertNull(vms1.getMainMemorySegment());
+        vms1.prefetch();
+        vms1.release();
+        Assert.assertNull(vms1.getMainMemorySegment());
+        smallMemoryManager.close();
+
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(16 * 32, 32);
+        memoryManager.startBackgroundSpilling(16);
+
+        // Let several threads release segments without accessing them, while the other threads preempt them and the
+        // spiller keeps on backing them.
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final Thread thread = new Thread(() -> {
+                final LinkedList<VirtualMemorySegment> window = new LinkedList<>();
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        final VirtualMemorySegment vms = memoryManager.requestDefaultMemory(1, TimeUnit.SECONDS);
+                        vms.getWriteAccess().close();
+                        if (i % 2 == 0) {
+                            vms.back();
+                        }
+                        window.add(vms);
+                        if (window.size() > 8) {
+                            final VirtualMemorySegment oldestVms = window.poll();
+                            if (i % 3 == 0) {
+                                oldestVms.prefetch();
+                            }
+                            oldestVms.release();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        memoryManager.stopBackgroundSpilling();
+        Assert.assertEquals(Collections.emptyList(), failures);
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testSpillingToMultipleDirectories() throws IOException {
+        final List<File> spillDirectories = Arrays.asList(
+                Files.createTempDirectory("manmem").toFile(), Files.createTempDirectory("manmem").toFile());
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32, spillDirectories,
+                new LruEvictionPolicy.Factory(), false);
+
+        // Write more segments than fit into main memory.
+        final List<VirtualMemorySegment> segments = new ArrayList<>();
+        for (byte i = 0; i < 6; i++) {
+            final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+            try (WriteAccess writeAccess = vms.getWriteAccess()) {
+                writeAccess.getPayload().clear();
+                writeAccess.getPayload().put(i).flip();
+            }
+            segments.add(vms);
+        }
+
+        // The spilled segments should be spread across the directories.
+        final Set<DiskOperator> diskOperators = new HashSet<>();
+        for (VirtualMemorySegment segment : segments) {
+            if (segment.getDiskMemorySegment() != null) {
+                diskOperators.add(segment.getDiskMemorySegment().getDiskOperator());
+            }
+        }
+        Assert.assertEquals(2, diskOperators.size());
+
+        // Check that the spilled segments are restored.
+        for (byte i = 0; i < 6; i++) {
+            try (ReadAccess readAccess = segments.get(i).getReadAccess()) {
+                Assert.assertEquals(i, readAccess.getPayload().get());
+            }
+        }
+
+        memoryManager.close();
+        for (File spillDirectory : spillDirectories) {
+            spillDirectory.delete();
+        }
+    }
+
     @Test
     public void testSharedReadAccess() {
-        // TODO
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+
+        // Several read accesses can be held at the same time and keep the segment from being preempted.
+        final ReadAccess readAccess1 = vms.getReadAccess();
+        final ReadAccess readAccess2 = vms.getReadAccess();
+        memoryManager.requestDefaultMemory().getWriteAccess().close();
+        memoryManager.requestDefaultMemory();
+        Assert.assertNotNull(vms.getMainMemorySegment());
+        readAccess1.close();
+        Assert.assertNotNull(vms.getMainMemorySegment());
+        readAccess2.close();
+
+        // Once all read accesses are closed, the segment can be preempted again.
+        memoryManager.requestDefaultMemory();
+        memoryManager.requestDefaultMemory();
+        Assert.assertNull(vms.getMainMemorySegment());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testFreeSegmentsCachedByOtherThreadsAreReclaimed() throws Exception {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final MemoryManagerStats stats = memoryManager.getStats();
+
+        // Let another thread allocate and release all segments, so that they are cached by that thread.
+        final Thread thread = new Thread(() -> {
+            final List<VirtualMemorySegment> segments = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+                vms.getWriteAccess().close();
+                segments.add(vms);
+            }
+            for (VirtualMemorySegment vms : segments) {
+                vms.release();
+            }
+            // Releasing and requesting again is served by the cache.
+            memoryManager.requestDefaultMemory().release();
+        });
+        thread.start();
+        thread.join();
+        Assert.assertEquals(4 * 32, memoryManager.getFreeCapacity());
+        Assert.assertEquals(4, stats.getNumFreeSegments());
+        Assert.assertEquals(1, stats.getObtainedSegments(MemoryManagerStats.Source.FREE));
+
+        // The cached segments are reclaimed rather than any segment being preempted.
+        for (int i = 0; i < 4; i++) {
+            Assert.assertNotNull(memoryManager.requestDefaultMemory().getMainMemorySegment());
+        }
+        Assert.assertEquals(5, stats.getObtainedSegments(MemoryManagerStats.Source.FREE));
+        Assert.assertEquals(0, stats.getObtainedSegments(MemoryManagerStats.Source.OWN_PREEMPTION));
+        Assert.assertEquals(0, memoryManager.getFreeCapacity());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testReusableAccesses() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final VirtualMemorySegment vms1 = memoryManager.requestDefaultMemory();
+        final VirtualMemorySegment vms2 = memoryManager.requestDefaultMemory();
+
+        // Closed accesses can be re-armed for any segment.
+        final WriteAccess writeAccess = vms1.getWriteAccess();
+        final ByteBuffer payload1 = writeAccess.getPayload();
+        payload1.clear();
+        payload1.putInt(1).flip();
+        writeAccess.close();
+        Assert.assertSame(writeAccess, vms2.getWriteAccess(writeAccess));
+        writeAccess.getPayload().clear();
+        writeAccess.getPayload().putInt(2).flip();
+        writeAccess.close();
+        Assert.assertEquals(4L, vms2.getMainMemorySegment().getSize());
+        try {
+            writeAccess.close();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        try (ReadAccess openReadAccess = vms2.getReadAccess()) {
+            vms2.getReadAccess(openReadAccess);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+
+        // The payload views are cached unless they are in use.
+        final ReadAccess readAccess1 = vms1.getReadAccess();
+        final ReadAccess readAccess2 = vms1.getReadAccess();
+        Assert.assertSame(payload1, readAccess1.getPayload());
+        Assert.assertNotSame(payload1, readAccess2.getPayload());
+        Assert.assertEquals(1, readAccess1.getPayload().getInt());
+        Assert.assertEquals(1, readAccess2.getPayload().getInt());
+        readAccess1.close();
+        readAccess2.close();
+        try (ReadAccess readAccess = vms2.getReadAccess(readAccess1)) {
+            Assert.assertEquals(2, readAccess.getPayload().getInt());
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testOverwriteAccessSkipsLoading() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(32, 32);
+        final VirtualMemorySegment vms1 = memoryManager.requestDefaultMemory();
+        try (WriteAccess writeAccess = vms1.getWriteAccess()) {
+            writeAccess.getPayload().clear();
+            writeAccess.getPayload().putInt(1).flip();
+        }
+
+        // Spill the first segment.
+        final VirtualMemorySegment vms2 = memoryManager.requestDefaultMemory();
+        Assert.assertNull(vms1.getMainMemorySegment());
+        Assert.assertNotNull(vms1.getDiskMemorySegment());
+        vms2.release();
+
+        // Overwrite the first segment without loading it.
+        try (WriteAccess writeAccess = vms1.getOverwriteAccess()) {
+            writeAccess.getPayload().clear();
+            writeAccess.getPayload().putInt(2).flip();
+        }
+        Assert.assertEquals(0L, memoryManager.getStats().getLoadedBytes());
+        Assert.assertEquals(0L, memoryManager.getStats().getMisses());
+        Assert.assertEquals(1L, memoryManager.getStats().getSkippedLoads());
+        Assert.assertNull(vms1.getDiskMemorySegment());
+        Assert.assertEquals(2, vms1.readInt(0));
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testOptimisticReads() throws Exception {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+        try (WriteAccess writeAccess = vms.getWriteAccess()) {
+            writeAccess.getPayload().clear();
+            writeAccess.getPayload().putInt(42).putInt(43).flip();
+        }
+
+        // Resident segments are read without acquiring an access and without counting hits, but the accesses are
+        // recorded for the eviction policy.
+        final long hits = memoryManager.getStats().getHits();
+        final int accessCount = vms.getMainMemorySegment().getAccessCount();
+        Assert.assertEquals(42, vms.readInt(0));
+        Assert.assertEquals(43, vms.readInt(4));
+        Assert.assertEquals(hits, memoryManager.getStats().getHits());
+        Assert.assertEquals(accessCount + 2, vms.getMainMemorySegment().getAccessCount());
+
+        // Spilled segments are loaded.
+        memoryManager.requestDefaultMemory().getWriteAccess().close();
+        memoryManager.requestDefaultMemory().getWriteAccess().close();
+        Assert.assertNull(vms.getMainMemorySegment());
+        Assert.assertEquals(43, vms.readInt(4));
+        Assert.assertEquals(1, memoryManager.getStats().getMisses());
+
+        // Reads wait for write accesses, which can also be closed by other threads.
+        final WriteAccess writeAccess = vms.getWriteAccess();
+        writeAccess.getPayload().putInt(0, 44);
+        final Thread closingThread = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            writeAccess.close();
+        });
+        closingThread.start();
+        Assert.assertEquals(44, vms.readInt(0));
+        closingThread.join();
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testPrefetchingDoesNotSpill() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final VirtualMemorySegment[] vmss = new VirtualMemorySegment[3];
+        for (int i = 0; i < vmss.length; i++) {
+            vmss[i] = memoryManager.requestDefaultMemory();
+            try (WriteAccess writeAccess = vmss[i].getWriteAccess()) {
+                writeAccess.getPayload().clear();
+                writeAccess.getPayload().putInt(i).flip();
+            }
+        }
+        Assert.assertNull(vmss[0].getMainMemorySegment());
+
+        // Only dirty segments are resident, so prefetching gives up.
+        final long spilledBytes = memoryManager.getStats().getSpilledBytes();
+        final long misses = memoryManager.getStats().getMisses();
+        Assert.assertTrue(vmss[0].prefetch().isDone());
+        Assert.assertNull(vmss[0].getMainMemorySegment());
+        Assert.assertEquals(spilledBytes, memoryManager.getStats().getSpilledBytes());
+        Assert.assertEquals(misses, memoryManager.getStats().getMisses());
+
+        // Backed segments can be preempted, though.
+        vmss[1].back();
+        vmss[0].prefetch().join();
+        Assert.assertNotNull(vmss[0].getMainMemorySegment());
+        Assert.assertNull(vmss[1].getMainMemorySegment());
+        Assert.assertEquals(misses + 1, memoryManager.getStats().getMisses());
+        Assert.assertEquals(0, vmss[0].readInt(0));
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testConcurrentAsynchronousBacking() throws Exception {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+        final int numThreads = 4;
+        for (int i = 0; i < 100; i++) {
+            try (WriteAccess writeAccess = vms.getWriteAccess()) {
+                writeAccess.getPayload().clear();
+                writeAccess.getPayload().putInt(i).flip();
+            }
+
+            // Let several threads back the dirty segment at once.
+            final long numSpills = memoryManager.getStats().getSpillLatencies().getCount();
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            final List<CompletableFuture<Void>> futures = Collections.synchronizedList(new LinkedList<>());
+            final Thread[] threads = new Thread[numThreads];
+            for (int j = 0; j < numThreads; j++) {
+                threads[j] = new Thread(() -> {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    futures.add(vms.backAsync());
+                });
+                threads[j].start();
+            }
+            startLatch.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (CompletableFuture<Void> future : futures) {
+                future.join();
+            }
+
+            // The segment should have been written exactly once.
+            Assert.assertEquals(numSpills + 1, memoryManager.getStats().getSpillLatencies().getCount());
+            Assert.assertEquals(SegmentState.BACKED, vms.getMainMemorySegment().getState());
+        }
+        Assert.assertEquals(99, vms.readInt(0));
+
+        vms.release();
+        memoryManager.close();
     }
 
     @Ignore
@@ -160,7 +734,6 @@ public class GlobalMemoryManagerTest {
 
         vms1.getWriteAccess().close();
         vms2.getWriteAccess().close();
-        vms3.getWriteAccess().close();
 
         memoryManager.close();
     }
@@ -179,4 +752,82 @@ public class GlobalMemoryManagerTest {
 
     }
 
+    @Test
+    public void testWaitingForMemory() throws Exception {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(512, 512);
+
+        // Pin the only segment and let another thread unpin it after a while.
+        final VirtualMemorySegment vms1 = memoryManager.requestDefaultMemory();
+        final ReadAccess readAccess = vms1.getReadAccess();
+        final Thread accessCloser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // Close the access anyway.
+            }
+            readAccess.close();
+        });
+        accessCloser.start();
+
+        // The request waits until the segment can be spilled.
+        final VirtualMemorySegment vms2 = memoryManager.requestDefaultMemory(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(vms2.getMainMemorySegment());
+        Assert.assertNull(vms1.getMainMemorySegment());
+        accessCloser.join();
+
+        // Without an unpinning thread, the request times out.
+        try (ReadAccess ignored = vms2.getReadAccess()) {
+            final long startTime = System.nanoTime();
+            try {
+                memoryManager.requestDefaultMemory(50, TimeUnit.MILLISECONDS);
+                Assert.fail();
+            } catch (CapacityExceededException e) {
+                Assert.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+            }
+        }
+
+        // Requests that can never be served fail immediately.
+        try {
+            memoryManager.requestMemory(1024);
+            Assert.fail();
+        } catch (CapacityExceededException e) {
+            // Expected.
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testWaitingForLoading() throws Exception {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(512, 512);
+        memoryManager.setLoadTimeout(10, TimeUnit.SECONDS);
+
+        // Spill the first segment by requesting a second one, then pin the second one.
+        final VirtualMemorySegment vms1 = memoryManager.requestDefaultMemory();
+        try (WriteAccess writeAccess = vms1.getWriteAccess()) {
+            final ByteBuffer buffer = writeAccess.getPayload();
+            buffer.clear();
+            buffer.put((byte) 1).flip();
+        }
+        final VirtualMemorySegment vms2 = memoryManager.requestDefaultMemory();
+        final ReadAccess readAccess2 = vms2.getReadAccess();
+        final Thread accessCloser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // Close the access anyway.
+            }
+            readAccess2.close();
+        });
+        accessCloser.start();
+
+        // Loading the first segment waits for the second one to be unpinned.
+        try (ReadAccess readAccess = vms1.getReadAccess()) {
+            Assert.assertEquals((byte) 1, readAccess.getPayload().get(0));
+        }
+        accessCloser.join();
+
+        memoryManager.close();
+    }
+
 }
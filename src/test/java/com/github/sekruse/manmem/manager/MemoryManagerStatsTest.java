@@ -0,0 +1,85 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.memory.ReadAccess;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the {@link MemoryManagerStats}.
+ */
+public class MemoryManagerStatsTest {
+
+    @Test
+    public void testStatsOfSpillingAndLoading() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 512, 512);
+        final MemoryManagerStats stats = memoryManager.getStats();
+
+        // Write more segments than fit into main memory.
+        List<VirtualMemorySegment> segments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final VirtualMemorySegment segment = memoryManager.requestDefaultMemory();
+            try (WriteAccess writeAccess = segment.getWriteAccess()) {
+                final ByteBuffer payload = writeAccess.getPayload();
+                payload.clear();
+                payload.putInt(i).flip();
+            }
+            segments.add(segment);
+        }
+        Assert.assertEquals(3, stats.getHits());
+        Assert.assertEquals(0, stats.getMisses());
+        Assert.assertEquals(2, stats.getObtainedSegments(MemoryManagerStats.Source.NEW));
+        Assert.assertEquals(1, stats.getSpillLatencies().getCount());
+        Assert.assertEquals(4, stats.getSpilledBytes());
+
+        // Read the first segment, which has been spilled.
+        try (ReadAccess readAccess = segments.get(0).getReadAccess()) {
+            Assert.assertEquals(0, readAccess.getPayload().getInt());
+        }
+        Assert.assertEquals(1, stats.getMisses());
+        Assert.assertEquals(1, stats.getLoadLatencies().getCount());
+        Assert.assertEquals(4, stats.getLoadedBytes());
+        Assert.assertEquals(0.75d, stats.getHitRatio(), 0.001d);
+        Assert.assertEquals(2, stats.getObtainedSegments(MemoryManagerStats.Source.FOREIGN_PREEMPTION)
+                + stats.getObtainedSegments(MemoryManagerStats.Source.OWN_PREEMPTION));
+
+        // Check the queues: one segment is backed, the other one is dirty.
+        Assert.assertEquals(0, stats.getNumFreeSegments());
+        Assert.assertEquals(1, stats.getNumBackedSegments());
+        Assert.assertEquals(1, stats.getNumDirtySegments());
+
+        // Releasing a segment makes it free.
+        segments.get(2).release();
+        Assert.assertEquals(1, stats.getNumFreeSegments());
+        Assert.assertEquals(0, stats.getNumDirtySegments());
+        memoryManager.requestDefaultMemory();
+        Assert.assertEquals(1, stats.getObtainedSegments(MemoryManagerStats.Source.FREE));
+    }
+
+    @Test
+    public void testCountingCapacityExceptions() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(512, 512);
+        final VirtualMemorySegment segment = memoryManager.requestDefaultMemory();
+        try (ReadAccess ignored = segment.getReadAccess()) {
+            try {
+                memoryManager.requestDefaultMemory();
+                Assert.fail();
+            } catch (CapacityExceededException e) {
+                // Expected.
+            }
+        }
+        try {
+            memoryManager.requestMemory(1024);
+            Assert.fail();
+        } catch (CapacityExceededException e) {
+            // Expected.
+        }
+        Assert.assertEquals(2, memoryManager.getStats().getCapacityExceededExceptions());
+    }
+
+}
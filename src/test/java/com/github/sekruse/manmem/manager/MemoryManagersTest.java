@@ -32,4 +32,16 @@ public class MemoryManagersTest {
         Assert.assertEquals(Integer.MAX_VALUE + 1L, MemoryManagers.fitMemoryToSegments(Integer.MAX_VALUE + 1L, 32));
         Assert.assertEquals(Integer.MAX_VALUE + 33L, MemoryManagers.fitMemoryToSegments(Integer.MAX_VALUE + 2L, 32));
     }
+
+    @Test
+    public void testToSizeClass() {
+        Assert.assertEquals(1, MemoryManagers.toSizeClass(1, 48));
+        Assert.assertEquals(16, MemoryManagers.toSizeClass(9, 48));
+        Assert.assertEquals(32, MemoryManagers.toSizeClass(32, 48));
+        Assert.assertEquals(48, MemoryManagers.toSizeClass(33, 48));
+        Assert.assertEquals(48, MemoryManagers.toSizeClass(48, 48));
+        Assert.assertEquals(64, MemoryManagers.toSizeClass(49, 48));
+        Assert.assertEquals(MemoryManagers.MAX_SEGMENT_SIZE,
+                MemoryManagers.toSizeClass(MemoryManagers.MAX_SEGMENT_SIZE, 48));
+    }
 }
@@ -0,0 +1,143 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Tests for the {@link MemoryPressureListener}s.
+ */
+public class MemoryPressureListenerTest {
+
+    /**
+     * A cache that drops its segments upon memory pressure.
+     */
+    private static class DroppingCache implements MemoryPressureListener {
+
+        private final Deque<VirtualMemorySegment> segments = new ArrayDeque<>();
+
+        private int numNotifications = 0;
+
+        private long lastRequestedCapacity = 0L;
+
+        void fill(MemoryManager memoryManager, int numSegments) {
+            for (int i = 0; i < numSegments; i++) {
+                final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+                try (WriteAccess writeAccess = vms.getWriteAccess()) {
+                    writeAccess.getPayload().clear();
+                    writeAccess.getPayload().putInt(i).flip();
+                }
+                this.segments.add(vms);
+            }
+        }
+
+        @Override
+        public void onMemoryPressure(long requestedCapacity) {
+            this.numNotifications++;
+            this.lastRequestedCapacity = requestedCapacity;
+            long releasedCapacity = 0L;
+            while (releasedCapacity < requestedCapacity && !this.segments.isEmpty()) {
+                final VirtualMemorySegment vms = this.segments.poll();
+                if (vms.getMainMemorySegment() != null) {
+                    releasedCapacity += vms.getMainMemorySegment().capacity();
+                }
+                vms.release();
+            }
+        }
+    }
+
+    @Test
+    public void testListenerAvoidsSpilling() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final DroppingCache cache = new DroppingCache();
+        cache.fill(memoryManager, 4);
+        memoryManager.addMemoryPressureListener(cache);
+
+        // Requesting more memory should drop cached segments rather than spill them.
+        for (int i = 0; i < 2; i++) {
+            Assert.assertNotNull(memoryManager.requestDefaultMemory().getMainMemorySegment());
+        }
+        Assert.assertEquals(2, cache.numNotifications);
+        Assert.assertEquals(2, cache.segments.size());
+        Assert.assertEquals(0L, memoryManager.getStats().getSpilledBytes());
+        Assert.assertEquals(2L, memoryManager.getStats().getObtainedSegments(MemoryManagerStats.Source.FREE));
+
+        // Without listeners, segments are spilled.
+        memoryManager.removeMemoryPressureListener(cache);
+        memoryManager.requestDefaultMemory();
+        Assert.assertEquals(2, cache.numNotifications);
+        Assert.assertTrue(memoryManager.getStats().getSpilledBytes() > 0L);
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testResizeNotifiesListeners() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final DroppingCache cache = new DroppingCache();
+        cache.fill(memoryManager, 4);
+        memoryManager.addMemoryPressureListener(cache);
+
+        memoryManager.resize(2 * 32);
+        Assert.assertEquals(1, cache.numNotifications);
+        Assert.assertEquals(2 * 32, cache.lastRequestedCapacity);
+        Assert.assertEquals(2, cache.segments.size());
+        Assert.assertEquals(0L, memoryManager.getStats().getSpilledBytes());
+        Assert.assertTrue(memoryManager.getAllocatedCapacity() <= 2 * 32);
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testChildQuotaNotifiesOnlyItsListeners() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(8 * 32, 32);
+        final DroppingCache rootCache = new DroppingCache();
+        memoryManager.addMemoryPressureListener(rootCache);
+        final ChildMemoryManager childMemoryManager = memoryManager.createChildMemoryManager(0, 2 * 32);
+        final DroppingCache childCache = new DroppingCache();
+        childCache.fill(childMemoryManager, 2);
+        childMemoryManager.addMemoryPressureListener(childCache);
+
+        // Exceeding the quota of the child notifies the child's listener only.
+        childMemoryManager.requestDefaultMemory();
+        Assert.assertEquals(1, childCache.numNotifications);
+        Assert.assertEquals(32, childCache.lastRequestedCapacity);
+        Assert.assertEquals(0, rootCache.numNotifications);
+        Assert.assertEquals(0L, memoryManager.getStats().getSpilledBytes());
+
+        // Shrinking the quota of the child notifies its listener, too.
+        childCache.fill(childMemoryManager, 1);
+        Assert.assertEquals(2, childCache.numNotifications);
+        childMemoryManager.resize(32);
+        Assert.assertEquals(3, childCache.numNotifications);
+        Assert.assertEquals(32, childCache.lastRequestedCapacity);
+        Assert.assertEquals(0L, memoryManager.getStats().getSpilledBytes());
+        Assert.assertEquals(0, rootCache.numNotifications);
+
+        childMemoryManager.close();
+        memoryManager.close();
+    }
+
+    @Test
+    public void testThresholdNotifiesProactively() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final DroppingCache cache = new DroppingCache();
+        memoryManager.addMemoryPressureListener(cache);
+        memoryManager.setMemoryPressureThreshold(2);
+
+        // Two segments are still unallocated after requesting two segments.
+        cache.fill(memoryManager, 2);
+        Assert.assertEquals(0, cache.numNotifications);
+
+        // Only a single segment is left afterwards.
+        memoryManager.requestDefaultMemory();
+        Assert.assertEquals(1, cache.numNotifications);
+        Assert.assertEquals(32, cache.lastRequestedCapacity);
+
+        memoryManager.close();
+    }
+}
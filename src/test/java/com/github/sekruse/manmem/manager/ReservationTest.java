@@ -0,0 +1,160 @@
+package com.github.sekruse.manmem.manager;
+
+import com.github.sekruse.manmem.memory.ReadAccess;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the {@link Reservation} and bulk requests.
+ */
+public class ReservationTest {
+
+    @Test
+    public void testReservedSegmentsAreNotPreempted() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final MemoryManagerStats stats = memoryManager.getStats();
+
+        // Reserve two segments and use them.
+        final Reservation reservation = memoryManager.reserve(2);
+        Assert.assertEquals(2 * 32, memoryManager.getAllocatedCapacity());
+        final VirtualMemorySegment reservedVms1 = reservation.requestDefaultMemory();
+        final VirtualMemorySegment reservedVms2 = reservation.requestDefaultMemory();
+        Assert.assertEquals(2, stats.getObtainedSegments(MemoryManagerStats.Source.RESERVED));
+
+        // Other requests must not preempt the reserved segments.
+        for (int i = 0; i < 5; i++) {
+            memoryManager.requestDefaultMemory();
+        }
+        Assert.assertNotNull(reservedVms1.getMainMemorySegment());
+        Assert.assertNotNull(reservedVms2.getMainMemorySegment());
+
+        // Requesting more segments than reserved preempts reserved segments.
+        final VirtualMemorySegment reservedVms3 = reservation.requestDefaultMemory();
+        Assert.assertNotNull(reservedVms3.getMainMemorySegment());
+        Assert.assertEquals(1, (reservedVms1.getMainMemorySegment() == null ? 1 : 0)
+                + (reservedVms2.getMainMemorySegment() == null ? 1 : 0));
+
+        // Released segments return to the reservation.
+        reservedVms3.release();
+        Assert.assertEquals(2 * 32, reservation.getAllocatedCapacity());
+        reservation.requestDefaultMemory();
+        Assert.assertEquals(3, stats.getObtainedSegments(MemoryManagerStats.Source.RESERVED));
+
+        // After closing the reservation, its segments can be preempted.
+        reservation.close();
+        final List<ReadAccess> readAccesses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readAccesses.add(memoryManager.requestDefaultMemory().getReadAccess());
+        }
+        Assert.assertNull(reservedVms1.getMainMemorySegment());
+        Assert.assertNull(reservedVms2.getMainMemorySegment());
+        for (ReadAccess readAccess : readAccesses) {
+            readAccess.close();
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testFailingReservationHasNoEffect() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 32, 32);
+        final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+        try (ReadAccess ignored = vms.getReadAccess()) {
+            try {
+                memoryManager.reserve(2);
+                Assert.fail();
+            } catch (CapacityExceededException e) {
+                // Expected.
+            }
+            Assert.assertEquals(32, memoryManager.getFreeCapacity());
+
+            // The guaranteed capacity of the failed reservation has been given back.
+            final Reservation reservation = memoryManager.reserve(1);
+            Assert.assertEquals(0, memoryManager.getFreeCapacity());
+            reservation.close();
+            Assert.assertEquals(32, memoryManager.getFreeCapacity());
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testReservationsAreNeitherNestedNorResized() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 32, 32);
+        final MemoryManager reservation = memoryManager.reserve(2);
+        Assert.assertEquals(2 * 32, reservation.getMaximumCapacity());
+        try {
+            reservation.reserve(1);
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        try {
+            reservation.resize(32);
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        Assert.assertEquals(2 * 32, reservation.getMaximumCapacity());
+
+        reservation.close();
+        try {
+            reservation.requestDefaultMemory();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testReservingFromChildMemoryManager() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(8 * 32, 32);
+        final ChildMemoryManager child = memoryManager.createChildMemoryManager(32, 4 * 32);
+
+        final Reservation reservation = child.reserve(3);
+        Assert.assertEquals(32, child.getMaximumCapacity());
+        try {
+            child.reserve(1);
+            Assert.fail();
+        } catch (CapacityExceededException e) {
+            // Expected.
+        }
+        reservation.close();
+        reservation.close();
+        Assert.assertEquals(4 * 32, child.getMaximumCapacity());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testBulkRequests() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(3 * 32, 32);
+        final VirtualMemorySegment vms = memoryManager.requestDefaultMemory();
+
+        try (ReadAccess ignored = vms.getReadAccess()) {
+            // Bulk requests do not preempt their own segments.
+            try {
+                memoryManager.requestDefaultMemory(3);
+                Assert.fail();
+            } catch (CapacityExceededException e) {
+                // Expected.
+            }
+            Assert.assertEquals(2 * 32, memoryManager.getFreeCapacity());
+
+            final List<VirtualMemorySegment> segments = memoryManager.requestDefaultMemory(2);
+            Assert.assertEquals(2, segments.size());
+            for (VirtualMemorySegment segment : segments) {
+                Assert.assertNotNull(segment.getMainMemorySegment());
+            }
+        }
+
+        memoryManager.close();
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.github.sekruse.manmem.manager.eviction;
+
+import com.github.sekruse.manmem.manager.GlobalMemoryManager;
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+import com.github.sekruse.manmem.memory.ReadAccess;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ClockEvictionPolicy}.
+ */
+public class ClockEvictionPolicyTest {
+
+    @Test
+    public void testReferencedSegmentsAreGrantedSecondChance() {
+        final EvictionPolicy policy = new ClockEvictionPolicy.Factory().create();
+        final MainMemorySegment mms1 = new MainMemorySegment(8);
+        final MainMemorySegment mms2 = new MainMemorySegment(8);
+        final MainMemorySegment mms3 = new MainMemorySegment(8);
+        policy.add(mms1);
+        policy.add(mms2);
+        policy.add(mms3);
+        mms1.recordAccess();
+        mms3.recordAccess();
+
+        Assert.assertSame(mms2, policy.poll());
+        Assert.assertSame(mms1, policy.poll());
+        Assert.assertSame(mms3, policy.poll());
+        Assert.assertNull(policy.poll());
+    }
+
+    @Test
+    public void testAllReferencedSegmentsAreSweptOnce() {
+        final EvictionPolicy policy = new ClockEvictionPolicy.Factory().create();
+        final MainMemorySegment mms1 = new MainMemorySegment(8);
+        final MainMemorySegment mms2 = new MainMemorySegment(8);
+        policy.add(mms1);
+        policy.add(mms2);
+        mms1.recordAccess();
+        mms2.recordAccess();
+
+        Assert.assertSame(mms1, policy.poll());
+        Assert.assertEquals(0, mms2.getAccessCount());
+        Assert.assertEquals(1, policy.size());
+    }
+
+    @Test
+    public void testAccessesDoNotRelinkSegments() {
+        GlobalMemoryManager memoryManager =
+                new GlobalMemoryManager(4 * 32, 32, null, new ClockEvictionPolicy.Factory());
+        final VirtualMemorySegment vms1 = memoryManager.requestDefaultMemory();
+        final VirtualMemorySegment vms2 = memoryManager.requestDefaultMemory();
+        final MainMemorySegment mms1 = vms1.getMainMemorySegment();
+        final MainMemorySegment mms2 = vms2.getMainMemorySegment();
+        Assert.assertSame(mms2, mms1.getNextElement());
+
+        // Neither reading nor writing the dirty segment should move it in the ring.
+        try (ReadAccess readAccess = vms1.getReadAccess()) {
+            Assert.assertSame(mms2, mms1.getNextElement());
+            Assert.assertNotNull(readAccess.getPayload());
+        }
+        try (WriteAccess writeAccess = vms1.getWriteAccess()) {
+            Assert.assertSame(mms2, mms1.getNextElement());
+            writeAccess.getPayload().clear();
+            writeAccess.getPayload().put((byte) 42).flip();
+        }
+        Assert.assertSame(mms2, mms1.getNextElement());
+        Assert.assertEquals(2, mms1.getAccessCount());
+
+        // The referenced segment should be granted a second chance, though.
+        for (int i = 0; i < 3; i++) {
+            memoryManager.requestDefaultMemory();
+        }
+        Assert.assertNull(vms2.getMainMemorySegment());
+        Assert.assertSame(mms1, vms1.getMainMemorySegment());
+        try (ReadAccess readAccess = vms1.getReadAccess()) {
+            Assert.assertEquals(42, readAccess.getPayload().get());
+        }
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testOptimisticallyReadSegmentsAreGrantedSecondChance() {
+        GlobalMemoryManager memoryManager =
+                new GlobalMemoryManager(3 * 32, 32, null, new ClockEvictionPolicy.Factory());
+        final VirtualMemorySegment[] vmss = new VirtualMemorySegment[3];
+        for (int i = 0; i < vmss.length; i++) {
+            vmss[i] = memoryManager.requestDefaultMemory();
+            try (WriteAccess writeAccess = vmss[i].getWriteAccess()) {
+                writeAccess.getPayload().clear();
+                writeAccess.getPayload().putInt(i).flip();
+            }
+        }
+
+        // The first preemption sweeps all references.
+        memoryManager.requestDefaultMemory();
+        Assert.assertNull(vmss[0].getMainMemorySegment());
+        Assert.assertEquals(0, vmss[1].getMainMemorySegment().getAccessCount());
+
+        // Only optimistic reads reference the hot segment, but they should protect it nevertheless.
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(1, vmss[1].readInt(0));
+        }
+        memoryManager.requestDefaultMemory();
+        Assert.assertNotNull(vmss[1].getMainMemorySegment());
+        Assert.assertNull(vmss[2].getMainMemorySegment());
+
+        memoryManager.close();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.sekruse.manmem.manager.eviction;
+
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link TwoQueueEvictionPolicy}.
+ */
+public class TwoQueueEvictionPolicyTest {
+
+    @Test
+    public void testScannedSegmentsArePreemptedBeforeFrequentlyUsedSegments() {
+        final EvictionPolicy policy = new TwoQueueEvictionPolicy(2, 0.5d);
+
+        // Add a frequently used segment.
+        final MainMemorySegment hotSegment = new MainMemorySegment(8);
+        hotSegment.recordAccess();
+        hotSegment.recordAccess();
+        policy.add(hotSegment);
+
+        // Scan over several segments.
+        final MainMemorySegment[] scannedSegments = new MainMemorySegment[4];
+        for (int i = 0; i < scannedSegments.length; i++) {
+            scannedSegments[i] = new MainMemorySegment(8);
+            scannedSegments[i].recordAccess();
+            policy.add(scannedSegments[i]);
+        }
+
+        // The scanned segments should be preempted first as long as they dominate the policy.
+        Assert.assertSame(scannedSegments[0], policy.poll());
+        Assert.assertSame(scannedSegments[1], policy.poll());
+        Assert.assertSame(scannedSegments[2], policy.poll());
+        Assert.assertSame(hotSegment, policy.poll());
+        Assert.assertSame(scannedSegments[3], policy.poll());
+        Assert.assertNull(policy.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPromotionThresholdMustBeTrackable() {
+        new TwoQueueEvictionPolicy(MainMemorySegment.MAX_RECORDED_ACCESSES + 1, 0.25d);
+    }
+
+}
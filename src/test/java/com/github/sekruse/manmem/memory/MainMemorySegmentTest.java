@@ -0,0 +1,37 @@
+package com.github.sekruse.manmem.memory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests for the {@link MainMemorySegment}.
+ */
+public class MainMemorySegmentTest {
+
+    @Test
+    public void testUpdatingFromLeasedView() {
+        for (boolean isDirect : new boolean[]{false, true}) {
+            final MainMemorySegment mms = new MainMemorySegment(16, isDirect);
+            final ByteBuffer view = mms.leaseByteBuffer();
+            view.clear();
+            view.putInt(42).flip();
+            mms.update(view);
+            mms.returnByteBuffer(view);
+            Assert.assertEquals(Integer.BYTES, mms.getSize());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdatingFromForeignDirectBufferFails() {
+        final MainMemorySegment mms = new MainMemorySegment(16, true);
+        mms.update(ByteBuffer.allocateDirect(16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdatingFromForeignHeapBufferFails() {
+        final MainMemorySegment mms = new MainMemorySegment(16, false);
+        mms.update(ByteBuffer.allocate(16));
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.sekruse.manmem.streams;
+
+import com.github.sekruse.manmem.manager.GlobalMemoryManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Test suite for {@link ManagedDataOutput} and {@link ManagedDataInput}.
+ */
+public class ManagedDataTest {
+
+    /**
+     * Writes some test values.
+     *
+     * @param output to which the values should be written
+     */
+    private static void writeValues(DataOutput output) throws IOException {
+        for (int i = 0; i < 100; i++) {
+            output.writeInt(i * 1000003);
+            output.writeLong(-i * 1000000007L);
+            output.writeShort(i - 50);
+            output.writeDouble(i / 3d);
+            output.writeBoolean(i % 2 == 0);
+            output.writeByte(i);
+            output.writeFloat(i / 7f);
+            output.writeChar('a' + i);
+            output.writeUTF("m\u00e4n\u00e4ged \u20ac " + i);
+        }
+    }
+
+    @Test
+    public void testWritingAndReading() throws IOException {
+        // Use small segments, so that many values span two segments.
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(64 * 1024, 13);
+        final ManagedDataOutput dataOutput = new ManagedDataOutput(memoryManager);
+        final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+        final DataOutputStream expectedDataOutput = new DataOutputStream(expectedBytes);
+        writeValues(dataOutput);
+        writeValues(expectedDataOutput);
+        dataOutput.close();
+
+        // The format must be the one of a DataOutputStream.
+        final byte[] writtenBytes = new byte[expectedBytes.size()];
+        final MemoryInputStream inputStream = new MemoryInputStream(dataOutput.getCollector());
+        int numReadBytes = 0, numBytes;
+        while ((numBytes = inputStream.read(writtenBytes, numReadBytes, writtenBytes.length - numReadBytes)) > 0) {
+            numReadBytes += numBytes;
+        }
+        Assert.assertEquals(-1, inputStream.read());
+        inputStream.close();
+        Assert.assertArrayEquals(expectedBytes.toByteArray(), writtenBytes);
+
+        // Read the values back.
+        final ManagedDataInput dataInput = new ManagedDataInput(dataOutput.getCollector());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i * 1000003, dataInput.readInt());
+            Assert.assertEquals(-i * 1000000007L, dataInput.readLong());
+            Assert.assertEquals(i - 50, dataInput.readShort());
+            Assert.assertEquals(i / 3d, dataInput.readDouble(), 0d);
+            Assert.assertEquals(i % 2 == 0, dataInput.readBoolean());
+            Assert.assertEquals(i, dataInput.readByte());
+            Assert.assertEquals(i / 7f, dataInput.readFloat(), 0f);
+            Assert.assertEquals('a' + i, dataInput.readChar());
+            Assert.assertEquals("m\u00e4n\u00e4ged \u20ac " + i, dataInput.readUTF());
+        }
+        try {
+            dataInput.readInt();
+            Assert.fail();
+        } catch (EOFException e) {
+            // Expected.
+        }
+        dataInput.close();
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testReadingLines() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(1024, 4);
+        final ManagedDataOutput dataOutput = new ManagedDataOutput(memoryManager);
+        dataOutput.writeBytes("first\r\nsecond\rthird\nlast");
+        dataOutput.close();
+
+        final ManagedDataInput dataInput = new ManagedDataInput(dataOutput.getCollector());
+        Assert.assertEquals("first", dataInput.readLine());
+        Assert.assertEquals("second", dataInput.readLine());
+        Assert.assertEquals("third", dataInput.readLine());
+        Assert.assertEquals("last", dataInput.readLine());
+        Assert.assertNull(dataInput.readLine());
+        dataInput.close();
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testConsumingValuesAlignedWithSegments() throws IOException {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(1024, 8);
+        final ManagedDataOutput dataOutput = new ManagedDataOutput(memoryManager);
+        dataOutput.writeLong(1L);
+        dataOutput.writeLong(2L);
+        dataOutput.write(new byte[]{3, 4, 5, 6, 7, 8, 9, 10});
+        dataOutput.writeLong(11L);
+        dataOutput.close();
+
+        // Every value ends at a segment boundary, so the plain reads must skip the completely read segments.
+        final ManagedDataInput dataInput = new ManagedDataInput(dataOutput.getCollector().iterator(), 0, true);
+        Assert.assertEquals(1L, dataInput.readLong());
+        Assert.assertEquals(2L, dataInput.readLong());
+        Assert.assertEquals(3, dataInput.read());
+        final byte[] bytes = new byte[7];
+        dataInput.readFully(bytes);
+        Assert.assertArrayEquals(new byte[]{4, 5, 6, 7, 8, 9, 10}, bytes);
+        Assert.assertEquals(11L, dataInput.readLong());
+        Assert.assertEquals(-1, dataInput.read());
+        dataInput.close();
+        Assert.assertEquals(memoryManager.getAllocatedCapacity(), memoryManager.getFreeCapacity());
+
+        memoryManager.close();
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.sekruse.manmem.streams;
+
+import com.github.sekruse.manmem.manager.GlobalMemoryManager;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test suite for {@link MemoryWritableChannel} and {@link MemoryReadableChannel}.
+ */
+public class MemoryChannelTest {
+
+    @Test
+    public void testTransferringFromAndToFiles() throws IOException {
+        Random random = new Random(42);
+        byte[] testData = new byte[10000];
+        random.nextBytes(testData);
+        final Path sourceFile = Files.createTempFile("manmem-channel", ".in");
+        final Path targetFile = Files.createTempFile("manmem-channel", ".out");
+        Files.write(sourceFile, testData);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(32 * 128, 128);
+
+        try {
+            // Scatter most of the file into managed memory and write the rest.
+            final MemoryWritableChannel writableChannel = new MemoryWritableChannel(memoryManager);
+            try (FileChannel source = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+                Assert.assertEquals(9000L, writableChannel.transferFrom(source, 9000L));
+            }
+            Assert.assertEquals(1000, writableChannel.write(ByteBuffer.wrap(testData, 9000, 1000)));
+            writableChannel.close();
+            final List<VirtualMemorySegment> segments = writableChannel.getCollector();
+            Assert.assertEquals((testData.length + 127) / 128, segments.size());
+
+            // Gather the managed memory into a file.
+            final MemoryReadableChannel readableChannel = new MemoryReadableChannel(segments);
+            try (FileChannel target = FileChannel.open(targetFile, StandardOpenOption.WRITE)) {
+                Assert.assertEquals(testData.length, readableChannel.transferTo(target));
+            }
+            readableChannel.close();
+            Assert.assertArrayEquals(testData, Files.readAllBytes(targetFile));
+        } finally {
+            memoryManager.close();
+            Files.delete(sourceFile);
+            Files.delete(targetFile);
+        }
+    }
+
+    @Test
+    public void testReadingAndWritingBuffers() throws IOException {
+        Random random = new Random(42);
+        byte[] testData = new byte[1000];
+        random.nextBytes(testData);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(8 * 128, 128);
+
+        final MemoryWritableChannel writableChannel = new MemoryWritableChannel(memoryManager);
+        Assert.assertEquals(testData.length, writableChannel.write(new ByteBuffer[]{
+                ByteBuffer.wrap(testData, 0, 100), ByteBuffer.wrap(testData, 100, 900)
+        }));
+        writableChannel.close();
+
+        // Scatter the data over small buffers.
+        final MemoryReadableChannel readableChannel = new MemoryReadableChannel(writableChannel.getCollector());
+        final ByteBuffer readData = ByteBuffer.allocate(testData.length);
+        final ByteBuffer[] buffers = {ByteBuffer.allocate(30), ByteBuffer.allocate(70)};
+        long numBytes;
+        while ((numBytes = readableChannel.read(buffers)) != -1L) {
+            Assert.assertTrue(numBytes > 0L);
+            for (ByteBuffer buffer : buffers) {
+                buffer.flip();
+                readData.put(buffer);
+                buffer.clear();
+            }
+        }
+        readableChannel.close();
+        Assert.assertArrayEquals(testData, readData.array());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testGatheringWritesAndTransfersWithTightMemory() throws IOException {
+        Random random = new Random(42);
+        byte[] testData = new byte[40 * 128];
+        random.nextBytes(testData);
+        final Path targetFile = Files.createTempFile("manmem-channel", ".out");
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(4 * 128, 128);
+
+        try {
+            // Gather many small buffers, some of which are empty, into segments.
+            final ByteBuffer[] buffers = new ByteBuffer[testData.length / 40 * 2];
+            for (int i = 0; i < buffers.length; i += 2) {
+                buffers[i] = ByteBuffer.wrap(testData, i / 2 * 40, 40);
+                buffers[i + 1] = ByteBuffer.allocate(0);
+            }
+            final MemoryWritableChannel writableChannel = new MemoryWritableChannel(memoryManager);
+            Assert.assertEquals(testData.length, writableChannel.write(buffers));
+            writableChannel.close();
+            final List<VirtualMemorySegment> segments = writableChannel.getCollector();
+            Assert.assertEquals(40, segments.size());
+
+            // Most segments are spilled, so the transfer must not load them all at once.
+            final MemoryReadableChannel readableChannel = new MemoryReadableChannel(segments);
+            try (FileChannel target = FileChannel.open(targetFile, StandardOpenOption.WRITE)) {
+                Assert.assertEquals(testData.length, readableChannel.transferTo(target));
+            }
+            readableChannel.close();
+            Assert.assertArrayEquals(testData, Files.readAllBytes(targetFile));
+            Assert.assertEquals(0L, memoryManager.getStats().getCapacityExceededExceptions());
+        } finally {
+            memoryManager.close();
+            Files.delete(targetFile);
+        }
+    }
+}
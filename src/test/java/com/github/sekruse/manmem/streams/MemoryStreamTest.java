@@ -2,9 +2,13 @@ package com.github.sekruse.manmem.streams;
 
 import com.github.sekruse.manmem.manager.GlobalMemoryManager;
 import com.github.sekruse.manmem.manager.MemoryManager;
+import com.github.sekruse.manmem.memory.VirtualMemorySegment;
+import com.github.sekruse.manmem.memory.WriteAccess;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -38,4 +42,165 @@ public class MemoryStreamTest {
 
     }
 
+    @Test
+    public void testWritingBehind() {
+        Random random = new Random(42);
+        byte[] testData = new byte[32 * 128];
+        random.nextBytes(testData);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(8 * 128, 128);
+
+        MemoryOutputStream memoryOutputStream = new MemoryOutputStream(memoryManager, true);
+        memoryOutputStream.write(testData);
+        memoryOutputStream.close();
+
+        // All segments have been written to disk, either in the background or when being preempted.
+        Assert.assertEquals(0, memoryManager.getStats().getNumDirtySegments());
+        Assert.assertEquals(testData.length, memoryManager.getStats().getSpilledBytes());
+
+        MemoryInputStream memoryInputStream = new MemoryInputStream(memoryOutputStream.getCollector());
+        byte[] readData = new byte[testData.length];
+        int numReadBytes = 0, numBytes;
+        while ((numBytes = memoryInputStream.read(readData, numReadBytes, readData.length - numReadBytes)) > 0) {
+            numReadBytes += numBytes;
+        }
+        memoryInputStream.close();
+        Assert.assertArrayEquals(testData, readData);
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testWritingBehindWithTightMemory() {
+        Random random = new Random(42);
+        byte[] testData = new byte[16 * 128];
+        random.nextBytes(testData);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(2 * 128, 128);
+
+        // Segments that are being written behind cannot be preempted, so the stream has to wait for them.
+        for (int writeBehindDepth = 1; writeBehindDepth <= 4; writeBehindDepth++) {
+            MemoryOutputStream memoryOutputStream =
+                    new MemoryOutputStream(memoryManager, new ArrayList<>(), writeBehindDepth);
+            memoryOutputStream.write(testData);
+            memoryOutputStream.close();
+
+            MemoryInputStream memoryInputStream = new MemoryInputStream(memoryOutputStream.getCollector(), 0, true);
+            byte[] readData = new byte[testData.length];
+            int numReadBytes = 0, numBytes;
+            while ((numBytes = memoryInputStream.read(readData, numReadBytes, readData.length - numReadBytes)) > 0) {
+                numReadBytes += numBytes;
+            }
+            memoryInputStream.close();
+            Assert.assertArrayEquals(testData, readData);
+        }
+        Assert.assertEquals(0, memoryManager.getStats().getCapacityExceededExceptions());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testWritingBehindWhileOtherMemoryIsInUse() {
+        Random random = new Random(42);
+        byte[] testData = new byte[16 * 128];
+        random.nextBytes(testData);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(3 * 128, 128);
+
+        // Block two segments, so that the stream has to wait if its only segment is being written behind.
+        final List<WriteAccess> blockingAccesses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            blockingAccesses.add(memoryManager.requestDefaultMemory().getWriteAccess());
+        }
+        MemoryOutputStream memoryOutputStream = new MemoryOutputStream(memoryManager, true);
+        memoryOutputStream.write(testData);
+        memoryOutputStream.close();
+        for (WriteAccess blockingAccess : blockingAccesses) {
+            blockingAccess.close();
+        }
+        Assert.assertEquals(0, memoryManager.getStats().getCapacityExceededExceptions());
+
+        MemoryInputStream memoryInputStream = new MemoryInputStream(memoryOutputStream.getCollector());
+        byte[] readData = new byte[testData.length];
+        int numReadBytes = 0, numBytes;
+        while ((numBytes = memoryInputStream.read(readData, numReadBytes, readData.length - numReadBytes)) > 0) {
+            numReadBytes += numBytes;
+        }
+        memoryInputStream.close();
+        Assert.assertArrayEquals(testData, readData);
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testConsuming() {
+        Random random = new Random(42);
+        byte[] testData = new byte[16 * 128];
+        random.nextBytes(testData);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(8 * 128, 128);
+
+        MemoryOutputStream memoryOutputStream = new MemoryOutputStream(memoryManager);
+        memoryOutputStream.write(testData);
+        memoryOutputStream.close();
+        final List<VirtualMemorySegment> segments = memoryOutputStream.getCollector();
+
+        // Consume the first ten segments.
+        MemoryInputStream memoryInputStream = new MemoryInputStream(segments, 0, true);
+        byte[] readData = new byte[testData.length];
+        int numReadBytes = 0;
+        while (numReadBytes < 10 * 128) {
+            numReadBytes += memoryInputStream.read(readData, numReadBytes, 10 * 128 - numReadBytes);
+        }
+        memoryInputStream.close();
+        Assert.assertTrue(memoryManager.getFreeCapacity() > 0L);
+
+        // The other segments are still available.
+        memoryInputStream = new MemoryInputStream(segments.subList(10, segments.size()), 1, true);
+        int numBytes;
+        while ((numBytes = memoryInputStream.read(readData, numReadBytes, readData.length - numReadBytes)) > 0) {
+            numReadBytes += numBytes;
+        }
+        memoryInputStream.close();
+        Assert.assertArrayEquals(testData, readData);
+        Assert.assertEquals(memoryManager.getAllocatedCapacity(), memoryManager.getFreeCapacity());
+
+        memoryManager.close();
+    }
+
+    @Test
+    public void testPrefetching() {
+        Random random = new Random(42);
+        byte[] testData = new byte[32 * 128];
+        random.nextBytes(testData);
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(8 * 128, 128);
+
+        MemoryOutputStream memoryOutputStream = new MemoryOutputStream(memoryManager);
+        memoryOutputStream.write(testData);
+        memoryOutputStream.close();
+        Assert.assertTrue(memoryManager.getStats().getSpilledBytes() > 0L);
+
+        // Read the spilled data while prefetching.
+        final long missesBefore = memoryManager.getStats().getMisses();
+        MemoryInputStream memoryInputStream = new MemoryInputStream(memoryOutputStream.getCollector(), 2);
+        byte[] readData = new byte[testData.length];
+        int numReadBytes = 0, numBytes;
+        while ((numBytes = memoryInputStream.read(readData, numReadBytes, readData.length - numReadBytes)) > 0) {
+            numReadBytes += numBytes;
+        }
+        memoryInputStream.close();
+        Assert.assertArrayEquals(testData, readData);
+
+        // Every segment is missed at most once, be it when prefetching or reading it, and no segment is loaded twice.
+        final long numMisses = memoryManager.getStats().getMisses() - missesBefore;
+        Assert.assertTrue(numMisses <= memoryOutputStream.getCollector().size());
+        Assert.assertTrue(memoryManager.getStats().getLoadedBytes() <= testData.length);
+
+        // Closing the stream waits for the prefetches, so that the segments can be released.
+        memoryInputStream = new MemoryInputStream(memoryOutputStream.getCollector(), 3);
+        Assert.assertEquals(0xFF & testData[0], memoryInputStream.read());
+        memoryInputStream.close();
+        for (VirtualMemorySegment vms : memoryOutputStream.getCollector()) {
+            vms.release();
+        }
+
+        memoryManager.close();
+    }
+
 }
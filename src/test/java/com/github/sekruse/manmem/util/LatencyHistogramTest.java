@@ -0,0 +1,38 @@
+package com.github.sekruse.manmem.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0L, histogram.getPercentileNanos(50d));
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100L);
+        }
+        histogram.record(1_000_000L);
+
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(128L, histogram.getPercentileNanos(50d));
+        Assert.assertEquals(128L, histogram.getPercentileNanos(99d));
+        Assert.assertEquals(1L << 20, histogram.getPercentileNanos(100d));
+        Assert.assertEquals((99 * 100L + 1_000_000L) / 100d, histogram.getMeanNanos(), 0.001d);
+    }
+
+    @Test
+    public void testExtremeLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0L);
+        histogram.record(-5L);
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(2L, histogram.getBucketCount(0));
+        Assert.assertEquals(1L, histogram.getBucketCount(LatencyHistogram.NUM_BUCKETS - 1));
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.github.sekruse.manmem.util;
+
+import com.github.sekruse.manmem.memory.MainMemorySegment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for the {@link StripedQueueableQueue}.
+ */
+public class StripedQueueableQueueTest {
+
+    @Test
+    public void testNumStripesIsRoundedUp() {
+        Assert.assertEquals(1, new StripedQueueableQueue<MainMemorySegment>(1).getNumStripes());
+        Assert.assertEquals(4, new StripedQueueableQueue<MainMemorySegment>(3).getNumStripes());
+        Assert.assertEquals(8, new StripedQueueableQueue<MainMemorySegment>(8).getNumStripes());
+    }
+
+    @Test
+    public void testFifoOrderWithinThread() {
+        final StripedQueueableQueue<MainMemorySegment> queue = new StripedQueueableQueue<>(8);
+        Assert.assertNull(queue.poll());
+        final List<MainMemorySegment> segments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final MainMemorySegment segment = new MainMemorySegment(8);
+            segments.add(segment);
+            queue.add(segment);
+        }
+        Assert.assertEquals(5, queue.size());
+
+        // Elements can remove themselves from their stripe.
+        final MainMemorySegment removedSegment = segments.remove(2);
+        Assert.assertTrue(removedSegment.dequeue());
+        Assert.assertEquals(4, queue.size());
+
+        for (MainMemorySegment segment : segments) {
+            Assert.assertSame(segment, queue.poll());
+        }
+        Assert.assertNull(queue.poll());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testConcurrentAddAndPoll() throws InterruptedException {
+        final StripedQueueableQueue<MainMemorySegment> queue = new StripedQueueableQueue<>(4);
+        final int numThreads = 8, numSegmentsPerThread = 1000;
+        final Set<MainMemorySegment> polledSegments = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            threads.add(new Thread(() -> {
+                final List<MainMemorySegment> segments = new ArrayList<>();
+                for (int j = 0; j < numSegmentsPerThread; j++) {
+                    queue.add(new MainMemorySegment(8));
+                    // Poll every other iteration, so that also segments of other threads might be polled.
+                    if (j % 2 == 1) {
+                        segments.add(queue.poll());
+                    }
+                }
+                synchronized (polledSegments) {
+                    polledSegments.addAll(segments);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        // Every segment must be polled at most once.
+        Assert.assertFalse(polledSegments.contains(null));
+        Assert.assertEquals(numThreads * numSegmentsPerThread / 2, polledSegments.size());
+        Assert.assertEquals(numThreads * numSegmentsPerThread / 2, queue.size());
+        MainMemorySegment segment;
+        int numRemainingSegments = 0;
+        while ((segment = queue.poll()) != null) {
+            Assert.assertFalse(polledSegments.contains(segment));
+            numRemainingSegments++;
+        }
+        Assert.assertEquals(numThreads * numSegmentsPerThread / 2, numRemainingSegments);
+    }
+}